@@ -4,9 +4,11 @@ import com.mealplaner.config.AppProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableConfigurationProperties(AppProperties.class)
+@EnableScheduling
 public class ServerJavaApplication {
   public static void main(String[] args) {
     SpringApplication.run(ServerJavaApplication.class, args);
@@ -0,0 +1,117 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.calorie.CalorieChangedEvent;
+import com.mealplaner.dish.DishChangedEvent;
+import com.mealplaner.ingredient.IngredientChangedEvent;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shares one in-flight load between concurrent identical analytics requests. It keeps nothing once a
+ * load finishes: {@link AnalyticsSnapshotStore} is the cache, and this only stops a burst of misses
+ * on the same key from computing the same response in parallel.
+ */
+@Component
+public class AnalyticsRequestCoalescer {
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentHashMap<RequestKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+  public AnalyticsRequestCoalescer(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(String endpoint, String userId, List<String> params, Supplier<T> loader) {
+    RequestKey key = new RequestKey(endpoint, userId, generation(userId).get(), params);
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      count(endpoint, "coalesced");
+      return (T) join(existing);
+    }
+    count(endpoint, "loaded");
+    try {
+      T value = loader.get();
+      created.complete(value);
+      return value;
+    } catch (RuntimeException | Error exc) {
+      created.completeExceptionally(exc);
+      throw exc;
+    } finally {
+      inFlight.remove(key, created);
+    }
+  }
+
+  public void invalidate(String userId) {
+    if (userId == null) {
+      return;
+    }
+    generation(userId).incrementAndGet();
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    invalidate(event.purchase().getUserId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    invalidate(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onDishChanged(DishChangedEvent event) {
+    invalidate(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onIngredientChanged(IngredientChangedEvent event) {
+    invalidate(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onCalorieChanged(CalorieChangedEvent event) {
+    invalidate(event.userId());
+  }
+
+  private AtomicLong generation(String userId) {
+    return generations.computeIfAbsent(userId, ignore -> new AtomicLong());
+  }
+
+  private void count(String endpoint, String outcome) {
+    meterRegistry.counter("analytics.requests", "endpoint", endpoint, "outcome", outcome).increment();
+  }
+
+  private Object join(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException exc) {
+      if (exc.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (exc.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw exc;
+    }
+  }
+
+  private record RequestKey(String endpoint, String userId, long generation, List<String> params) {}
+}
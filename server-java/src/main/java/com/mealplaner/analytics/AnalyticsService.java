@@ -1,546 +1,448 @@
 package com.mealplaner.analytics;
 
 import com.mealplaner.api.dto.DishCostAnalyticsResponse;
+import com.mealplaner.api.dto.PlanCostResponse;
+import com.mealplaner.api.dto.PriceHistoryResponse;
+import com.mealplaner.api.dto.SpendRangeTotalResponse;
 import com.mealplaner.api.dto.SpendingAnalyticsResponse;
-import com.mealplaner.calorie.CalorieDocument;
-import com.mealplaner.calorie.CalorieService;
+import com.mealplaner.calorie.CalorieDensityService;
+import com.mealplaner.config.AppProperties;
 import com.mealplaner.dish.DishDocument;
-import com.mealplaner.dish.DishIngredient;
 import com.mealplaner.dish.DishService;
-import com.mealplaner.ingredient.IngredientDocument;
 import com.mealplaner.ingredient.IngredientService;
+import com.mealplaner.migration.MigrationService;
+import com.mealplaner.plan.PlanDocument;
+import com.mealplaner.plan.PlanService;
 import com.mealplaner.purchase.PurchaseDocument;
 import com.mealplaner.purchase.PurchaseService;
-import com.mealplaner.util.IngredientKey;
+import com.mealplaner.util.UnitConverter;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AnalyticsService {
-  private static final Map<String, Double> MASS_CONVERSIONS = new HashMap<>();
-  private static final Map<String, Double> VOLUME_CONVERSIONS = new HashMap<>();
-
-  static {
-    MASS_CONVERSIONS.put("kg", 1.0);
-    MASS_CONVERSIONS.put("g", 1.0 / 1000);
-    MASS_CONVERSIONS.put("mg", 1.0 / 1_000_000);
-    MASS_CONVERSIONS.put("lb", 0.453592);
-    MASS_CONVERSIONS.put("oz", 0.0283495);
-
-    VOLUME_CONVERSIONS.put("l", 1.0);
-    VOLUME_CONVERSIONS.put("ml", 1.0 / 1000);
-    VOLUME_CONVERSIONS.put("cup", 0.236588);
-    VOLUME_CONVERSIONS.put("tbsp", 0.0147868);
-    VOLUME_CONVERSIONS.put("tsp", 0.00492892);
-  }
+  private static final int MAX_TOP = 100;
+  private static final int DEFAULT_HISTORY_POINTS = 300;
+  private static final int MAX_HISTORY_POINTS = 5000;
+  private static final List<String> SLOT_ORDER = List.of("breakfast", "lunch", "dinner", "snack");
 
   private final PurchaseService purchaseService;
   private final DishService dishService;
   private final IngredientService ingredientService;
-  private final CalorieService calorieService;
+  private final MigrationService migrationService;
+  private final CalorieDensityService densityService;
+  private final SpendRollupService rollupService;
+  private final IngredientPriceService priceService;
+  private final SpendAggregationQuery aggregationQuery;
+  private final PurchaseColumnStore columnStore;
+  private final SpendRangeIndex rangeIndex;
+  private final PlanService planService;
+  private final AppProperties properties;
+  private final ForkJoinPool dishCostingPool;
 
   public AnalyticsService(
       PurchaseService purchaseService,
       DishService dishService,
       IngredientService ingredientService,
-      CalorieService calorieService
+      MigrationService migrationService,
+      CalorieDensityService densityService,
+      SpendRollupService rollupService,
+      IngredientPriceService priceService,
+      SpendAggregationQuery aggregationQuery,
+      PurchaseColumnStore columnStore,
+      SpendRangeIndex rangeIndex,
+      PlanService planService,
+      AppProperties properties
   ) {
     this.purchaseService = purchaseService;
     this.dishService = dishService;
     this.ingredientService = ingredientService;
-    this.calorieService = calorieService;
+    this.migrationService = migrationService;
+    this.densityService = densityService;
+    this.rollupService = rollupService;
+    this.priceService = priceService;
+    this.aggregationQuery = aggregationQuery;
+    this.columnStore = columnStore;
+    this.rangeIndex = rangeIndex;
+    this.planService = planService;
+    this.properties = properties;
+    this.dishCostingPool = new ForkJoinPool(Math.max(1, properties.getAnalytics().getDishCostingParallelism()));
   }
 
   public SpendingAnalyticsResponse buildSpendingAnalytics(
       String userId,
       Optional<String> start,
       Optional<String> end,
-      Optional<String> ingredientKey
+      Optional<String> ingredientKey,
+      Optional<String> granularity,
+      Optional<Integer> top
   ) {
-    List<PurchaseDocument> filtered = purchaseService.list(userId, start, end, ingredientKey);
-    List<PurchaseDocument> all = purchaseService.list(userId, Optional.empty(), Optional.empty(), Optional.empty());
+    int limit = Math.max(1, Math.min(top.orElse(TopSpendersCollector.DEFAULT_LIMIT), MAX_TOP));
+    SpendGranularity bucketing = SpendGranularity.parse(granularity.orElse(null));
     SpendingAnalyticsResponse response = new SpendingAnalyticsResponse();
     SpendingAnalyticsResponse.Range range = new SpendingAnalyticsResponse.Range();
     range.setStart(start.map(String::trim).filter(value -> !value.isBlank()).orElse(null));
     range.setEnd(end.map(String::trim).filter(value -> !value.isBlank()).orElse(null));
     response.setRange(range);
     response.setIngredientKey(ingredientKey.map(String::trim).filter(value -> !value.isBlank()).orElse(null));
-    response.setPurchaseCount(filtered.size());
-    response.setTotals(computeSpendStats(filtered));
-    response.setAllTime(computeSpendStats(all));
-    response.setDailyTotals(buildDailyTotals(filtered));
-    response.setTopSpenders(buildTopSpenders(filtered, response.getTotals().getTotalSpent()));
-    List<CalorieDocument> calorieEntries = calorieService.listAll(userId);
-    NutritionResult nutrition = computeNutrition(filtered, calorieEntries);
-    response.setNutrition(nutrition.stats);
-    response.setTopCalories(nutrition.topItems);
-    return response;
-  }
-
-  public DishCostAnalyticsResponse buildDishCostAnalytics(String userId) {
-    List<DishDocument> dishes = dishService.listDishes(userId);
-    List<IngredientDocument> ingredients = ingredientService.listIngredients(userId);
-    List<PurchaseDocument> purchases = purchaseService.list(userId, Optional.empty(), Optional.empty(), Optional.empty());
-
-    Map<String, IngredientDocument> optionMap = new HashMap<>();
-    for (IngredientDocument ingredient : ingredients) {
-      optionMap.put(normalizeKey(ingredient.getKey()), ingredient);
-      if (ingredient.getName() != null && ingredient.getUnit() != null) {
-        optionMap.put(IngredientKey.normalize(ingredient.getName(), ingredient.getUnit()), ingredient);
-      }
-    }
-
-    Map<String, List<PurchaseDocument>> purchaseMap = new HashMap<>();
-    for (PurchaseDocument purchase : purchases) {
-      String key = normalizeKey(purchase.getIngredientKey());
-      purchaseMap.computeIfAbsent(key, ignore -> new ArrayList<>()).add(purchase);
-    }
-
-    List<DishCostAnalyticsResponse.DishCostSummary> summaries = new ArrayList<>();
-    double totalDishCost = 0.0;
-    int missingCount = 0;
-
-    for (DishDocument dish : dishes) {
-      double dishCost = 0.0;
-      List<DishCostAnalyticsResponse.MissingIngredient> missing = new ArrayList<>();
-      List<DishCostAnalyticsResponse.IngredientCost> ingredientCosts = new ArrayList<>();
-
-      for (DishIngredient ingredient : dish.getIngredients()) {
-        String name = ingredient.getName() == null ? "" : ingredient.getName().trim();
-        String unit = ingredient.getUnit() == null ? "" : ingredient.getUnit().trim().toLowerCase();
-        if (name.isBlank() || unit.isBlank()) {
-          DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
-          missingIngredient.setIngredient(name);
-          missingIngredient.setUnit(unit);
-          missing.add(missingIngredient);
-          continue;
-        }
-        String fallbackKey = IngredientKey.normalize(name, unit);
-        String resolvedKey = ingredient.getIngredientKey() == null || ingredient.getIngredientKey().isBlank()
-            ? fallbackKey
-            : normalizeKey(ingredient.getIngredientKey());
-        IngredientDocument matching = optionMap.get(resolvedKey);
-        if (matching == null) {
-          matching = optionMap.get(fallbackKey);
-        }
-        if (matching == null) {
-          DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
-          missingIngredient.setIngredient(name);
-          missingIngredient.setUnit(unit);
-          missing.add(missingIngredient);
-          continue;
-        }
-        List<PurchaseDocument> purchasesForIngredient = purchaseMap.get(normalizeKey(matching.getKey()));
-        if (purchasesForIngredient == null || purchasesForIngredient.isEmpty()) {
-          DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
-          missingIngredient.setIngredient(name);
-          missingIngredient.setUnit(unit);
-          missing.add(missingIngredient);
-          continue;
+    migrationService.claimLegacy(userId);
+    SpendTotalsCollector totals = new SpendTotalsCollector();
+    TopSpendersCollector topSpenders = new TopSpendersCollector(limit);
+    NutritionCollector nutrition = new NutritionCollector(densityService.forUser(userId), limit);
+    SpendAggregator aggregator = new SpendAggregator(List.of(totals, topSpenders, nutrition));
+    String mode = properties.getAnalytics().getMode();
+    if ("aggregation".equalsIgnoreCase(mode) || "columnar".equalsIgnoreCase(mode)) {
+      Instant startValue = start.map(value -> purchaseService.parseRange(value, false)).orElse(null);
+      Instant endValue = end.map(value -> purchaseService.parseRange(value, true)).orElse(null);
+      String key = ingredientKey.map(String::trim).orElse(null);
+      if ("columnar".equalsIgnoreCase(mode)) {
+        columnStore.scan(userId, startValue, endValue, key, aggregator);
+      } else {
+        if (!aggregationQuery.collect(userId, startValue, endValue, key, totals, topSpenders, nutrition)) {
+          collectPurchasePrices(userId, startValue, endValue, key, totals);
         }
-        PurchaseDocument latest = purchasesForIngredient.get(0);
-        NormalizedQuantity normalizedPurchase = normalizeQuantity(latest.getAmount(), latest.getUnit());
-        NormalizedQuantity normalizedIngredient = normalizeQuantity(ingredient.getQty(), ingredient.getUnit());
-        if (normalizedPurchase == null || normalizedIngredient == null) {
-          DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
-          missingIngredient.setIngredient(name);
-          missingIngredient.setUnit(unit);
-          missing.add(missingIngredient);
-          continue;
-        }
-        if (!normalizedPurchase.baseUnit.equals(normalizedIngredient.baseUnit) || normalizedPurchase.amount <= 0) {
-          DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
-          missingIngredient.setIngredient(name);
-          missingIngredient.setUnit(unit);
-          missing.add(missingIngredient);
-          continue;
-        }
-        double pricePerUnit = latest.getPrice() / normalizedPurchase.amount;
-        double cost = pricePerUnit * normalizedIngredient.amount;
-        dishCost += cost;
-        DishCostAnalyticsResponse.IngredientCost ingredientCost = new DishCostAnalyticsResponse.IngredientCost();
-        ingredientCost.setIngredient(name);
-        ingredientCost.setAmount(ingredient.getQty());
-        ingredientCost.setUnit(unit);
-        ingredientCost.setCost(cost);
-        ingredientCosts.add(ingredientCost);
       }
-
-      if (!ingredientCosts.isEmpty()) {
-        totalDishCost += dishCost;
+    } else {
+      aggregator.acceptAll(purchaseService.list(userId, start, end, ingredientKey));
+    }
+    aggregator.complete(response);
+    response.setGranularity(bucketing.value());
+    if (bucketing != SpendGranularity.DAY) {
+      Optional<Instant> from = start.map(value -> purchaseService.parseRange(value, false));
+      Optional<Instant> to = end.map(value -> purchaseService.parseRange(value, true));
+      // Rollup buckets hold whole UTC days; a bound inside a day is bucketed from the scanned purchases.
+      if (response.getIngredientKey() != null || !wholeDays(from, to)) {
+        response.setDailyTotals(totals.bucketTotals(bucketing));
+      } else {
+        response.setDailyTotals(toBucketTotals(rollupService.listBuckets(
+            userId,
+            bucketing,
+            from.map(this::toUtcDate).orElse(null),
+            to.map(this::toUtcDate).orElse(null)
+        )));
       }
-      missingCount += missing.size();
-
-      DishCostAnalyticsResponse.DishCostSummary summary = new DishCostAnalyticsResponse.DishCostSummary();
-      summary.setDishId(dish.getId());
-      summary.setName(dish.getName());
-      summary.setTotalCost(dishCost);
-      summary.setMissingIngredients(missing);
-      summary.setIngredients(ingredientCosts);
-      summaries.add(summary);
     }
-
-    summaries.sort(Comparator.comparingDouble(DishCostAnalyticsResponse.DishCostSummary::getTotalCost).reversed());
-
-    DishCostAnalyticsResponse response = new DishCostAnalyticsResponse();
-    response.setDishes(summaries);
-    response.setTotalDishCost(totalDishCost);
-    response.setMissingCount(missingCount);
-    response.setTotalSpent(purchases.stream().mapToDouble(PurchaseDocument::getPrice).sum());
+    response.setAllTime(computeRollupStats(rollupService.listDaily(userId)));
     return response;
   }
 
-  private SpendingAnalyticsResponse.SpendingStats computeSpendStats(List<PurchaseDocument> purchases) {
-    SpendingAnalyticsResponse.SpendingStats stats = new SpendingAnalyticsResponse.SpendingStats();
-    if (purchases == null || purchases.isEmpty()) {
-      stats.setTotalSpent(0.0);
-      stats.setAverageDailySpend(0.0);
-      stats.setMedianDailySpend(0.0);
-      stats.setDaysTracked(0);
-      stats.setAveragePurchase(0.0);
-      return stats;
+  private void collectPurchasePrices(String userId, Instant start, Instant end, String key, SpendTotalsCollector totals) {
+    if (key != null) {
+      aggregationQuery.collectPrices(userId, start, end, key, null, totals);
+      return;
     }
-
-    Map<LocalDate, Double> byDate = new HashMap<>();
-    LocalDate minDate = null;
-    LocalDate maxDate = null;
-    Map<String, UnitAggregate> normalizedTotals = new HashMap<>();
-
-    for (PurchaseDocument purchase : purchases) {
-      LocalDate date = toLocalDate(purchase);
-      if (date != null) {
-        if (minDate == null || date.isBefore(minDate)) {
-          minDate = date;
-        }
-        if (maxDate == null || date.isAfter(maxDate)) {
-          maxDate = date;
-        }
-        byDate.merge(date, purchase.getPrice(), Double::sum);
-      }
-      NormalizedQuantity normalized = normalizeQuantity(purchase.getAmount(), purchase.getUnit());
-      if (normalized != null) {
-        UnitAggregate bucket = normalizedTotals.get(normalized.baseUnit);
-        if (bucket == null) {
-          bucket = new UnitAggregate();
-          normalizedTotals.put(normalized.baseUnit, bucket);
-        }
-        bucket.amount += normalized.amount;
-        bucket.price += purchase.getPrice();
-      }
+    LocalDate from = start == null ? null : toUtcDate(start);
+    LocalDate to = end == null ? null : toUtcDate(end);
+    totals.mergePurchasePrices(rollupService.purchaseDigest(
+        userId,
+        from == null ? null : from.plusDays(1),
+        to == null ? null : to.minusDays(1)
+    ));
+    Set<LocalDate> edges = new HashSet<>();
+    if (from != null) {
+      edges.add(from);
     }
-
-    double totalSpent = byDate.values().stream().mapToDouble(Double::doubleValue).sum();
-    int daysTracked = computeDaysTracked(minDate, maxDate);
-    stats.setTotalSpent(totalSpent);
-    stats.setAverageDailySpend(daysTracked > 0 ? totalSpent / daysTracked : 0.0);
-    stats.setMedianDailySpend(median(byDate.values()));
-    stats.setDaysTracked(daysTracked);
-    stats.setAveragePurchase(totalSpent / Math.max(1, purchases.size()));
-
-    if (!normalizedTotals.isEmpty()) {
-      Map.Entry<String, UnitAggregate> best = null;
-      for (Map.Entry<String, UnitAggregate> entry : normalizedTotals.entrySet()) {
-        if (best == null || entry.getValue().amount > best.getValue().amount) {
-          best = entry;
-        }
-      }
-      if (best != null && best.getValue().amount > 0) {
-        stats.setNormalizedUnit(best.getKey());
-        stats.setTotalNormalizedQuantity(best.getValue().amount);
-        stats.setAverageUnitPrice(best.getValue().price / best.getValue().amount);
-      }
+    if (to != null) {
+      edges.add(to);
     }
-    return stats;
+    aggregationQuery.collectPrices(userId, start, end, null, edges, totals);
   }
 
-  private List<SpendingAnalyticsResponse.DailyTotal> buildDailyTotals(List<PurchaseDocument> purchases) {
-    Map<LocalDate, Double> totals = new HashMap<>();
-    for (PurchaseDocument purchase : purchases) {
-      LocalDate date = toLocalDate(purchase);
-      if (date == null) {
-        continue;
-      }
-      totals.merge(date, purchase.getPrice(), Double::sum);
+  public SpendRangeTotalResponse buildRangeTotal(String userId, Optional<String> start, Optional<String> end) {
+    String startValue = start.map(String::trim).filter(value -> !value.isBlank()).orElse(null);
+    String endValue = end.map(String::trim).filter(value -> !value.isBlank()).orElse(null);
+    Optional<Instant> from = Optional.ofNullable(startValue).map(value -> purchaseService.parseRange(value, false));
+    Optional<Instant> to = Optional.ofNullable(endValue).map(value -> purchaseService.parseRange(value, true));
+    if (!wholeDays(from, to)) {
+      throw new IllegalArgumentException("Range totals take whole UTC days");
     }
-    List<SpendingAnalyticsResponse.DailyTotal> result = new ArrayList<>();
-    totals.entrySet().stream()
-        .sorted(Map.Entry.comparingByKey())
-        .forEach(entry -> {
-          SpendingAnalyticsResponse.DailyTotal total = new SpendingAnalyticsResponse.DailyTotal();
-          total.setDate(entry.getKey().toString());
-          total.setTotal(entry.getValue());
-          result.add(total);
-        });
-    return result;
+    migrationService.claimLegacy(userId);
+    SpendFenwick.Totals totals = rangeIndex.sum(
+        userId,
+        from.map(this::toUtcDate).orElse(null),
+        to.map(this::toUtcDate).orElse(null)
+    );
+    SpendRangeTotalResponse response = new SpendRangeTotalResponse();
+    response.setStart(startValue);
+    response.setEnd(endValue);
+    response.setTotal(totals.total());
+    response.setPurchaseCount(totals.purchaseCount());
+    response.setDaysWithPurchases(totals.daysWithPurchases());
+    return response;
   }
 
-  private List<SpendingAnalyticsResponse.TopSpender> buildTopSpenders(
-      List<PurchaseDocument> purchases,
-      double totalSpent
+  public PriceHistoryResponse buildPriceHistory(
+      String userId,
+      String ingredientKey,
+      Optional<String> start,
+      Optional<String> end,
+      Optional<Integer> maxPoints
   ) {
-    Map<String, TopSpenderAggregate> buckets = new HashMap<>();
+    String key = ingredientKey == null ? "" : ingredientKey.trim();
+    if (key.isEmpty()) {
+      throw new IllegalArgumentException("ingredientKey is required");
+    }
+    int limit = Math.max(3, Math.min(maxPoints.orElse(DEFAULT_HISTORY_POINTS), MAX_HISTORY_POINTS));
+    List<PurchaseDocument> purchases = purchaseService.list(userId, start, end, Optional.of(key));
+    int[] dimensionCounts = new int[3];
     for (PurchaseDocument purchase : purchases) {
-      String key = normalizeKey(purchase.getIngredientKey());
-      TopSpenderAggregate bucket = buckets.get(key);
-      if (bucket == null) {
-        bucket = new TopSpenderAggregate();
-        buckets.put(key, bucket);
+      int dimension = UnitConverter.dimension(UnitConverter.code(purchase.getUnit()));
+      if (dimension != UnitConverter.UNKNOWN) {
+        dimensionCounts[dimension] += 1;
       }
-      bucket.total += purchase.getPrice();
-      bucket.count += 1;
-      NormalizedQuantity normalized = normalizeQuantity(purchase.getAmount(), purchase.getUnit());
-      if (normalized != null && normalized.amount > 0) {
-        bucket.unitPriceSum += purchase.getPrice() / normalized.amount;
-        bucket.unitPriceCount += 1;
-        bucket.unitLabel = normalized.baseUnit;
-      }
-    }
-    List<SpendingAnalyticsResponse.TopSpender> result = new ArrayList<>();
-    for (Map.Entry<String, TopSpenderAggregate> entry : buckets.entrySet()) {
-      TopSpenderAggregate bucket = entry.getValue();
-      SpendingAnalyticsResponse.TopSpender spender = new SpendingAnalyticsResponse.TopSpender();
-      spender.setIngredientKey(entry.getKey());
-      spender.setTotal(bucket.total);
-      spender.setCount(bucket.count);
-      spender.setShare(totalSpent > 0 ? bucket.total / totalSpent : 0.0);
-      spender.setAverageUnitPrice(
-          bucket.unitPriceCount > 0 ? bucket.unitPriceSum / bucket.unitPriceCount : null
-      );
-      spender.setUnitLabel(bucket.unitLabel);
-      result.add(spender);
     }
-    result.sort(Comparator.comparingDouble(SpendingAnalyticsResponse.TopSpender::getTotal).reversed());
-    if (result.size() > 5) {
-      return result.subList(0, 5);
+    int dimension = UnitConverter.MASS;
+    for (int candidate = 1; candidate < dimensionCounts.length; candidate++) {
+      if (dimensionCounts[candidate] > dimensionCounts[dimension]) {
+        dimension = candidate;
+      }
     }
-    return result;
-  }
 
-  private NutritionResult computeNutrition(List<PurchaseDocument> purchases, List<CalorieDocument> calorieEntries) {
-    if (purchases.isEmpty() || calorieEntries.isEmpty()) {
-      SpendingAnalyticsResponse.NutritionStats stats = new SpendingAnalyticsResponse.NutritionStats();
-      stats.setTotalCalories(0.0);
-      stats.setAverageDailyCalories(0.0);
-      stats.setCaloriesPerPurchase(0.0);
-      stats.setDaysTracked(purchases.isEmpty() ? 0 : 1);
-      stats.setPurchasesWithCalories(0);
-      return new NutritionResult(stats, List.of());
+    long[] times = new long[purchases.size()];
+    double[] prices = new double[purchases.size()];
+    int length = 0;
+    int baseCode = UnitConverter.UNKNOWN;
+    for (int index = purchases.size() - 1; index >= 0; index--) {
+      PurchaseDocument purchase = purchases.get(index);
+      int unitCode = UnitConverter.code(purchase.getUnit());
+      if (purchase.getPurchasedAt() == null || UnitConverter.dimension(unitCode) != dimension) {
+        continue;
+      }
+      double normalized = purchase.getAmount() > 0 ? UnitConverter.toBase(purchase.getAmount(), unitCode) : Double.NaN;
+      if (!Double.isFinite(normalized) || normalized <= 0) {
+        continue;
+      }
+      times[length] = purchase.getPurchasedAt().toEpochMilli();
+      prices[length] = purchase.getPrice() / normalized;
+      baseCode = UnitConverter.baseCode(unitCode);
+      length++;
     }
 
-    Map<String, List<CalorieDocument>> entryMap = new HashMap<>();
-    for (CalorieDocument entry : calorieEntries) {
-      entryMap.computeIfAbsent(normalizeKey(entry.getIngredientKey()), ignore -> new ArrayList<>()).add(entry);
+    PriceHistoryResponse response = new PriceHistoryResponse();
+    response.setIngredientKey(key);
+    response.setBaseUnit(UnitConverter.name(baseCode));
+    response.setTotalPoints(length);
+    List<PriceHistoryResponse.PricePoint> points = new ArrayList<>();
+    for (int index : Lttb.select(times, prices, length, limit)) {
+      PriceHistoryResponse.PricePoint point = new PriceHistoryResponse.PricePoint();
+      point.setPurchasedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(times[index]), ZoneOffset.UTC));
+      point.setPricePerUnit(prices[index]);
+      points.add(point);
     }
+    response.setPoints(points);
+    return response;
+  }
 
-    LocalDate minDate = null;
-    LocalDate maxDate = null;
-    double totalCalories = 0.0;
-    int purchasesWithCalories = 0;
-    Map<String, NutritionAggregate> ingredientTotals = new HashMap<>();
-
-    for (PurchaseDocument purchase : purchases) {
-      LocalDate date = toLocalDate(purchase);
-      if (date != null) {
-        if (minDate == null || date.isBefore(minDate)) {
-          minDate = date;
-        }
-        if (maxDate == null || date.isAfter(maxDate)) {
-          maxDate = date;
+  public PlanCostResponse buildPlanCost(String userId, String start, String end) {
+    parseDate(start);
+    parseDate(end);
+    List<PlanDocument> plans = planService.listPlans(userId, Optional.of(start), Optional.of(end));
+    Set<String> dishIds = new HashSet<>();
+    for (PlanDocument plan : plans) {
+      for (String dishId : plan.getSlots().values()) {
+        if (dishId != null && !dishId.isBlank()) {
+          dishIds.add(dishId);
         }
       }
+    }
 
-      List<CalorieDocument> entries = entryMap.get(normalizeKey(purchase.getIngredientKey()));
-      if (entries == null || entries.isEmpty()) {
-        continue;
-      }
+    PlanCostResponse response = new PlanCostResponse();
+    response.setStart(start);
+    response.setEnd(end);
+    if (dishIds.isEmpty()) {
+      return response;
+    }
+    Map<String, DishDocument> dishes = new HashMap<>();
+    for (DishDocument dish : dishService.listDishesByIds(userId, dishIds)) {
+      dishes.put(dish.getId(), dish);
+    }
+    DishCostCalculator calculator = new DishCostCalculator(
+        ingredientService.listIngredients(userId),
+        priceService.listByUser(userId)
+    );
+    Map<String, DishCostAnalyticsResponse.DishCostSummary> costed = new HashMap<>();
 
-      Double caloriesForPurchase = null;
-      for (CalorieDocument entry : entries) {
-        if (entry.getAmount() <= 0) {
-          continue;
-        }
-        Double converted = convertQuantity(purchase.getAmount(), purchase.getUnit(), entry.getUnit());
-        if (converted == null) {
-          continue;
-        }
-        double candidate = (converted / entry.getAmount()) * entry.getCalories();
-        if (!Double.isFinite(candidate)) {
+    double totalCost = 0.0;
+    int missingCount = 0;
+    List<PlanCostResponse.DayCost> days = new ArrayList<>(plans.size());
+    for (PlanDocument plan : plans) {
+      PlanCostResponse.DayCost day = new PlanCostResponse.DayCost();
+      day.setDate(plan.getDateIso());
+      List<String> slotNames = new ArrayList<>(plan.getSlots().keySet());
+      slotNames.sort(Comparator.comparingInt(this::slotRank).thenComparing(Comparator.naturalOrder()));
+      double dayTotal = 0.0;
+      for (String slotName : slotNames) {
+        String dishId = plan.getSlots().get(slotName);
+        DishDocument dish = dishId == null ? null : dishes.get(dishId);
+        if (dish == null) {
           continue;
         }
-        caloriesForPurchase = candidate;
-        break;
+        DishCostAnalyticsResponse.DishCostSummary summary = costed.computeIfAbsent(dishId, ignore -> calculator.cost(dish));
+        PlanCostResponse.SlotCost slot = new PlanCostResponse.SlotCost();
+        slot.setSlot(slotName);
+        slot.setDishId(dishId);
+        slot.setName(dish.getName());
+        slot.setCost(summary.getTotalCost());
+        slot.setMissingIngredients(summary.getMissingIngredients());
+        day.getSlots().add(slot);
+        dayTotal += summary.getTotalCost();
+        missingCount += summary.getMissingIngredients().size();
       }
-      if (caloriesForPurchase == null) {
-        continue;
-      }
-
-      totalCalories += caloriesForPurchase;
-      purchasesWithCalories += 1;
+      day.setTotalCost(dayTotal);
+      totalCost += dayTotal;
+      days.add(day);
+    }
+    response.setDays(days);
+    response.setTotalCost(totalCost);
+    response.setMissingCount(missingCount);
+    return response;
+  }
 
-      NormalizedQuantity normalized = normalizeQuantity(purchase.getAmount(), purchase.getUnit());
-      NutritionAggregate bucket = ingredientTotals.get(normalizeKey(purchase.getIngredientKey()));
-      if (bucket == null) {
-        bucket = new NutritionAggregate();
-        ingredientTotals.put(normalizeKey(purchase.getIngredientKey()), bucket);
-      }
-      bucket.calories += caloriesForPurchase;
-      bucket.count += 1;
-      if (normalized != null) {
-        bucket.normalizedAmount += normalized.amount;
-        bucket.normalizedUnit = normalized.baseUnit;
+  public DishCostAnalyticsResponse buildDishCostAnalytics(String userId) {
+    List<DishDocument> dishes = dishService.listDishes(userId);
+    DishCostCalculator calculator = new DishCostCalculator(
+        ingredientService.listIngredients(userId),
+        priceService.listByUser(userId)
+    );
+    DishCostAnalyticsResponse.DishCostSummary[] costed = new DishCostAnalyticsResponse.DishCostSummary[dishes.size()];
+    if (dishes.size() < properties.getAnalytics().getParallelDishThreshold()) {
+      for (int index = 0; index < costed.length; index++) {
+        costed[index] = calculator.cost(dishes.get(index));
       }
+    } else {
+      dishCostingPool.invoke(new DishCostTask(calculator, dishes, costed, 0, costed.length));
     }
 
-    int daysTracked = computeDaysTracked(minDate, maxDate);
-    double averageDailyCalories = daysTracked > 0 ? totalCalories / daysTracked : 0.0;
-    double caloriesPerPurchase = purchasesWithCalories > 0 ? totalCalories / purchasesWithCalories : 0.0;
-
-    List<SpendingAnalyticsResponse.TopCalorieItem> topItems = new ArrayList<>();
-    for (Map.Entry<String, NutritionAggregate> entry : ingredientTotals.entrySet()) {
-      NutritionAggregate aggregate = entry.getValue();
-      SpendingAnalyticsResponse.TopCalorieItem item = new SpendingAnalyticsResponse.TopCalorieItem();
-      item.setIngredientKey(entry.getKey());
-      item.setTotalCalories(aggregate.calories);
-      item.setCount(aggregate.count);
-      item.setNormalizedAmount(aggregate.normalizedAmount > 0 ? aggregate.normalizedAmount : null);
-      item.setNormalizedUnit(aggregate.normalizedUnit);
-      topItems.add(item);
-    }
-    topItems.sort(Comparator.comparingDouble(SpendingAnalyticsResponse.TopCalorieItem::getTotalCalories).reversed());
-    if (topItems.size() > 5) {
-      topItems = new ArrayList<>(topItems.subList(0, 5));
+    double totalDishCost = 0.0;
+    int missingCount = 0;
+    for (DishCostAnalyticsResponse.DishCostSummary summary : costed) {
+      if (!summary.getIngredients().isEmpty()) {
+        totalDishCost += summary.getTotalCost();
+      }
+      missingCount += summary.getMissingIngredients().size();
     }
+    List<DishCostAnalyticsResponse.DishCostSummary> summaries = new ArrayList<>(Arrays.asList(costed));
+    summaries.sort(Comparator.comparingDouble(DishCostAnalyticsResponse.DishCostSummary::getTotalCost).reversed());
 
-    SpendingAnalyticsResponse.NutritionStats stats = new SpendingAnalyticsResponse.NutritionStats();
-    stats.setTotalCalories(totalCalories);
-    stats.setAverageDailyCalories(averageDailyCalories);
-    stats.setCaloriesPerPurchase(caloriesPerPurchase);
-    stats.setDaysTracked(daysTracked);
-    stats.setPurchasesWithCalories(purchasesWithCalories);
-    return new NutritionResult(stats, topItems);
+    DishCostAnalyticsResponse response = new DishCostAnalyticsResponse();
+    response.setDishes(summaries);
+    response.setTotalDishCost(totalDishCost);
+    response.setMissingCount(missingCount);
+    response.setTotalSpent(rollupService.listDaily(userId).stream().mapToDouble(SpendRollupDocument::getTotal).sum());
+    return response;
   }
 
-  private LocalDate toLocalDate(PurchaseDocument purchase) {
-    if (purchase.getPurchasedAt() == null) {
-      return null;
-    }
-    return purchase.getPurchasedAt().atZone(ZoneOffset.UTC).toLocalDate();
+  @PreDestroy
+  void shutdown() {
+    dishCostingPool.shutdown();
   }
 
-  private int computeDaysTracked(LocalDate minDate, LocalDate maxDate) {
-    if (minDate == null || maxDate == null) {
-      return 0;
+  private SpendingAnalyticsResponse.SpendingStats computeRollupStats(List<SpendRollupDocument> rollups) {
+    SpendTotalsCollector collector = new SpendTotalsCollector();
+    for (SpendRollupDocument rollup : rollups) {
+      if (rollup.getDateIso() == null) {
+        collector.addUndated(rollup.getCount());
+      } else {
+        collector.addDay(LocalDate.parse(rollup.getDateIso()).toEpochDay(), rollup.getTotal(), rollup.getCount());
+      }
+      collector.mergePurchasePrices(PriceDigest.of(rollup.getCentroids()));
+      for (Map.Entry<String, SpendRollupDocument.UnitTotal> entry : rollup.getUnits().entrySet()) {
+        collector.addUnit(entry.getKey(), entry.getValue().getAmount(), entry.getValue().getPrice());
+      }
     }
-    long days = ChronoUnit.DAYS.between(minDate, maxDate) + 1;
-    return (int) Math.max(days, 1);
+    return collector.stats();
   }
 
-  private double median(Iterable<Double> values) {
-    List<Double> sorted = new ArrayList<>();
-    for (Double value : values) {
-      sorted.add(value);
+  private List<SpendingAnalyticsResponse.DailyTotal> toBucketTotals(List<SpendRollupDocument> buckets) {
+    List<SpendingAnalyticsResponse.DailyTotal> result = new ArrayList<>(buckets.size());
+    for (SpendRollupDocument bucket : buckets) {
+      SpendingAnalyticsResponse.DailyTotal total = new SpendingAnalyticsResponse.DailyTotal();
+      total.setDate(bucket.getDateIso());
+      total.setTotal(bucket.getTotal());
+      result.add(total);
     }
-    if (sorted.isEmpty()) {
-      return 0.0;
-    }
-    Collections.sort(sorted);
-    int mid = sorted.size() / 2;
-    if (sorted.size() % 2 == 0) {
-      return (sorted.get(mid - 1) + sorted.get(mid)) / 2.0;
-    }
-    return sorted.get(mid);
+    return result;
   }
 
-  private NormalizedQuantity normalizeQuantity(double amount, String unit) {
-    if (!Double.isFinite(amount) || amount <= 0) {
-      return null;
-    }
-    String normalized = unit == null ? "" : unit.trim().toLowerCase();
-    if (MASS_CONVERSIONS.containsKey(normalized)) {
-      return new NormalizedQuantity("kg", amount * MASS_CONVERSIONS.get(normalized));
-    }
-    if (VOLUME_CONVERSIONS.containsKey(normalized)) {
-      return new NormalizedQuantity("l", amount * VOLUME_CONVERSIONS.get(normalized));
-    }
-    if ("pcs".equals(normalized)) {
-      return new NormalizedQuantity("pcs", amount);
-    }
-    return null;
+  private int slotRank(String slot) {
+    int rank = SLOT_ORDER.indexOf(slot);
+    return rank < 0 ? SLOT_ORDER.size() : rank;
   }
 
-  private Double convertQuantity(double amount, String fromUnit, String toUnit) {
-    String from = fromUnit == null ? "" : fromUnit.trim().toLowerCase();
-    String to = toUnit == null ? "" : toUnit.trim().toLowerCase();
-    if (from.equals(to)) {
-      return amount;
-    }
-    if (MASS_CONVERSIONS.containsKey(from) && MASS_CONVERSIONS.containsKey(to)) {
-      double inKg = amount * MASS_CONVERSIONS.get(from);
-      return inKg / MASS_CONVERSIONS.get(to);
+  private LocalDate parseDate(String raw) {
+    try {
+      return LocalDate.parse(raw == null ? "" : raw.trim());
+    } catch (DateTimeParseException exc) {
+      throw new IllegalArgumentException("Invalid date range value");
     }
-    if (VOLUME_CONVERSIONS.containsKey(from) && VOLUME_CONVERSIONS.containsKey(to)) {
-      double inLiters = amount * VOLUME_CONVERSIONS.get(from);
-      return inLiters / VOLUME_CONVERSIONS.get(to);
-    }
-    if ("pcs".equals(from) && "pcs".equals(to)) {
-      return amount;
-    }
-    return null;
-  }
-
-  private String normalizeKey(String value) {
-    return value == null ? "" : value.trim().toLowerCase();
   }
 
-  private static class UnitAggregate {
-    private double amount;
-    private double price;
+  private LocalDate toUtcDate(Instant instant) {
+    return instant.atZone(ZoneOffset.UTC).toLocalDate();
   }
 
-  private static class TopSpenderAggregate {
-    private double total;
-    private int count;
-    private double unitPriceSum;
-    private int unitPriceCount;
-    private String unitLabel;
+  private Instant startOfDay(Instant instant) {
+    return toUtcDate(instant).atStartOfDay(ZoneOffset.UTC).toInstant();
   }
 
-  private static class NutritionAggregate {
-    private double calories;
-    private int count;
-    private double normalizedAmount;
-    private String normalizedUnit;
+  private boolean wholeDays(Optional<Instant> from, Optional<Instant> to) {
+    return from.map(value -> value.equals(startOfDay(value))).orElse(true)
+        && to.map(value -> value.plusMillis(1).equals(startOfDay(value.plusMillis(1)))).orElse(true);
   }
 
-  private static class NormalizedQuantity {
-    private final String baseUnit;
-    private final double amount;
-
-    private NormalizedQuantity(String baseUnit, double amount) {
-      this.baseUnit = baseUnit;
-      this.amount = amount;
+  private static final class DishCostTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int LEAF_SIZE = 64;
+
+    private final transient DishCostCalculator calculator;
+    private final transient List<DishDocument> dishes;
+    private final transient DishCostAnalyticsResponse.DishCostSummary[] costed;
+    private final int from;
+    private final int to;
+
+    private DishCostTask(
+        DishCostCalculator calculator,
+        List<DishDocument> dishes,
+        DishCostAnalyticsResponse.DishCostSummary[] costed,
+        int from,
+        int to
+    ) {
+      this.calculator = calculator;
+      this.dishes = dishes;
+      this.costed = costed;
+      this.from = from;
+      this.to = to;
     }
-  }
-
-  private static class NutritionResult {
-    private final SpendingAnalyticsResponse.NutritionStats stats;
-    private final List<SpendingAnalyticsResponse.TopCalorieItem> topItems;
 
-    private NutritionResult(
-        SpendingAnalyticsResponse.NutritionStats stats,
-        List<SpendingAnalyticsResponse.TopCalorieItem> topItems
-    ) {
-      this.stats = stats;
-      this.topItems = topItems;
+    @Override
+    protected void compute() {
+      if (to - from <= LEAF_SIZE) {
+        for (int index = from; index < to; index++) {
+          costed[index] = calculator.cost(dishes.get(index));
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new DishCostTask(calculator, dishes, costed, from, middle),
+          new DishCostTask(calculator, dishes, costed, middle, to)
+      );
     }
   }
 }
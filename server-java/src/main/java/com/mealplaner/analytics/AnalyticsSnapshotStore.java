@@ -0,0 +1,204 @@
+package com.mealplaner.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplaner.calorie.CalorieChangedEvent;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishChangedEvent;
+import com.mealplaner.ingredient.IngredientChangedEvent;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AnalyticsSnapshotStore {
+  private static final Logger logger = LoggerFactory.getLogger(AnalyticsSnapshotStore.class);
+
+  private final AppProperties properties;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final LinkedHashMap<SnapshotKey, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> versions = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong sequence = new AtomicLong();
+  private final ConcurrentHashMap<String, Long> pendingSince = new ConcurrentHashMap<>();
+
+  public AnalyticsSnapshotStore(AppProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Snapshot resolve(String endpoint, String userId, List<String> params, Supplier<?> loader) {
+    SnapshotKey key = new SnapshotKey(endpoint, userId, params);
+    long version = version(userId);
+    synchronized (this) {
+      Snapshot cached = snapshots.get(key);
+      if (cached != null && cached.version() == version) {
+        count(endpoint, "fresh");
+        return cached;
+      }
+    }
+    count(endpoint, "computed");
+    return compute(key, version, loader);
+  }
+
+  @Scheduled(fixedDelay = 1000)
+  public void refreshChanged() {
+    long now = System.currentTimeMillis();
+    long debounce = properties.getAnalytics().getSnapshotDebounceMillis();
+    for (Map.Entry<String, Long> pending : pendingSince.entrySet()) {
+      if (now - pending.getValue() < debounce || !pendingSince.remove(pending.getKey(), pending.getValue())) {
+        continue;
+      }
+      refreshUser(pending.getKey());
+    }
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    markChanged(event.purchase().getUserId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    markChanged(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onDishChanged(DishChangedEvent event) {
+    markChanged(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onIngredientChanged(IngredientChangedEvent event) {
+    markChanged(event.userId());
+  }
+
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onCalorieChanged(CalorieChangedEvent event) {
+    markChanged(event.userId());
+  }
+
+  private void markChanged(String userId) {
+    if (userId == null) {
+      return;
+    }
+    synchronized (this) {
+      versions.computeIfPresent(userId, (ignore, previous) -> sequence.incrementAndGet());
+    }
+    pendingSince.put(userId, System.currentTimeMillis());
+  }
+
+  private void refreshUser(String userId) {
+    long version = version(userId);
+    List<Map.Entry<SnapshotKey, Snapshot>> stale = new ArrayList<>();
+    synchronized (this) {
+      for (Map.Entry<SnapshotKey, Snapshot> entry : snapshots.entrySet()) {
+        if (entry.getKey().userId().equals(userId) && entry.getValue().version() != version) {
+          stale.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+      }
+    }
+    int limit = properties.getAnalytics().getSnapshotRefreshPerUser();
+    if (stale.size() > limit) {
+      stale = stale.subList(stale.size() - limit, stale.size());
+    }
+    for (Map.Entry<SnapshotKey, Snapshot> entry : stale) {
+      try {
+        compute(entry.getKey(), version, entry.getValue().loader());
+        count(entry.getKey().endpoint(), "refreshed");
+      } catch (RuntimeException exc) {
+        logger.warn("Failed to refresh {} snapshot for user {}", entry.getKey().endpoint(), userId, exc);
+        synchronized (this) {
+          snapshots.remove(entry.getKey());
+        }
+      }
+    }
+  }
+
+  private Snapshot compute(SnapshotKey key, long version, Supplier<?> loader) {
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(loader.get());
+    } catch (JsonProcessingException exc) {
+      throw new IllegalStateException("Failed to serialize analytics snapshot", exc);
+    }
+    Snapshot snapshot = new Snapshot(body, etag(body), version, loader);
+    synchronized (this) {
+      Snapshot cached = snapshots.get(key);
+      if (cached == null || cached.version() <= version) {
+        snapshots.put(key, snapshot);
+        evict();
+      }
+    }
+    return snapshot;
+  }
+
+  private void evict() {
+    int maxEntries = properties.getAnalytics().getSnapshotMaxEntries();
+    Iterator<Snapshot> iterator = snapshots.values().iterator();
+    while (snapshots.size() > maxEntries && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  private synchronized long version(String userId) {
+    Long version = versions.get(userId);
+    if (version == null) {
+      version = sequence.incrementAndGet();
+      versions.put(userId, version);
+      int maxEntries = properties.getAnalytics().getSnapshotMaxEntries();
+      Iterator<Long> iterator = versions.values().iterator();
+      while (versions.size() > maxEntries && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    return version;
+  }
+
+  synchronized int trackedUsers() {
+    return versions.size();
+  }
+
+  private String etag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  private void count(String endpoint, String outcome) {
+    meterRegistry.counter("analytics.snapshots", "endpoint", endpoint, "outcome", outcome).increment();
+  }
+
+  public record Snapshot(byte[] body, String etag, long version, Supplier<?> loader) {}
+
+  private record SnapshotKey(String endpoint, String userId, List<String> params) {}
+}
@@ -0,0 +1,118 @@
+package com.mealplaner.analytics;
+
+import java.util.Arrays;
+
+final class DailyBuckets {
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private double[] values;
+  private int size;
+  private long minDay = Long.MAX_VALUE;
+  private long maxDay = Long.MIN_VALUE;
+
+  DailyBuckets() {
+    keys = new long[64];
+    values = new double[64];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  void add(long epochDay, double value) {
+    if ((size + 1) * 2 > keys.length) {
+      resize();
+    }
+    int slot = slot(keys, epochDay);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = epochDay;
+      size += 1;
+      if (epochDay < minDay) {
+        minDay = epochDay;
+      }
+      if (epochDay > maxDay) {
+        maxDay = epochDay;
+      }
+    }
+    values[slot] += value;
+  }
+
+  int size() {
+    return size;
+  }
+
+  long minDay() {
+    return minDay;
+  }
+
+  long maxDay() {
+    return maxDay;
+  }
+
+  int daysTracked() {
+    if (size == 0) {
+      return 0;
+    }
+    return (int) Math.max(maxDay - minDay + 1, 1);
+  }
+
+  long[] sortedDays() {
+    long[] days = new long[size];
+    int index = 0;
+    for (long key : keys) {
+      if (key != EMPTY) {
+        days[index++] = key;
+      }
+    }
+    Arrays.sort(days);
+    return days;
+  }
+
+  double get(long epochDay) {
+    int slot = slot(keys, epochDay);
+    return keys[slot] == EMPTY ? 0.0 : values[slot];
+  }
+
+  double[] values() {
+    double[] result = new double[size];
+    int index = 0;
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) {
+        result[index++] = values[slot];
+      }
+    }
+    return result;
+  }
+
+  double sum() {
+    double total = 0.0;
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != EMPTY) {
+        total += values[slot];
+      }
+    }
+    return total;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    double[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new double[oldValues.length * 2];
+    Arrays.fill(keys, EMPTY);
+    for (int index = 0; index < oldKeys.length; index++) {
+      if (oldKeys[index] != EMPTY) {
+        int slot = slot(keys, oldKeys[index]);
+        keys[slot] = oldKeys[index];
+        values[slot] = oldValues[index];
+      }
+    }
+  }
+
+  private static int slot(long[] table, long key) {
+    int mask = table.length - 1;
+    int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+    while (table[slot] != EMPTY && table[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
@@ -0,0 +1,94 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.DishCostAnalyticsResponse;
+import com.mealplaner.dish.DishDocument;
+import com.mealplaner.dish.DishIngredient;
+import com.mealplaner.ingredient.IngredientDocument;
+import com.mealplaner.util.IngredientKey;
+import com.mealplaner.util.UnitConverter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class DishCostCalculator {
+  private final Map<String, IngredientDocument> optionMap = new HashMap<>();
+  private final Map<String, IngredientPriceDocument> prices;
+
+  DishCostCalculator(List<IngredientDocument> ingredients, Map<String, IngredientPriceDocument> prices) {
+    this.prices = prices;
+    for (IngredientDocument ingredient : ingredients) {
+      optionMap.put(normalizeKey(ingredient.getKey()), ingredient);
+      if (ingredient.getName() != null && ingredient.getUnit() != null) {
+        optionMap.put(IngredientKey.normalize(ingredient.getName(), ingredient.getUnit()), ingredient);
+      }
+    }
+  }
+
+  DishCostAnalyticsResponse.DishCostSummary cost(DishDocument dish) {
+    double dishCost = 0.0;
+    List<DishCostAnalyticsResponse.MissingIngredient> missing = new ArrayList<>();
+    List<DishCostAnalyticsResponse.IngredientCost> ingredientCosts = new ArrayList<>();
+
+    for (DishIngredient ingredient : dish.getIngredients()) {
+      String name = ingredient.getName() == null ? "" : ingredient.getName().trim();
+      String unit = ingredient.getUnit() == null ? "" : ingredient.getUnit().trim().toLowerCase();
+      if (name.isBlank() || unit.isBlank()) {
+        DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
+        missingIngredient.setIngredient(name);
+        missingIngredient.setUnit(unit);
+        missing.add(missingIngredient);
+        continue;
+      }
+      String fallbackKey = IngredientKey.normalize(name, unit);
+      String resolvedKey = ingredient.getIngredientKey() == null || ingredient.getIngredientKey().isBlank()
+          ? fallbackKey
+          : normalizeKey(ingredient.getIngredientKey());
+      IngredientDocument matching = optionMap.get(resolvedKey);
+      if (matching == null) {
+        matching = optionMap.get(fallbackKey);
+      }
+      if (matching == null) {
+        DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
+        missingIngredient.setIngredient(name);
+        missingIngredient.setUnit(unit);
+        missing.add(missingIngredient);
+        continue;
+      }
+      IngredientPriceDocument priced = prices.get(normalizeKey(matching.getKey()));
+      int ingredientUnit = UnitConverter.code(ingredient.getUnit());
+      double ingredientAmount = ingredient.getQty() > 0 ? UnitConverter.toBase(ingredient.getQty(), ingredientUnit) : Double.NaN;
+      if (priced == null
+          || priced.getLatestPricePerUnit() == null
+          || !Double.isFinite(ingredientAmount)
+          || !priced.getBaseUnit().equals(UnitConverter.baseName(ingredientUnit))) {
+        DishCostAnalyticsResponse.MissingIngredient missingIngredient = new DishCostAnalyticsResponse.MissingIngredient();
+        missingIngredient.setIngredient(name);
+        missingIngredient.setUnit(unit);
+        missing.add(missingIngredient);
+        continue;
+      }
+      double pricePerUnit = priced.getLatestPricePerUnit();
+      double cost = pricePerUnit * ingredientAmount;
+      dishCost += cost;
+      DishCostAnalyticsResponse.IngredientCost ingredientCost = new DishCostAnalyticsResponse.IngredientCost();
+      ingredientCost.setIngredient(name);
+      ingredientCost.setAmount(ingredient.getQty());
+      ingredientCost.setUnit(unit);
+      ingredientCost.setCost(cost);
+      ingredientCosts.add(ingredientCost);
+    }
+
+    DishCostAnalyticsResponse.DishCostSummary summary = new DishCostAnalyticsResponse.DishCostSummary();
+    summary.setDishId(dish.getId());
+    summary.setName(dish.getName());
+    summary.setTotalCost(dishCost);
+    summary.setMissingIngredients(missing);
+    summary.setIngredients(ingredientCosts);
+    return summary;
+  }
+
+  private String normalizeKey(String value) {
+    return value == null ? "" : value.trim().toLowerCase();
+  }
+}
@@ -0,0 +1,152 @@
+package com.mealplaner.analytics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+@Document(collection = "ingredient_prices")
+@CompoundIndex(name = "user_ingredient", def = "{'user_id': 1, 'ingredient_key': 1}")
+public class IngredientPriceDocument {
+  @Id
+  private String id;
+
+  @Field("user_id")
+  private String userId;
+
+  @Field("ingredient_key")
+  private String ingredientKey;
+
+  @Field("base_unit")
+  private String baseUnit;
+
+  @Field("latest_price_per_unit")
+  private Double latestPricePerUnit;
+
+  @Field("rolling_average")
+  private Double rollingAverage;
+
+  private List<PricePoint> recent = new ArrayList<>();
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public String getIngredientKey() {
+    return ingredientKey;
+  }
+
+  public void setIngredientKey(String ingredientKey) {
+    this.ingredientKey = ingredientKey;
+  }
+
+  public String getBaseUnit() {
+    return baseUnit;
+  }
+
+  public void setBaseUnit(String baseUnit) {
+    this.baseUnit = baseUnit;
+  }
+
+  public Double getLatestPricePerUnit() {
+    return latestPricePerUnit;
+  }
+
+  public void setLatestPricePerUnit(Double latestPricePerUnit) {
+    this.latestPricePerUnit = latestPricePerUnit;
+  }
+
+  public Double getRollingAverage() {
+    return rollingAverage;
+  }
+
+  public void setRollingAverage(Double rollingAverage) {
+    this.rollingAverage = rollingAverage;
+  }
+
+  public List<PricePoint> getRecent() {
+    return recent;
+  }
+
+  public void setRecent(List<PricePoint> recent) {
+    this.recent = recent == null ? new ArrayList<>() : recent;
+  }
+
+  public static class PricePoint {
+    private double price;
+    private double amount;
+    private String unit;
+
+    @Field("purchased_at")
+    private Instant purchasedAt;
+
+    @Field("base_unit")
+    private String baseUnit;
+
+    @Field("price_per_unit")
+    private Double pricePerUnit;
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public double getAmount() {
+      return amount;
+    }
+
+    public void setAmount(double amount) {
+      this.amount = amount;
+    }
+
+    public String getUnit() {
+      return unit;
+    }
+
+    public void setUnit(String unit) {
+      this.unit = unit;
+    }
+
+    public Instant getPurchasedAt() {
+      return purchasedAt;
+    }
+
+    public void setPurchasedAt(Instant purchasedAt) {
+      this.purchasedAt = purchasedAt;
+    }
+
+    public String getBaseUnit() {
+      return baseUnit;
+    }
+
+    public void setBaseUnit(String baseUnit) {
+      this.baseUnit = baseUnit;
+    }
+
+    public Double getPricePerUnit() {
+      return pricePerUnit;
+    }
+
+    public void setPricePerUnit(Double pricePerUnit) {
+      this.pricePerUnit = pricePerUnit;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.mealplaner.analytics;
+
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IngredientPriceRepository extends MongoRepository<IngredientPriceDocument, String> {
+  List<IngredientPriceDocument> findByUserId(String userId);
+  boolean existsByUserId(String userId);
+}
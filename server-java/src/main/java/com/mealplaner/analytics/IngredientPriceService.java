@@ -0,0 +1,218 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchaseSavingEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import com.mealplaner.util.UnitConverter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.bson.Document;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+@Service
+public class IngredientPriceService {
+  static final int RECENT_LIMIT = 10;
+
+  private final IngredientPriceRepository repository;
+  private final PurchaseRepository purchaseRepository;
+  private final MongoTemplate mongoTemplate;
+  private final PurchaseProjectionGuard guard;
+
+  public IngredientPriceService(
+      IngredientPriceRepository repository,
+      PurchaseRepository purchaseRepository,
+      MongoTemplate mongoTemplate
+  ) {
+    this.repository = repository;
+    this.purchaseRepository = purchaseRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.guard = new PurchaseProjectionGuard(repository::existsByUserId);
+  }
+
+  public Map<String, IngredientPriceDocument> listByUser(String userId) {
+    guard.ensureBuilt(userId, () -> rebuild(userId));
+    Map<String, IngredientPriceDocument> prices = new HashMap<>();
+    for (IngredientPriceDocument price : repository.findByUserId(userId)) {
+      prices.put(price.getIngredientKey(), price);
+    }
+    return prices;
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseSaving(PurchaseSavingEvent event) {
+    guard.saving(event.purchase());
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    record(event.purchase());
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    rebuild(event.userId());
+  }
+
+  public void record(PurchaseDocument purchase) {
+    guard.record(purchase, () -> {
+      String userId = purchase.getUserId();
+      String key = normalizeKey(purchase.getIngredientKey());
+      mongoTemplate.upsert(
+          new Query(Criteria.where("_id").is(buildId(userId, key))),
+          recordUpdate(userId, key, toPoint(purchase)),
+          IngredientPriceDocument.class
+      );
+    });
+  }
+
+  static AggregationUpdate recordUpdate(String userId, String key, IngredientPriceDocument.PricePoint point) {
+    Document recent = new Document("$ifNull", List.of("$recent", List.of()));
+    Document purchasedAt = new Document("$literal", point.getPurchasedAt() == null ? null : Date.from(point.getPurchasedAt()));
+    Document inserted = new Document("$concatArrays", List.of(
+        newerThan(recent, purchasedAt, "$gte"),
+        new Document("$literal", List.of(toDocument(point))),
+        newerThan(recent, purchasedAt, "$lt")
+    ));
+    Document sameBase = new Document("$filter", new Document("input", "$recent").append("as", "point").append(
+        "cond",
+        new Document("$and", List.of(
+            new Document("$gt", Arrays.asList("$$point.price_per_unit", null)),
+            new Document("$eq", List.of("$$point.base_unit", "$base_unit"))
+        ))
+    ));
+    return AggregationUpdate.from(List.of(
+        stage(new Document("user_id", new Document("$ifNull", List.of("$user_id", userId)))
+            .append("ingredient_key", new Document("$ifNull", List.of("$ingredient_key", key)))
+            .append("recent", new Document("$slice", List.of(inserted, RECENT_LIMIT)))),
+        stage(new Document("base_unit", latest("base_unit"))
+            .append("latest_price_per_unit", latest("price_per_unit"))),
+        stage(new Document("rolling_average", new Document("$cond", Arrays.asList(
+            new Document("$eq", Arrays.asList("$base_unit", null)),
+            null,
+            new Document("$avg", new Document("$map", new Document("input", sameBase).append("as", "point").append("in", "$$point.price_per_unit")))
+        ))))
+    ));
+  }
+
+  private static Document latest(String field) {
+    return new Document("$let", new Document(
+        "vars",
+        new Document("latest", new Document("$arrayElemAt", List.of("$recent", 0)))
+    ).append("in", new Document("$ifNull", Arrays.asList("$$latest." + field, null))));
+  }
+
+  private static Document newerThan(Document recent, Document purchasedAt, String operator) {
+    return new Document("$filter", new Document("input", recent).append("as", "point").append(
+        "cond",
+        new Document(operator, List.of("$$point.purchased_at", purchasedAt))
+    ));
+  }
+
+  private static AggregationOperation stage(Document fields) {
+    return context -> new Document("$set", fields);
+  }
+
+  private static Document toDocument(IngredientPriceDocument.PricePoint point) {
+    return new Document("price", point.getPrice())
+        .append("amount", point.getAmount())
+        .append("unit", point.getUnit())
+        .append("purchased_at", point.getPurchasedAt() == null ? null : Date.from(point.getPurchasedAt()))
+        .append("base_unit", point.getBaseUnit())
+        .append("price_per_unit", point.getPricePerUnit());
+  }
+
+  public int rebuild(String userId) {
+    return guard.rebuild(userId, included -> replaceAll(userId, included));
+  }
+
+  private int replaceAll(String userId, Predicate<PurchaseDocument> included) {
+    Map<String, IngredientPriceDocument> rows = new LinkedHashMap<>();
+    for (PurchaseDocument purchase : purchaseRepository.findByUserIdOrderByPurchasedAtDesc(userId)) {
+      if (!included.test(purchase)) {
+        continue;
+      }
+      String key = normalizeKey(purchase.getIngredientKey());
+      IngredientPriceDocument row = rows.computeIfAbsent(buildId(userId, key), id -> {
+        IngredientPriceDocument created = new IngredientPriceDocument();
+        created.setId(id);
+        created.setUserId(userId);
+        created.setIngredientKey(key);
+        return created;
+      });
+      if (row.getRecent().size() < RECENT_LIMIT) {
+        row.getRecent().add(toPoint(purchase));
+      }
+    }
+    rows.values().forEach(IngredientPriceService::summarize);
+    if (!rows.isEmpty()) {
+      repository.saveAll(new ArrayList<>(rows.values()));
+    }
+    mongoTemplate.remove(
+        new Query(Criteria.where("user_id").is(userId).and("_id").nin(rows.keySet())),
+        IngredientPriceDocument.class
+    );
+    return rows.size();
+  }
+
+  static void summarize(IngredientPriceDocument row) {
+    List<IngredientPriceDocument.PricePoint> recent = row.getRecent();
+    IngredientPriceDocument.PricePoint latest = recent.isEmpty() ? null : recent.get(0);
+    row.setBaseUnit(latest == null ? null : latest.getBaseUnit());
+    row.setLatestPricePerUnit(latest == null ? null : latest.getPricePerUnit());
+    if (row.getBaseUnit() == null) {
+      row.setRollingAverage(null);
+      return;
+    }
+    double sum = 0.0;
+    int count = 0;
+    for (IngredientPriceDocument.PricePoint point : recent) {
+      if (row.getBaseUnit().equals(point.getBaseUnit()) && point.getPricePerUnit() != null) {
+        sum += point.getPricePerUnit();
+        count += 1;
+      }
+    }
+    row.setRollingAverage(count == 0 ? null : sum / count);
+  }
+
+  private IngredientPriceDocument.PricePoint toPoint(PurchaseDocument purchase) {
+    IngredientPriceDocument.PricePoint point = new IngredientPriceDocument.PricePoint();
+    point.setPrice(purchase.getPrice());
+    point.setAmount(purchase.getAmount());
+    point.setUnit(purchase.getUnit());
+    point.setPurchasedAt(purchase.getPurchasedAt());
+    int unitCode = UnitConverter.code(purchase.getUnit());
+    double normalized = UnitConverter.toBase(purchase.getAmount(), unitCode);
+    if (Double.isFinite(normalized) && normalized > 0) {
+      point.setBaseUnit(UnitConverter.baseName(unitCode));
+      point.setPricePerUnit(purchase.getPrice() / normalized);
+    }
+    return point;
+  }
+
+  private String buildId(String userId, String key) {
+    return userId + ":" + key;
+  }
+
+  private String normalizeKey(String value) {
+    return value == null ? "" : value.trim().toLowerCase();
+  }
+}
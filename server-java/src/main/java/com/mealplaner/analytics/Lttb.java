@@ -0,0 +1,50 @@
+package com.mealplaner.analytics;
+
+final class Lttb {
+  private Lttb() {}
+
+  static int[] select(long[] x, double[] y, int length, int threshold) {
+    if (threshold >= length || threshold < 3) {
+      int[] all = new int[length];
+      for (int index = 0; index < length; index++) {
+        all[index] = index;
+      }
+      return all;
+    }
+    int[] selected = new int[threshold];
+    selected[0] = 0;
+    double bucketSize = (double) (length - 2) / (threshold - 2);
+    int anchor = 0;
+    for (int bucket = 0; bucket < threshold - 2; bucket++) {
+      int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+      int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+      double averageX = 0.0;
+      double averageY = 0.0;
+      for (int index = nextStart; index < nextEnd; index++) {
+        averageX += x[index];
+        averageY += y[index];
+      }
+      int nextCount = nextEnd - nextStart;
+      averageX /= nextCount;
+      averageY /= nextCount;
+
+      int start = (int) Math.floor(bucket * bucketSize) + 1;
+      int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+      double anchorX = x[anchor];
+      double anchorY = y[anchor];
+      double maxArea = -1.0;
+      int chosen = start;
+      for (int index = start; index < end; index++) {
+        double area = Math.abs((anchorX - averageX) * (y[index] - anchorY) - (anchorX - x[index]) * (averageY - anchorY));
+        if (area > maxArea) {
+          maxArea = area;
+          chosen = index;
+        }
+      }
+      selected[bucket + 1] = chosen;
+      anchor = chosen;
+    }
+    selected[threshold - 1] = length - 1;
+    return selected;
+  }
+}
@@ -0,0 +1,108 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.calorie.CalorieDensity;
+import com.mealplaner.calorie.CalorieDocument;
+import com.mealplaner.util.TopK;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class NutritionCollector implements SpendCollector {
+  static final int DEFAULT_LIMIT = 5;
+
+  private final Map<String, CalorieDensity> densities;
+  private final Map<String, NutritionAggregate> ingredientTotals = new HashMap<>();
+  private double totalCalories;
+  private int purchasesWithCalories;
+  private final int limit;
+
+  NutritionCollector(List<CalorieDocument> calorieEntries) {
+    this(CalorieDensity.index(calorieEntries), DEFAULT_LIMIT);
+  }
+
+  NutritionCollector(Map<String, CalorieDensity> densities, int limit) {
+    this.densities = densities;
+    this.limit = limit;
+  }
+
+  @Override
+  public void accept(SpendSample sample) {
+    CalorieDensity density = densities.get(sample.ingredientKey);
+    if (density == null) {
+      return;
+    }
+    double calories = density.caloriesFor(sample.amount, sample.unitCode);
+    if (!Double.isFinite(calories)) {
+      return;
+    }
+
+    totalCalories += calories;
+    purchasesWithCalories += sample.count;
+
+    NutritionAggregate bucket = ingredientTotals.get(sample.ingredientKey);
+    if (bucket == null) {
+      bucket = new NutritionAggregate();
+      ingredientTotals.put(sample.ingredientKey, bucket);
+    }
+    bucket.calories += calories;
+    bucket.count += sample.count;
+    if (sample.baseUnit != null) {
+      bucket.normalizedAmount += sample.normalizedAmount;
+      bucket.normalizedUnit = sample.baseUnit;
+    }
+  }
+
+  @Override
+  public void complete(SpendingAnalyticsResponse response) {
+    SpendingAnalyticsResponse.NutritionStats stats = new SpendingAnalyticsResponse.NutritionStats();
+    int purchaseCount = response.getPurchaseCount();
+    if (purchaseCount == 0 || densities.isEmpty()) {
+      stats.setTotalCalories(0.0);
+      stats.setAverageDailyCalories(0.0);
+      stats.setCaloriesPerPurchase(0.0);
+      stats.setDaysTracked(purchaseCount == 0 ? 0 : 1);
+      stats.setPurchasesWithCalories(0);
+      response.setNutrition(stats);
+      response.setTopCalories(List.of());
+      return;
+    }
+
+    int daysTracked = response.getTotals() == null ? 0 : response.getTotals().getDaysTracked();
+    TopK<Map.Entry<String, NutritionAggregate>> top = new TopK<>(
+        limit,
+        Comparator.comparingDouble((Map.Entry<String, NutritionAggregate> entry) -> entry.getValue().calories).reversed()
+    );
+    for (Map.Entry<String, NutritionAggregate> entry : ingredientTotals.entrySet()) {
+      top.offer(entry);
+    }
+    List<SpendingAnalyticsResponse.TopCalorieItem> topItems = new ArrayList<>(top.limit());
+    for (Map.Entry<String, NutritionAggregate> entry : top.toList()) {
+      NutritionAggregate aggregate = entry.getValue();
+      SpendingAnalyticsResponse.TopCalorieItem item = new SpendingAnalyticsResponse.TopCalorieItem();
+      item.setIngredientKey(entry.getKey());
+      item.setTotalCalories(aggregate.calories);
+      item.setCount(aggregate.count);
+      item.setNormalizedAmount(aggregate.normalizedAmount > 0 ? aggregate.normalizedAmount : null);
+      item.setNormalizedUnit(aggregate.normalizedUnit);
+      topItems.add(item);
+    }
+
+    stats.setTotalCalories(totalCalories);
+    stats.setAverageDailyCalories(daysTracked > 0 ? totalCalories / daysTracked : 0.0);
+    stats.setCaloriesPerPurchase(purchasesWithCalories > 0 ? totalCalories / purchasesWithCalories : 0.0);
+    stats.setDaysTracked(daysTracked);
+    stats.setPurchasesWithCalories(purchasesWithCalories);
+    response.setNutrition(stats);
+    response.setTopCalories(topItems);
+  }
+
+  private static class NutritionAggregate {
+    private double calories;
+    private int count;
+    private double normalizedAmount;
+    private String normalizedUnit;
+  }
+}
@@ -0,0 +1,65 @@
+package com.mealplaner.analytics;
+
+final class Percentiles {
+  private Percentiles() {}
+
+  static double select(double[] values, int length, double quantile) {
+    if (length == 0) {
+      return Double.NaN;
+    }
+    double position = Math.max(0.0, Math.min(1.0, quantile)) * (length - 1);
+    int lower = (int) Math.floor(position);
+    double lowerValue = kth(values, length, lower);
+    double fraction = position - lower;
+    if (fraction == 0.0 || lower + 1 >= length) {
+      return lowerValue;
+    }
+    double upperValue = values[lower + 1];
+    for (int index = lower + 2; index < length; index++) {
+      if (values[index] < upperValue) {
+        upperValue = values[index];
+      }
+    }
+    return lowerValue + (upperValue - lowerValue) * fraction;
+  }
+
+  private static double kth(double[] values, int length, int k) {
+    int left = 0;
+    int right = length - 1;
+    while (left < right) {
+      double pivot = median3(values[left], values[(left + right) >>> 1], values[right]);
+      int low = left;
+      int high = right;
+      while (low <= high) {
+        while (values[low] < pivot) {
+          low += 1;
+        }
+        while (values[high] > pivot) {
+          high -= 1;
+        }
+        if (low <= high) {
+          double swap = values[low];
+          values[low] = values[high];
+          values[high] = swap;
+          low += 1;
+          high -= 1;
+        }
+      }
+      if (k <= high) {
+        right = high;
+      } else if (k >= low) {
+        left = low;
+      } else {
+        return values[k];
+      }
+    }
+    return values[k];
+  }
+
+  private static double median3(double a, double b, double c) {
+    if (a < b) {
+      return b < c ? b : Math.max(a, c);
+    }
+    return a < c ? a : Math.max(b, c);
+  }
+}
@@ -0,0 +1,155 @@
+package com.mealplaner.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class PriceDigest {
+  static final double COMPRESSION = 100;
+  private static final int BUFFER_LIMIT = 500;
+
+  private double[] means = new double[16];
+  private double[] weights = new double[16];
+  private int size;
+  private int merged;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  static PriceDigest of(List<SpendRollupDocument.Centroid> centroids) {
+    PriceDigest digest = new PriceDigest();
+    if (centroids != null) {
+      for (SpendRollupDocument.Centroid centroid : centroids) {
+        digest.add(centroid.getMean(), centroid.getWeight());
+      }
+    }
+    return digest;
+  }
+
+  void add(double value) {
+    add(value, 1.0);
+  }
+
+  void add(double mean, double weight) {
+    if (!Double.isFinite(mean) || !(weight > 0)) {
+      return;
+    }
+    if (size == means.length) {
+      means = Arrays.copyOf(means, size * 2);
+      weights = Arrays.copyOf(weights, size * 2);
+    }
+    means[size] = mean;
+    weights[size] = weight;
+    size += 1;
+    totalWeight += weight;
+    min = Math.min(min, mean);
+    max = Math.max(max, mean);
+    if (size - merged > BUFFER_LIMIT) {
+      compress();
+    }
+  }
+
+  void merge(PriceDigest other) {
+    for (int index = 0; index < other.size; index++) {
+      add(other.means[index], other.weights[index]);
+    }
+    if (other.size > 0) {
+      min = Math.min(min, other.min);
+      max = Math.max(max, other.max);
+    }
+  }
+
+  double count() {
+    return totalWeight;
+  }
+
+  int centroidCount() {
+    compress();
+    return size;
+  }
+
+  double quantile(double quantile) {
+    compress();
+    if (size == 0) {
+      return Double.NaN;
+    }
+    if (size == 1) {
+      return means[0];
+    }
+    double target = Math.max(0.0, Math.min(1.0, quantile)) * totalWeight;
+    double firstCenter = weights[0] / 2;
+    if (target <= firstCenter) {
+      return interpolate(min, means[0], target / firstCenter);
+    }
+    double cumulative = 0.0;
+    for (int index = 0; index < size - 1; index++) {
+      double center = cumulative + weights[index] / 2;
+      double nextCenter = cumulative + weights[index] + weights[index + 1] / 2;
+      if (target <= nextCenter) {
+        return interpolate(means[index], means[index + 1], (target - center) / (nextCenter - center));
+      }
+      cumulative += weights[index];
+    }
+    double lastCenter = totalWeight - weights[size - 1] / 2;
+    return interpolate(means[size - 1], max, (target - lastCenter) / (totalWeight - lastCenter));
+  }
+
+  List<SpendRollupDocument.Centroid> toCentroids() {
+    compress();
+    List<SpendRollupDocument.Centroid> result = new ArrayList<>(size);
+    for (int index = 0; index < size; index++) {
+      SpendRollupDocument.Centroid centroid = new SpendRollupDocument.Centroid();
+      centroid.setMean(means[index]);
+      centroid.setWeight(weights[index]);
+      result.add(centroid);
+    }
+    return result;
+  }
+
+  private void compress() {
+    if (merged == size) {
+      return;
+    }
+    Integer[] order = new Integer[size];
+    for (int index = 0; index < size; index++) {
+      order[index] = index;
+    }
+    Arrays.sort(order, (left, right) -> Double.compare(means[left], means[right]));
+    double[] sortedMeans = new double[Math.max(16, size)];
+    double[] sortedWeights = new double[sortedMeans.length];
+    int count = 0;
+    double before = 0.0;
+    double currentMean = means[order[0]];
+    double currentWeight = weights[order[0]];
+    for (int position = 1; position < size; position++) {
+      int index = order[position];
+      double proposed = currentWeight + weights[index];
+      if (scale((before + proposed) / totalWeight) - scale(before / totalWeight) <= 1.0) {
+        currentMean += (means[index] - currentMean) * weights[index] / proposed;
+        currentWeight = proposed;
+      } else {
+        sortedMeans[count] = currentMean;
+        sortedWeights[count] = currentWeight;
+        count += 1;
+        before += currentWeight;
+        currentMean = means[index];
+        currentWeight = weights[index];
+      }
+    }
+    sortedMeans[count] = currentMean;
+    sortedWeights[count] = currentWeight;
+    count += 1;
+    means = sortedMeans;
+    weights = sortedWeights;
+    size = count;
+    merged = count;
+  }
+
+  private static double scale(double quantile) {
+    return COMPRESSION / (2 * Math.PI) * Math.asin(2 * Math.min(1.0, Math.max(0.0, quantile)) - 1);
+  }
+
+  private static double interpolate(double from, double to, double fraction) {
+    return from + (to - from) * Math.max(0.0, Math.min(1.0, fraction));
+  }
+}
@@ -0,0 +1,98 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PurchaseColumnStore {
+  private final PurchaseRepository repository;
+  private final AppProperties properties;
+  private final LinkedHashMap<String, PurchaseColumns> users = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalRows;
+  private long writes;
+
+  public PurchaseColumnStore(PurchaseRepository repository, AppProperties properties) {
+    this.repository = repository;
+    this.properties = properties;
+  }
+
+  void scan(String userId, Instant start, Instant end, String ingredientKey, SpendAggregator aggregator) {
+    columns(userId).scan(start, end, ingredientKey, aggregator);
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    String userId = event.purchase().getUserId();
+    synchronized (this) {
+      writes += 1;
+      PurchaseColumns columns = users.get(userId);
+      if (columns == null) {
+        return;
+      }
+      columns.append(event.purchase());
+      totalRows += 1;
+      evict(userId);
+    }
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    synchronized (this) {
+      writes += 1;
+      PurchaseColumns removed = users.remove(event.userId());
+      if (removed != null) {
+        totalRows -= removed.size();
+      }
+    }
+  }
+
+  private PurchaseColumns columns(String userId) {
+    long observedWrites;
+    synchronized (this) {
+      PurchaseColumns cached = users.get(userId);
+      if (cached != null) {
+        return cached;
+      }
+      observedWrites = writes;
+    }
+    PurchaseColumns loaded = PurchaseColumns.of(repository.findByUserIdOrderByPurchasedAtDesc(userId));
+    synchronized (this) {
+      PurchaseColumns cached = users.get(userId);
+      if (cached != null) {
+        return cached;
+      }
+      if (observedWrites != writes) {
+        return loaded;
+      }
+      users.put(userId, loaded);
+      totalRows += loaded.size();
+      evict(userId);
+      return loaded;
+    }
+  }
+
+  private void evict(String keepUserId) {
+    long maxRows = properties.getAnalytics().getColumnarMaxRows();
+    Iterator<Map.Entry<String, PurchaseColumns>> iterator = users.entrySet().iterator();
+    while (totalRows > maxRows && iterator.hasNext()) {
+      Map.Entry<String, PurchaseColumns> entry = iterator.next();
+      if (entry.getKey().equals(keepUserId)) {
+        continue;
+      }
+      totalRows -= entry.getValue().size();
+      iterator.remove();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.util.UnitConverter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class PurchaseColumns {
+  static final long UNDATED = Long.MIN_VALUE;
+  private static final long MILLIS_PER_DAY = 86_400_000L;
+
+  private final Map<String, Integer> keyIds = new HashMap<>();
+  private final List<String> normalizedKeys = new ArrayList<>();
+
+  private long[] purchasedAt;
+  private double[] price;
+  private double[] amount;
+  private double[] normalizedAmount;
+  private int[] unitCode;
+  private int[] keyId;
+  private int size;
+
+  PurchaseColumns(int capacity) {
+    int initial = Math.max(16, capacity);
+    purchasedAt = new long[initial];
+    price = new double[initial];
+    amount = new double[initial];
+    normalizedAmount = new double[initial];
+    unitCode = new int[initial];
+    keyId = new int[initial];
+  }
+
+  static PurchaseColumns of(List<PurchaseDocument> purchasesNewestFirst) {
+    PurchaseColumns columns = new PurchaseColumns(purchasesNewestFirst.size());
+    for (int index = purchasesNewestFirst.size() - 1; index >= 0; index--) {
+      columns.append(purchasesNewestFirst.get(index));
+    }
+    return columns;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized void append(PurchaseDocument purchase) {
+    ensureCapacity(size + 1);
+    long at = purchase.getPurchasedAt() == null ? UNDATED : purchase.getPurchasedAt().toEpochMilli();
+    int row = size;
+    while (row > 0 && purchasedAt[row - 1] > at) {
+      row -= 1;
+    }
+    if (row < size) {
+      shift(row);
+    }
+    int code = UnitConverter.code(purchase.getUnit());
+    double value = purchase.getAmount();
+    double normalized = value > 0 && Double.isFinite(value) ? UnitConverter.toBase(value, code) : Double.NaN;
+    purchasedAt[row] = at;
+    price[row] = purchase.getPrice();
+    amount[row] = value;
+    normalizedAmount[row] = normalized;
+    unitCode[row] = code;
+    keyId[row] = intern(purchase.getIngredientKey());
+    size += 1;
+  }
+
+  synchronized void scan(Instant start, Instant end, String ingredientKey, SpendAggregator aggregator) {
+    int filterKey = -1;
+    if (ingredientKey != null) {
+      Integer id = keyIds.get(ingredientKey);
+      if (id == null) {
+        return;
+      }
+      filterKey = id;
+    }
+    int from = 0;
+    int to = size;
+    if (start != null || end != null) {
+      from = lowerBound(UNDATED + 1);
+    }
+    if (start != null) {
+      from = Math.max(from, lowerBound(start.toEpochMilli()));
+    }
+    if (end != null) {
+      to = lowerBound(end.toEpochMilli() + 1);
+    }
+
+    SpendSample sample = new SpendSample();
+    sample.count = 1;
+    for (int row = to - 1; row >= from; row--) {
+      int key = keyId[row];
+      if (filterKey >= 0 && key != filterKey) {
+        continue;
+      }
+      long at = purchasedAt[row];
+      double normalized = normalizedAmount[row];
+      sample.epochDay = at == UNDATED ? SpendSample.UNDATED : Math.floorDiv(at, MILLIS_PER_DAY);
+      sample.ingredientKey = normalizedKeys.get(key);
+      sample.unitCode = unitCode[row];
+      sample.unit = UnitConverter.name(sample.unitCode);
+      sample.price = price[row];
+      sample.amount = amount[row];
+      if (Double.isNaN(normalized)) {
+        sample.baseUnit = null;
+        sample.normalizedAmount = 0.0;
+        sample.unitPriceSum = 0.0;
+        sample.unitPriceCount = 0;
+      } else {
+        boolean priced = normalized > 0;
+        sample.baseUnit = UnitConverter.baseName(sample.unitCode);
+        sample.normalizedAmount = normalized;
+        sample.unitPriceSum = priced ? sample.price / normalized : 0.0;
+        sample.unitPriceCount = priced ? 1 : 0;
+      }
+      aggregator.accept(sample);
+    }
+  }
+
+  private int lowerBound(long value) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (purchasedAt[mid] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int intern(String key) {
+    String raw = key == null ? "" : key;
+    Integer id = keyIds.get(raw);
+    if (id != null) {
+      return id;
+    }
+    int created = normalizedKeys.size();
+    normalizedKeys.add(raw.trim().toLowerCase());
+    keyIds.put(raw, created);
+    return created;
+  }
+
+  private void shift(int row) {
+    int length = size - row;
+    System.arraycopy(purchasedAt, row, purchasedAt, row + 1, length);
+    System.arraycopy(price, row, price, row + 1, length);
+    System.arraycopy(amount, row, amount, row + 1, length);
+    System.arraycopy(normalizedAmount, row, normalizedAmount, row + 1, length);
+    System.arraycopy(unitCode, row, unitCode, row + 1, length);
+    System.arraycopy(keyId, row, keyId, row + 1, length);
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= purchasedAt.length) {
+      return;
+    }
+    int capacity = Math.max(required, purchasedAt.length + (purchasedAt.length >> 1));
+    purchasedAt = Arrays.copyOf(purchasedAt, capacity);
+    price = Arrays.copyOf(price, capacity);
+    amount = Arrays.copyOf(amount, capacity);
+    normalizedAmount = Arrays.copyOf(normalizedAmount, capacity);
+    unitCode = Arrays.copyOf(unitCode, capacity);
+    keyId = Arrays.copyOf(keyId, capacity);
+  }
+}
@@ -0,0 +1,137 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Orders a projection's full rebuild against incremental writes for the same user. Writers announce
+ * a purchase with {@link #saving} before it is stored and apply it with {@link #record} after; a
+ * rebuild leaves out every purchase still between the two, so each purchase reaches the projection
+ * exactly once, through either the rebuild's read or its own record. The pending ids live in this
+ * process only, so the guard assumes one application instance writes purchases, and a rebuild cut
+ * short by a restart leaves the projection partial until the next rebuild
+ * ({@code POST /api/migrations/spend-rollups} or {@code /ingredient-prices}).
+ */
+final class PurchaseProjectionGuard {
+  private static final int LOCK_STRIPES = 64;
+  private static final int MAX_TRACKED_USERS = 10_000;
+  private static final int MAX_PENDING_PER_USER = 256;
+
+  private final Predicate<String> hasRows;
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  private final LinkedHashMap<String, Boolean> states = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, LinkedHashSet<String>> pending = new HashMap<>();
+
+  PurchaseProjectionGuard(Predicate<String> hasRows) {
+    this.hasRows = hasRows;
+    for (int index = 0; index < LOCK_STRIPES; index++) {
+      locks[index] = new Object();
+    }
+  }
+
+  void ensureBuilt(String userId, Runnable rebuild) {
+    if (Boolean.TRUE.equals(cached(userId))) {
+      return;
+    }
+    synchronized (lockFor(userId)) {
+      if (!built(userId)) {
+        rebuild.run();
+      }
+    }
+  }
+
+  <T> T rebuild(String userId, Function<Predicate<PurchaseDocument>, T> rebuild) {
+    synchronized (lockFor(userId)) {
+      T result = rebuild.apply(purchase -> !isPending(purchase));
+      track(userId, true);
+      return result;
+    }
+  }
+
+  /**
+   * Marks the purchase as being stored. Called before the insert, with the id already assigned; a
+   * save that fails leaves a pending id that no read can return, and the oldest ones are dropped
+   * past {@link #MAX_PENDING_PER_USER}.
+   */
+  void saving(PurchaseDocument purchase) {
+    String userId = purchase.getUserId();
+    if (userId == null || purchase.getId() == null) {
+      return;
+    }
+    synchronized (pending) {
+      LinkedHashSet<String> ids = pending.computeIfAbsent(userId, ignore -> new LinkedHashSet<>());
+      ids.add(purchase.getId());
+      Iterator<String> oldest = ids.iterator();
+      while (ids.size() > MAX_PENDING_PER_USER && oldest.hasNext()) {
+        oldest.next();
+        oldest.remove();
+      }
+    }
+  }
+
+  void record(PurchaseDocument purchase, Runnable apply) {
+    String userId = purchase.getUserId();
+    if (userId == null) {
+      return;
+    }
+    synchronized (lockFor(userId)) {
+      settle(purchase);
+      if (built(userId)) {
+        apply.run();
+      }
+    }
+  }
+
+  private boolean isPending(PurchaseDocument purchase) {
+    synchronized (pending) {
+      Set<String> ids = pending.get(purchase.getUserId());
+      return ids != null && ids.contains(purchase.getId());
+    }
+  }
+
+  private void settle(PurchaseDocument purchase) {
+    synchronized (pending) {
+      Set<String> ids = pending.get(purchase.getUserId());
+      if (ids != null && ids.remove(purchase.getId()) && ids.isEmpty()) {
+        pending.remove(purchase.getUserId());
+      }
+    }
+  }
+
+  private boolean built(String userId) {
+    Boolean built = cached(userId);
+    if (built == null) {
+      built = hasRows.test(userId);
+      track(userId, built);
+    }
+    return built;
+  }
+
+  private Boolean cached(String userId) {
+    synchronized (states) {
+      return states.get(userId);
+    }
+  }
+
+  private void track(String userId, boolean built) {
+    synchronized (states) {
+      states.put(userId, built);
+      Iterator<Boolean> oldest = states.values().iterator();
+      while (states.size() > MAX_TRACKED_USERS && oldest.hasNext()) {
+        oldest.next();
+        oldest.remove();
+      }
+    }
+  }
+
+  private Object lockFor(String userId) {
+    return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+  }
+}
@@ -0,0 +1,70 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import java.util.Arrays;
+
+final class QuantileAccumulator {
+  static final int EXACT_LIMIT = 4096;
+
+  private double[] values = new double[16];
+  private int size;
+  private PriceDigest digest;
+
+  void add(double value) {
+    if (!Double.isFinite(value)) {
+      return;
+    }
+    if (digest != null) {
+      digest.add(value);
+      return;
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size] = value;
+    size += 1;
+    if (size > EXACT_LIMIT) {
+      spill();
+    }
+  }
+
+  void addAll(double[] source) {
+    for (double value : source) {
+      add(value);
+    }
+  }
+
+  void merge(PriceDigest other) {
+    if (digest == null) {
+      spill();
+    }
+    digest.merge(other);
+  }
+
+  SpendingAnalyticsResponse.PercentileSummary summary() {
+    if (digest == null && size == 0 || digest != null && digest.count() == 0) {
+      return null;
+    }
+    SpendingAnalyticsResponse.PercentileSummary summary = new SpendingAnalyticsResponse.PercentileSummary();
+    if (digest != null) {
+      summary.setP50(digest.quantile(0.5));
+      summary.setP90(digest.quantile(0.9));
+      summary.setP99(digest.quantile(0.99));
+      return summary;
+    }
+    double[] scratch = Arrays.copyOf(values, size);
+    summary.setP50(Percentiles.select(scratch, size, 0.5));
+    summary.setP90(Percentiles.select(scratch, size, 0.9));
+    summary.setP99(Percentiles.select(scratch, size, 0.99));
+    return summary;
+  }
+
+  private void spill() {
+    digest = new PriceDigest();
+    for (int index = 0; index < size; index++) {
+      digest.add(values[index]);
+    }
+    values = null;
+    size = 0;
+  }
+}
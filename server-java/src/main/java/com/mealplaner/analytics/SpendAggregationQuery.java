@@ -0,0 +1,272 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.util.UnitConverter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spending analytics computed by one Mongo pipeline. Results match in-memory mode within a stated
+ * tolerance rather than exactly: {@code $sum} adds doubles in its own order, so totals agree to a
+ * relative 1e-9, and past {@link QuantileAccumulator#EXACT_LIMIT} prices the unkeyed percentiles
+ * come from merged per-day rollup digests, so they agree with memory mode's single digest to within
+ * one percentile rank of the exact value. {@code SpendingAnalyticsModesTest} asserts both bounds.
+ */
+@Component
+public class SpendAggregationQuery {
+  private static final Comparator<Document> LABEL_ORDER = Comparator.nullsLast(
+      Comparator.comparing((Document label) -> label.getDate("at"), Comparator.nullsFirst(Comparator.naturalOrder()))
+          .thenComparing(label -> label.getString("unit"), Comparator.nullsFirst(Comparator.naturalOrder()))
+  );
+
+  private final MongoTemplate mongoTemplate;
+
+  public SpendAggregationQuery(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  boolean collect(
+      String userId,
+      Instant start,
+      Instant end,
+      String ingredientKey,
+      SpendTotalsCollector totals,
+      TopSpendersCollector topSpenders,
+      NutritionCollector nutrition
+  ) {
+    List<Document> stages = new ArrayList<>();
+    stages.add(new Document("$match", buildMatch(userId, start, end, ingredientKey)));
+    stages.add(new Document("$addFields", new Document("_day", new Document("$dateToString", new Document()
+        .append("format", "%Y-%m-%d")
+        .append("date", "$purchased_at")
+        .append("timezone", "UTC")
+        .append("onNull", "")))
+        .append("_key", new Document("$ifNull", List.of("$ingredient_key", "")))
+        .append("_unit", normalizedString("$unit"))));
+    stages.add(new Document("$addFields", new Document("_base", baseUnitExpression())
+        .append("_factor", factorExpression())));
+    stages.add(new Document("$addFields", new Document("_normalized", new Document("$cond", List.of(
+        new Document("$and", List.of(
+            new Document("$ne", Arrays.asList("$_factor", null)),
+            new Document("$gt", List.of("$amount", 0))
+        )),
+        new Document("$multiply", List.of("$amount", "$_factor")),
+        0
+    )))));
+    stages.add(new Document("$addFields", new Document("_priced", new Document("$gt", List.of("$_normalized", 0)))));
+    stages.add(new Document("$facet", new Document()
+        .append("daily", List.of(
+            new Document("$group", new Document("_id", "$_day")
+                .append("total", new Document("$sum", "$price"))
+                .append("count", new Document("$sum", 1))),
+            new Document("$sort", new Document("_id", 1))
+        ))
+        .append("units", List.of(
+            new Document("$match", new Document("_priced", true)),
+            new Document("$group", new Document("_id", "$_base")
+                .append("amount", new Document("$sum", "$_normalized"))
+                .append("price", new Document("$sum", "$price")))
+        ))
+        .append("top", List.of(
+            new Document("$group", new Document("_id", "$_key")
+                .append("total", new Document("$sum", "$price"))
+                .append("count", new Document("$sum", 1))
+                .append("unitPriceSum", new Document("$sum", new Document("$cond", List.of(
+                    "$_priced",
+                    new Document("$divide", List.of("$price", "$_normalized")),
+                    0
+                ))))
+                .append("unitPriceCount", new Document("$sum", new Document("$cond", List.of("$_priced", 1, 0))))
+                .append("label", new Document("$min", new Document("$cond", Arrays.asList(
+                    "$_priced",
+                    new Document("at", new Document("$ifNull", Arrays.asList("$purchased_at", null)))
+                        .append("unit", "$_base"),
+                    null
+                )))))
+        ))
+        .append("nutrition", List.of(
+            new Document("$group", new Document("_id", new Document("key", "$_key").append("unit", "$_unit"))
+                .append("count", new Document("$sum", 1))
+                .append("amount", new Document("$sum", "$amount"))
+                .append("normalized", new Document("$sum", "$_normalized"))
+                .append("base", new Document("$max", new Document("$cond", Arrays.asList("$_priced", "$_base", null)))))
+        ))
+        .append("prices", List.of(
+            new Document("$limit", QuantileAccumulator.EXACT_LIMIT + 1),
+            new Document("$project", new Document("_id", 0).append("price", 1))
+        ))));
+
+    List<AggregationOperation> operations = stages.stream()
+        .map(stage -> (AggregationOperation) context -> stage)
+        .toList();
+    Document result = mongoTemplate.aggregate(
+        Aggregation.newAggregation(operations),
+        mongoTemplate.getCollectionName(PurchaseDocument.class),
+        Document.class
+    ).getUniqueMappedResult();
+    if (result == null) {
+      return true;
+    }
+
+    for (Document row : rows(result, "daily")) {
+      String day = row.getString("_id");
+      int count = number(row, "count").intValue();
+      if (day == null || day.isEmpty()) {
+        totals.addUndated(count);
+      } else {
+        totals.addDay(LocalDate.parse(day).toEpochDay(), number(row, "total").doubleValue(), count);
+      }
+    }
+    for (Document row : rows(result, "units")) {
+      totals.addUnit(row.getString("_id"), number(row, "amount").doubleValue(), number(row, "price").doubleValue());
+    }
+
+    SpendSample sample = new SpendSample();
+    List<Document> top = new ArrayList<>(rows(result, "top"));
+    top.sort(Comparator.comparing((Document row) -> row.get("label", Document.class), LABEL_ORDER).reversed());
+    for (Document row : top) {
+      Document label = row.get("label", Document.class);
+      sample.epochDay = SpendSample.UNDATED;
+      sample.ingredientKey = SpendSample.normalizeKey(row.getString("_id"));
+      sample.count = number(row, "count").intValue();
+      sample.price = number(row, "total").doubleValue();
+      sample.unitPriceSum = number(row, "unitPriceSum").doubleValue();
+      sample.unitPriceCount = number(row, "unitPriceCount").intValue();
+      sample.baseUnit = label == null ? null : label.getString("unit");
+      topSpenders.accept(sample);
+    }
+    for (Document row : rows(result, "nutrition")) {
+      Document id = row.get("_id", Document.class);
+      sample.epochDay = SpendSample.UNDATED;
+      sample.ingredientKey = SpendSample.normalizeKey(id.getString("key"));
+      sample.unit = id.getString("unit");
+      sample.unitCode = UnitConverter.code(sample.unit);
+      sample.count = number(row, "count").intValue();
+      sample.amount = number(row, "amount").doubleValue();
+      sample.normalizedAmount = number(row, "normalized").doubleValue();
+      sample.baseUnit = row.getString("base");
+      nutrition.accept(sample);
+    }
+    Collection<Document> prices = rows(result, "prices");
+    if (prices.size() > QuantileAccumulator.EXACT_LIMIT) {
+      return false;
+    }
+    for (Document row : prices) {
+      totals.addPurchasePrice(number(row, "price").doubleValue());
+    }
+    return true;
+  }
+
+  void collectPrices(
+      String userId,
+      Instant start,
+      Instant end,
+      String ingredientKey,
+      Collection<LocalDate> days,
+      SpendTotalsCollector totals
+  ) {
+    Document match = buildMatch(userId, start, end, ingredientKey);
+    if (days != null) {
+      if (days.isEmpty()) {
+        return;
+      }
+      List<Document> windows = new ArrayList<>();
+      for (LocalDate day : days) {
+        windows.add(new Document("purchased_at", new Document("$gte", startOfDay(day))
+            .append("$lt", startOfDay(day.plusDays(1)))));
+      }
+      match.append("$or", windows);
+    }
+    for (Document row : mongoTemplate.getCollection(mongoTemplate.getCollectionName(PurchaseDocument.class))
+        .find(match)
+        .projection(new Document("_id", 0).append("price", 1))) {
+      totals.addPurchasePrice(number(row, "price").doubleValue());
+    }
+  }
+
+  private Date startOfDay(LocalDate day) {
+    return Date.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  private Document buildMatch(String userId, Instant start, Instant end, String ingredientKey) {
+    Document match = new Document("user_id", userId);
+    if (ingredientKey != null) {
+      match.append("ingredient_key", ingredientKey);
+    }
+    if (start != null && end != null) {
+      match.append("purchased_at", new Document("$gte", Date.from(start)).append("$lte", Date.from(end)));
+    } else if (start != null) {
+      match.append("purchased_at", new Document("$gte", Date.from(start)));
+    } else if (end != null) {
+      match.append("purchased_at", new Document("$lte", Date.from(end)));
+    }
+    return match;
+  }
+
+  private Document normalizedString(String field) {
+    return new Document("$toLower", new Document("$trim", new Document("input", new Document("$ifNull", List.of(field, "")))));
+  }
+
+  private Document baseUnitExpression() {
+    List<Document> branches = List.of(
+        branch(unitIn(spellings(UnitConverter.massFactors())), "kg"),
+        branch(unitIn(spellings(UnitConverter.volumeFactors())), "l"),
+        branch(unitIn(UnitConverter.spellings(UnitConverter.PCS)), "pcs")
+    );
+    return new Document("$switch", new Document("branches", branches).append("default", null));
+  }
+
+  private Document factorExpression() {
+    List<Document> branches = new ArrayList<>();
+    addFactorBranches(branches, UnitConverter.massFactors());
+    addFactorBranches(branches, UnitConverter.volumeFactors());
+    branches.add(branch(unitIn(UnitConverter.spellings(UnitConverter.PCS)), 1.0));
+    return new Document("$switch", new Document("branches", branches).append("default", null));
+  }
+
+  private void addFactorBranches(List<Document> branches, Map<String, Double> conversions) {
+    for (Map.Entry<String, Double> entry : conversions.entrySet()) {
+      branches.add(branch(unitIn(UnitConverter.spellings(UnitConverter.code(entry.getKey()))), entry.getValue()));
+    }
+  }
+
+  private List<String> spellings(Map<String, Double> conversions) {
+    List<String> spellings = new ArrayList<>();
+    for (String unit : conversions.keySet()) {
+      spellings.addAll(UnitConverter.spellings(UnitConverter.code(unit)));
+    }
+    return spellings;
+  }
+
+  private Document unitIn(List<String> spellings) {
+    return new Document("$in", List.of("$_unit", spellings));
+  }
+
+  private Document branch(Document condition, Object value) {
+    return new Document("case", condition).append("then", value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Collection<Document> rows(Document result, String facet) {
+    Object value = result.get(facet);
+    return value instanceof List<?> list ? (List<Document>) list : List.of();
+  }
+
+  private Number number(Document row, String field) {
+    Object value = row.get(field);
+    return value instanceof Number number ? number : 0;
+  }
+}
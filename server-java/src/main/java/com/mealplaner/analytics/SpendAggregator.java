@@ -0,0 +1,36 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.util.List;
+
+final class SpendAggregator {
+  private final SpendCollector[] collectors;
+  private final SpendSample sample = new SpendSample();
+
+  SpendAggregator(List<SpendCollector> collectors) {
+    this.collectors = collectors.toArray(new SpendCollector[0]);
+  }
+
+  void accept(PurchaseDocument purchase) {
+    accept(sample.load(purchase));
+  }
+
+  void accept(SpendSample value) {
+    for (SpendCollector collector : collectors) {
+      collector.accept(value);
+    }
+  }
+
+  void acceptAll(Iterable<PurchaseDocument> purchases) {
+    for (PurchaseDocument purchase : purchases) {
+      accept(purchase);
+    }
+  }
+
+  void complete(SpendingAnalyticsResponse response) {
+    for (SpendCollector collector : collectors) {
+      collector.complete(response);
+    }
+  }
+}
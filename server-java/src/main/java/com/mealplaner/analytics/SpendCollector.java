@@ -0,0 +1,9 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+
+interface SpendCollector {
+  void accept(SpendSample sample);
+
+  void complete(SpendingAnalyticsResponse response);
+}
@@ -0,0 +1,214 @@
+package com.mealplaner.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+final class SpendFenwick {
+  private static final int MIN_CAPACITY = 64;
+
+  private long[] days = new long[0];
+  private double[] daySpend = new double[0];
+  private long[] dayCount = new long[0];
+  private int size;
+  private double[] spendTree = new double[1];
+  private long[] countTree = new long[1];
+  private int[] daysTree = new int[1];
+  private double undatedSpend;
+  private long undatedCount;
+
+  static SpendFenwick of(List<SpendRollupDocument> rows) {
+    SpendFenwick index = new SpendFenwick();
+    long[] dated = new long[rows.size()];
+    int length = 0;
+    for (SpendRollupDocument row : rows) {
+      if (row.getDateIso() != null) {
+        dated[length++] = LocalDate.parse(row.getDateIso()).toEpochDay();
+      }
+    }
+    Arrays.sort(dated, 0, length);
+    index.ensureCapacity(length);
+    for (int position = 0; position < length; position++) {
+      if (index.size == 0 || index.days[index.size - 1] != dated[position]) {
+        index.days[index.size++] = dated[position];
+      }
+    }
+    for (SpendRollupDocument row : rows) {
+      if (row.getDateIso() == null) {
+        index.undatedSpend += row.getTotal();
+        index.undatedCount += row.getCount();
+      } else {
+        int slot = Arrays.binarySearch(index.days, 0, index.size, LocalDate.parse(row.getDateIso()).toEpochDay());
+        index.daySpend[slot] += row.getTotal();
+        index.dayCount[slot] += row.getCount();
+      }
+    }
+    index.rebuildTrees();
+    return index;
+  }
+
+  synchronized void add(Long epochDay, double price, int count) {
+    if (epochDay == null) {
+      undatedSpend += price;
+      undatedCount += count;
+      return;
+    }
+    int slot = Arrays.binarySearch(days, 0, size, epochDay);
+    if (slot < 0) {
+      insert(-slot - 1, epochDay, price, count);
+      return;
+    }
+    boolean firstOnDay = dayCount[slot] == 0 && count > 0;
+    daySpend[slot] += price;
+    dayCount[slot] += count;
+    for (int node = slot + 1; node <= size; node += node & -node) {
+      spendTree[node] += price;
+      countTree[node] += count;
+      if (firstOnDay) {
+        daysTree[node] += 1;
+      }
+    }
+  }
+
+  synchronized Totals sum(Long fromDay, Long toDay) {
+    int low = fromDay == null ? 0 : lowerBound(fromDay);
+    int high = toDay == null ? size : upperBound(toDay);
+    double undated = fromDay == null && toDay == null ? undatedSpend : 0.0;
+    long undatedPurchases = fromDay == null && toDay == null ? undatedCount : 0;
+    if (low >= high) {
+      return new Totals(undated, undatedPurchases, 0);
+    }
+    return new Totals(
+        spendPrefix(high) - spendPrefix(low) + undated,
+        countPrefix(high) - countPrefix(low) + undatedPurchases,
+        daysPrefix(high) - daysPrefix(low)
+    );
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  private double spendPrefix(int length) {
+    double total = 0.0;
+    for (int node = length; node > 0; node -= node & -node) {
+      total += spendTree[node];
+    }
+    return total;
+  }
+
+  private long countPrefix(int length) {
+    long total = 0;
+    for (int node = length; node > 0; node -= node & -node) {
+      total += countTree[node];
+    }
+    return total;
+  }
+
+  private int daysPrefix(int length) {
+    int total = 0;
+    for (int node = length; node > 0; node -= node & -node) {
+      total += daysTree[node];
+    }
+    return total;
+  }
+
+  private int lowerBound(long day) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (days[mid] < day) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int upperBound(long day) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (days[mid] <= day) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void insert(int slot, long epochDay, double price, long count) {
+    ensureCapacity(size + 1);
+    if (slot == size) {
+      append(epochDay, price, count);
+      return;
+    }
+    int length = size - slot;
+    System.arraycopy(days, slot, days, slot + 1, length);
+    System.arraycopy(daySpend, slot, daySpend, slot + 1, length);
+    System.arraycopy(dayCount, slot, dayCount, slot + 1, length);
+    days[slot] = epochDay;
+    daySpend[slot] = price;
+    dayCount[slot] = count;
+    size += 1;
+    rebuildTrees();
+  }
+
+  /**
+   * Adds a new latest day in O(log n). Node {@code n} covers the days after
+   * {@code n - lowbit(n)}, which is the new day plus the nodes {@code n - 1, n - 2, n - 4, ...}
+   * below it: the prefix difference, summed without subtracting.
+   */
+  private void append(long epochDay, double price, long count) {
+    days[size] = epochDay;
+    daySpend[size] = price;
+    dayCount[size] = count;
+    size += 1;
+    int node = size;
+    spendTree[node] = price;
+    countTree[node] = count;
+    daysTree[node] = count > 0 ? 1 : 0;
+    for (int step = 1; step < (node & -node); step <<= 1) {
+      spendTree[node] += spendTree[node - step];
+      countTree[node] += countTree[node - step];
+      daysTree[node] += daysTree[node - step];
+    }
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= days.length) {
+      return;
+    }
+    int capacity = Math.max(Math.max(required, MIN_CAPACITY), days.length + (days.length >> 1));
+    days = Arrays.copyOf(days, capacity);
+    daySpend = Arrays.copyOf(daySpend, capacity);
+    dayCount = Arrays.copyOf(dayCount, capacity);
+    spendTree = Arrays.copyOf(spendTree, capacity + 1);
+    countTree = Arrays.copyOf(countTree, capacity + 1);
+    daysTree = Arrays.copyOf(daysTree, capacity + 1);
+  }
+
+  private void rebuildTrees() {
+    spendTree = new double[days.length + 1];
+    countTree = new long[days.length + 1];
+    daysTree = new int[days.length + 1];
+    for (int node = 1; node <= size; node++) {
+      spendTree[node] += daySpend[node - 1];
+      countTree[node] += dayCount[node - 1];
+      daysTree[node] += dayCount[node - 1] > 0 ? 1 : 0;
+      int parent = node + (node & -node);
+      if (parent <= size) {
+        spendTree[parent] += spendTree[node];
+        countTree[parent] += countTree[node];
+        daysTree[parent] += daysTree[node];
+      }
+    }
+  }
+
+  record Totals(double total, long purchaseCount, int daysWithPurchases) {
+  }
+}
@@ -0,0 +1,56 @@
+package com.mealplaner.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+enum SpendGranularity {
+  DAY("day", "spend_daily_rollups"),
+  WEEK("week", SpendRollupDocument.WEEKLY_COLLECTION),
+  MONTH("month", SpendRollupDocument.MONTHLY_COLLECTION);
+
+  private final String value;
+  private final String collection;
+
+  SpendGranularity(String value, String collection) {
+    this.value = value;
+    this.collection = collection;
+  }
+
+  String value() {
+    return value;
+  }
+
+  String collection() {
+    return collection;
+  }
+
+  LocalDate bucketStart(LocalDate date) {
+    return switch (this) {
+      case DAY -> date;
+      case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+      case MONTH -> date.withDayOfMonth(1);
+    };
+  }
+
+  LocalDate bucketEnd(LocalDate date) {
+    return switch (this) {
+      case DAY -> date;
+      case WEEK -> bucketStart(date).plusDays(6);
+      case MONTH -> date.with(TemporalAdjusters.lastDayOfMonth());
+    };
+  }
+
+  static SpendGranularity parse(String raw) {
+    if (raw == null || raw.isBlank()) {
+      return DAY;
+    }
+    String normalized = raw.trim().toLowerCase();
+    for (SpendGranularity granularity : values()) {
+      if (granularity.value.equals(normalized)) {
+        return granularity;
+      }
+    }
+    throw new IllegalArgumentException("Invalid granularity");
+  }
+}
@@ -0,0 +1,94 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SpendRangeIndex {
+  private final SpendRollupService rollupService;
+  private final AppProperties properties;
+  private final LinkedHashMap<String, SpendFenwick> users = new LinkedHashMap<>(16, 0.75f, true);
+  private long writes;
+
+  public SpendRangeIndex(SpendRollupService rollupService, AppProperties properties) {
+    this.rollupService = rollupService;
+    this.properties = properties;
+  }
+
+  SpendFenwick.Totals sum(String userId, LocalDate from, LocalDate to) {
+    return index(userId).sum(
+        from == null ? null : from.toEpochDay(),
+        to == null ? null : to.toEpochDay()
+    );
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    PurchaseDocument purchase = event.purchase();
+    synchronized (this) {
+      writes += 1;
+      SpendFenwick index = users.get(purchase.getUserId());
+      if (index == null) {
+        return;
+      }
+      Long epochDay = purchase.getPurchasedAt() == null
+          ? null
+          : purchase.getPurchasedAt().atZone(ZoneOffset.UTC).toLocalDate().toEpochDay();
+      index.add(epochDay, purchase.getPrice(), 1);
+    }
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    synchronized (this) {
+      writes += 1;
+      users.remove(event.userId());
+    }
+  }
+
+  private SpendFenwick index(String userId) {
+    long observedWrites;
+    synchronized (this) {
+      SpendFenwick cached = users.get(userId);
+      if (cached != null) {
+        return cached;
+      }
+      observedWrites = writes;
+    }
+    SpendFenwick loaded = SpendFenwick.of(rollupService.listDaily(userId));
+    synchronized (this) {
+      SpendFenwick cached = users.get(userId);
+      if (cached != null) {
+        return cached;
+      }
+      if (observedWrites != writes) {
+        return loaded;
+      }
+      users.put(userId, loaded);
+      evict();
+      return loaded;
+    }
+  }
+
+  private void evict() {
+    int maxUsers = properties.getAnalytics().getRangeIndexMaxUsers();
+    Iterator<Map.Entry<String, SpendFenwick>> iterator = users.entrySet().iterator();
+    while (users.size() > maxUsers && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+}
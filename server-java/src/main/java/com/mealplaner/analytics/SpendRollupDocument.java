@@ -0,0 +1,129 @@
+package com.mealplaner.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+@Document(collection = "spend_daily_rollups")
+@CompoundIndex(name = "user_date", def = "{'user_id': 1, 'date_iso': 1}")
+public class SpendRollupDocument {
+  public static final String WEEKLY_COLLECTION = "spend_weekly_rollups";
+  public static final String MONTHLY_COLLECTION = "spend_monthly_rollups";
+
+  @Id
+  private String id;
+
+  @Field("user_id")
+  private String userId;
+
+  @Field("date_iso")
+  private String dateIso;
+
+  private double total;
+  private int count;
+  private Map<String, UnitTotal> units = new HashMap<>();
+  private List<Centroid> centroids = new ArrayList<>();
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public String getDateIso() {
+    return dateIso;
+  }
+
+  public void setDateIso(String dateIso) {
+    this.dateIso = dateIso;
+  }
+
+  public double getTotal() {
+    return total;
+  }
+
+  public void setTotal(double total) {
+    this.total = total;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public Map<String, UnitTotal> getUnits() {
+    return units;
+  }
+
+  public void setUnits(Map<String, UnitTotal> units) {
+    this.units = units == null ? new HashMap<>() : units;
+  }
+
+  public List<Centroid> getCentroids() {
+    return centroids;
+  }
+
+  public void setCentroids(List<Centroid> centroids) {
+    this.centroids = centroids == null ? new ArrayList<>() : centroids;
+  }
+
+  public static class Centroid {
+    private double mean;
+    private double weight;
+
+    public double getMean() {
+      return mean;
+    }
+
+    public void setMean(double mean) {
+      this.mean = mean;
+    }
+
+    public double getWeight() {
+      return weight;
+    }
+
+    public void setWeight(double weight) {
+      this.weight = weight;
+    }
+  }
+
+  public static class UnitTotal {
+    private double amount;
+    private double price;
+
+    public double getAmount() {
+      return amount;
+    }
+
+    public void setAmount(double amount) {
+      this.amount = amount;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.mealplaner.analytics;
+
+import java.util.List;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface SpendRollupRepository extends MongoRepository<SpendRollupDocument, String> {
+  List<SpendRollupDocument> findByUserIdOrderByDateIsoAsc(String userId);
+  boolean existsByUserId(String userId);
+}
@@ -0,0 +1,288 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchaseSavingEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import com.mealplaner.util.UnitConverter;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SpendRollupService {
+  private static final String UNDATED = "undated";
+
+  private final SpendRollupRepository repository;
+  private final PurchaseRepository purchaseRepository;
+  private final MongoTemplate mongoTemplate;
+  private final PurchaseProjectionGuard guard;
+
+  public SpendRollupService(
+      SpendRollupRepository repository,
+      PurchaseRepository purchaseRepository,
+      MongoTemplate mongoTemplate
+  ) {
+    this.repository = repository;
+    this.purchaseRepository = purchaseRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.guard = new PurchaseProjectionGuard(repository::existsByUserId);
+  }
+
+  public List<SpendRollupDocument> listDaily(String userId) {
+    guard.ensureBuilt(userId, () -> rebuild(userId));
+    return repository.findByUserIdOrderByDateIsoAsc(userId);
+  }
+
+  List<SpendRollupDocument> listBuckets(String userId, SpendGranularity granularity, LocalDate from, LocalDate to) {
+    guard.ensureBuilt(userId, () -> rebuild(userId));
+    Criteria criteria = Criteria.where("user_id").is(userId);
+    if (from != null || to != null) {
+      criteria = criteria.and("date_iso");
+      if (from != null) {
+        criteria = criteria.gte(granularity.bucketStart(from).toString());
+      }
+      if (to != null) {
+        criteria = criteria.lte(granularity.bucketStart(to).toString());
+      }
+    }
+    Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "date_iso"));
+    List<SpendRollupDocument> buckets = mongoTemplate.find(query, SpendRollupDocument.class, granularity.collection());
+    if (granularity == SpendGranularity.DAY || buckets.isEmpty()) {
+      return buckets;
+    }
+    clip(userId, granularity, buckets.get(0), from, to);
+    if (buckets.size() > 1) {
+      clip(userId, granularity, buckets.get(buckets.size() - 1), from, to);
+    }
+    return buckets;
+  }
+
+  PriceDigest purchaseDigest(String userId, LocalDate from, LocalDate to) {
+    guard.ensureBuilt(userId, () -> rebuild(userId));
+    Criteria criteria = Criteria.where("user_id").is(userId);
+    if (from != null || to != null) {
+      criteria = criteria.and("date_iso").ne(null);
+      if (from != null) {
+        criteria = criteria.gte(from.toString());
+      }
+      if (to != null) {
+        criteria = criteria.lte(to.toString());
+      }
+    }
+    Query query = new Query(criteria);
+    query.fields().include("centroids");
+    PriceDigest digest = new PriceDigest();
+    for (SpendRollupDocument row : mongoTemplate.find(query, SpendRollupDocument.class)) {
+      digest.merge(PriceDigest.of(row.getCentroids()));
+    }
+    return digest;
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseSaving(PurchaseSavingEvent event) {
+    guard.saving(event.purchase());
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    record(event.purchase());
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    rebuild(event.userId());
+  }
+
+  public void record(PurchaseDocument purchase) {
+    guard.record(purchase, () -> {
+      String userId = purchase.getUserId();
+      String dateIso = toDateIso(purchase);
+      upsert(SpendGranularity.DAY, userId, dateIso, purchase);
+      if (dateIso != null) {
+        LocalDate date = LocalDate.parse(dateIso);
+        upsert(SpendGranularity.WEEK, userId, SpendGranularity.WEEK.bucketStart(date).toString(), purchase);
+        upsert(SpendGranularity.MONTH, userId, SpendGranularity.MONTH.bucketStart(date).toString(), purchase);
+      }
+    });
+  }
+
+  public int rebuild(String userId) {
+    return guard.rebuild(userId, included -> replaceAll(userId, included));
+  }
+
+  private int replaceAll(String userId, Predicate<PurchaseDocument> included) {
+    Map<String, SpendRollupDocument> rows = new LinkedHashMap<>();
+    Map<String, SpendRollupDocument> weeks = new LinkedHashMap<>();
+    Map<String, SpendRollupDocument> months = new LinkedHashMap<>();
+    Map<String, PriceDigest> digests = new HashMap<>();
+    List<PurchaseDocument> purchases = purchaseRepository.findByUserIdOrderByPurchasedAtDesc(userId);
+    for (PurchaseDocument purchase : purchases) {
+      if (!included.test(purchase)) {
+        continue;
+      }
+      String dateIso = toDateIso(purchase);
+      accumulate(rows, userId, dateIso, purchase);
+      digests.computeIfAbsent(buildId(userId, dateIso), ignore -> new PriceDigest()).add(purchase.getPrice());
+      if (dateIso != null) {
+        LocalDate date = LocalDate.parse(dateIso);
+        accumulate(weeks, userId, SpendGranularity.WEEK.bucketStart(date).toString(), purchase);
+        accumulate(months, userId, SpendGranularity.MONTH.bucketStart(date).toString(), purchase);
+      }
+    }
+    for (SpendRollupDocument row : rows.values()) {
+      row.setCentroids(digests.get(row.getId()).toCentroids());
+    }
+    replace(SpendGranularity.WEEK, userId, weeks);
+    replace(SpendGranularity.MONTH, userId, months);
+    replace(SpendGranularity.DAY, userId, rows);
+    return rows.size();
+  }
+
+  private void upsert(SpendGranularity granularity, String userId, String dateIso, PurchaseDocument purchase) {
+    Update update = new Update()
+        .setOnInsert("user_id", userId)
+        .setOnInsert("date_iso", dateIso)
+        .inc("total", purchase.getPrice())
+        .inc("count", 1);
+    int unitCode = UnitConverter.code(purchase.getUnit());
+    double normalized = normalize(purchase.getAmount(), unitCode);
+    if (!Double.isNaN(normalized)) {
+      String baseUnit = UnitConverter.baseName(unitCode);
+      update.inc("units." + baseUnit + ".amount", normalized);
+      update.inc("units." + baseUnit + ".price", purchase.getPrice());
+    }
+    Query query = new Query(Criteria.where("_id").is(buildId(userId, dateIso)));
+    if (granularity != SpendGranularity.DAY) {
+      mongoTemplate.upsert(query, update, SpendRollupDocument.class, granularity.collection());
+      return;
+    }
+    SpendRollupDocument.Centroid centroid = new SpendRollupDocument.Centroid();
+    centroid.setMean(purchase.getPrice());
+    centroid.setWeight(1.0);
+    update.push("centroids", centroid);
+    SpendRollupDocument row = mongoTemplate.findAndModify(
+        query,
+        update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        SpendRollupDocument.class
+    );
+    int observed = row == null ? 0 : row.getCentroids().size();
+    if (observed > 2 * PriceDigest.COMPRESSION) {
+      Query unchanged = new Query(Criteria.where("_id").is(row.getId()).and("centroids").size(observed));
+      List<SpendRollupDocument.Centroid> compressed = PriceDigest.of(row.getCentroids()).toCentroids();
+      mongoTemplate.updateFirst(unchanged, new Update().set("centroids", compressed), SpendRollupDocument.class);
+    }
+  }
+
+  private void accumulate(
+      Map<String, SpendRollupDocument> rows,
+      String userId,
+      String dateIso,
+      PurchaseDocument purchase
+  ) {
+    SpendRollupDocument row = rows.computeIfAbsent(buildId(userId, dateIso), id -> {
+      SpendRollupDocument created = new SpendRollupDocument();
+      created.setId(id);
+      created.setUserId(userId);
+      created.setDateIso(dateIso);
+      return created;
+    });
+    row.setTotal(row.getTotal() + purchase.getPrice());
+    row.setCount(row.getCount() + 1);
+    int unitCode = UnitConverter.code(purchase.getUnit());
+    double normalized = normalize(purchase.getAmount(), unitCode);
+    if (!Double.isNaN(normalized)) {
+      addUnit(row, UnitConverter.baseName(unitCode), normalized, purchase.getPrice());
+    }
+  }
+
+  private void replace(SpendGranularity granularity, String userId, Map<String, SpendRollupDocument> rows) {
+    String collection = granularity.collection();
+    if (!rows.isEmpty()) {
+      BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SpendRollupDocument.class, collection);
+      for (SpendRollupDocument row : rows.values()) {
+        bulk.replaceOne(new Query(Criteria.where("_id").is(row.getId())), row, FindAndReplaceOptions.options().upsert());
+      }
+      bulk.execute();
+    }
+    mongoTemplate.remove(stale(userId, rows.keySet()), collection);
+  }
+
+  private Query stale(String userId, Collection<String> keep) {
+    return new Query(Criteria.where("user_id").is(userId).and("_id").nin(keep));
+  }
+
+  private void clip(
+      String userId,
+      SpendGranularity granularity,
+      SpendRollupDocument bucket,
+      LocalDate from,
+      LocalDate to
+  ) {
+    LocalDate bucketStart = LocalDate.parse(bucket.getDateIso());
+    LocalDate bucketEnd = granularity.bucketEnd(bucketStart);
+    LocalDate clippedStart = from != null && from.isAfter(bucketStart) ? from : bucketStart;
+    LocalDate clippedEnd = to != null && to.isBefore(bucketEnd) ? to : bucketEnd;
+    if (clippedStart.equals(bucketStart) && clippedEnd.equals(bucketEnd)) {
+      return;
+    }
+    Query query = new Query(Criteria.where("user_id").is(userId)
+        .and("date_iso").gte(clippedStart.toString()).lte(clippedEnd.toString()));
+    bucket.setTotal(0.0);
+    bucket.setCount(0);
+    bucket.setUnits(new HashMap<>());
+    for (SpendRollupDocument day : mongoTemplate.find(query, SpendRollupDocument.class)) {
+      bucket.setTotal(bucket.getTotal() + day.getTotal());
+      bucket.setCount(bucket.getCount() + day.getCount());
+      day.getUnits().forEach((unit, value) -> addUnit(bucket, unit, value.getAmount(), value.getPrice()));
+    }
+  }
+
+  private void addUnit(SpendRollupDocument row, String baseUnit, double amount, double price) {
+    SpendRollupDocument.UnitTotal unit = row.getUnits()
+        .computeIfAbsent(baseUnit, ignore -> new SpendRollupDocument.UnitTotal());
+    unit.setAmount(unit.getAmount() + amount);
+    unit.setPrice(unit.getPrice() + price);
+  }
+
+  private double normalize(double amount, int unitCode) {
+    if (!Double.isFinite(amount) || amount <= 0) {
+      return Double.NaN;
+    }
+    return UnitConverter.toBase(amount, unitCode);
+  }
+
+  private String toDateIso(PurchaseDocument purchase) {
+    if (purchase.getPurchasedAt() == null) {
+      return null;
+    }
+    return purchase.getPurchasedAt().atZone(ZoneOffset.UTC).toLocalDate().toString();
+  }
+
+  private String buildId(String userId, String dateIso) {
+    return userId + ":" + (dateIso == null ? UNDATED : dateIso);
+  }
+}
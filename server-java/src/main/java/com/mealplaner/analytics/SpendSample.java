@@ -0,0 +1,54 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.util.UnitConverter;
+
+final class SpendSample {
+  static final long UNDATED = Long.MIN_VALUE;
+
+  long epochDay;
+  String ingredientKey;
+  String unit;
+  int unitCode;
+  int count;
+  double price;
+  double amount;
+  String baseUnit;
+  double normalizedAmount;
+  double unitPriceSum;
+  int unitPriceCount;
+
+  boolean isDated() {
+    return epochDay != UNDATED;
+  }
+
+  SpendSample load(PurchaseDocument purchase) {
+    epochDay = purchase.getPurchasedAt() == null
+        ? UNDATED
+        : Math.floorDiv(purchase.getPurchasedAt().getEpochSecond(), 86_400L);
+    ingredientKey = normalizeKey(purchase.getIngredientKey());
+    unit = purchase.getUnit();
+    count = 1;
+    price = purchase.getPrice();
+    amount = purchase.getAmount();
+    unitCode = UnitConverter.code(unit);
+    double normalized = amount > 0 && Double.isFinite(amount) ? UnitConverter.toBase(amount, unitCode) : Double.NaN;
+    if (Double.isNaN(normalized)) {
+      baseUnit = null;
+      normalizedAmount = 0.0;
+      unitPriceSum = 0.0;
+      unitPriceCount = 0;
+    } else {
+      baseUnit = UnitConverter.baseName(unitCode);
+      normalizedAmount = normalized;
+      boolean priced = normalized > 0;
+      unitPriceSum = priced ? price / normalized : 0.0;
+      unitPriceCount = priced ? 1 : 0;
+    }
+    return this;
+  }
+
+  static String normalizeKey(String key) {
+    return key == null ? "" : key.trim().toLowerCase();
+  }
+}
@@ -0,0 +1,132 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class SpendTotalsCollector implements SpendCollector {
+  private final DailyBuckets days = new DailyBuckets();
+  private final Map<String, UnitAggregate> normalizedTotals = new HashMap<>();
+  private final QuantileAccumulator purchasePrices = new QuantileAccumulator();
+  private int purchaseCount;
+
+  @Override
+  public void accept(SpendSample sample) {
+    purchaseCount += sample.count;
+    if (sample.count == 1) {
+      purchasePrices.add(sample.price);
+    }
+    if (sample.isDated()) {
+      days.add(sample.epochDay, sample.price);
+    }
+    if (sample.baseUnit != null) {
+      addUnit(sample.baseUnit, sample.normalizedAmount, sample.price);
+    }
+  }
+
+  @Override
+  public void complete(SpendingAnalyticsResponse response) {
+    response.setPurchaseCount(purchaseCount);
+    response.setTotals(stats());
+    response.setDailyTotals(dailyTotals());
+  }
+
+  void addDay(long epochDay, double total, int count) {
+    purchaseCount += count;
+    days.add(epochDay, total);
+  }
+
+  void addUndated(int count) {
+    purchaseCount += count;
+  }
+
+  void addPurchasePrice(double price) {
+    purchasePrices.add(price);
+  }
+
+  void mergePurchasePrices(PriceDigest digest) {
+    purchasePrices.merge(digest);
+  }
+
+  void addUnit(String baseUnit, double amount, double price) {
+    UnitAggregate bucket = normalizedTotals.get(baseUnit);
+    if (bucket == null) {
+      bucket = new UnitAggregate();
+      normalizedTotals.put(baseUnit, bucket);
+    }
+    bucket.amount += amount;
+    bucket.price += price;
+  }
+
+  SpendingAnalyticsResponse.SpendingStats stats() {
+    SpendingAnalyticsResponse.SpendingStats stats = new SpendingAnalyticsResponse.SpendingStats();
+    if (purchaseCount == 0) {
+      stats.setTotalSpent(0.0);
+      stats.setAverageDailySpend(0.0);
+      stats.setMedianDailySpend(0.0);
+      stats.setDaysTracked(0);
+      stats.setAveragePurchase(0.0);
+      return stats;
+    }
+
+    double totalSpent = days.sum();
+    int daysTracked = days.daysTracked();
+    stats.setTotalSpent(totalSpent);
+    stats.setAverageDailySpend(daysTracked > 0 ? totalSpent / daysTracked : 0.0);
+    double[] dailyValues = days.values();
+    stats.setMedianDailySpend(dailyValues.length == 0 ? 0.0 : Percentiles.select(dailyValues, dailyValues.length, 0.5));
+    QuantileAccumulator daily = new QuantileAccumulator();
+    daily.addAll(dailyValues);
+    stats.setDailyPercentiles(daily.summary());
+    stats.setPurchasePercentiles(purchasePrices.summary());
+    stats.setDaysTracked(daysTracked);
+    stats.setAveragePurchase(totalSpent / Math.max(1, purchaseCount));
+
+    Map.Entry<String, UnitAggregate> best = null;
+    for (Map.Entry<String, UnitAggregate> entry : normalizedTotals.entrySet()) {
+      if (best == null || entry.getValue().amount > best.getValue().amount) {
+        best = entry;
+      }
+    }
+    if (best != null && best.getValue().amount > 0) {
+      stats.setNormalizedUnit(best.getKey());
+      stats.setTotalNormalizedQuantity(best.getValue().amount);
+      stats.setAverageUnitPrice(best.getValue().price / best.getValue().amount);
+    }
+    return stats;
+  }
+
+  List<SpendingAnalyticsResponse.DailyTotal> bucketTotals(SpendGranularity granularity) {
+    List<SpendingAnalyticsResponse.DailyTotal> result = new ArrayList<>();
+    SpendingAnalyticsResponse.DailyTotal current = null;
+    for (long day : days.sortedDays()) {
+      String bucket = granularity.bucketStart(LocalDate.ofEpochDay(day)).toString();
+      if (current == null || !current.getDate().equals(bucket)) {
+        current = new SpendingAnalyticsResponse.DailyTotal();
+        current.setDate(bucket);
+        result.add(current);
+      }
+      current.setTotal(current.getTotal() + days.get(day));
+    }
+    return result;
+  }
+
+  List<SpendingAnalyticsResponse.DailyTotal> dailyTotals() {
+    List<SpendingAnalyticsResponse.DailyTotal> result = new ArrayList<>(days.size());
+    for (long day : days.sortedDays()) {
+      SpendingAnalyticsResponse.DailyTotal total = new SpendingAnalyticsResponse.DailyTotal();
+      total.setDate(LocalDate.ofEpochDay(day).toString());
+      total.setTotal(days.get(day));
+      result.add(total);
+    }
+    return result;
+  }
+
+  private static class UnitAggregate {
+    private double amount;
+    private double price;
+  }
+}
@@ -0,0 +1,79 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.util.TopK;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class TopSpendersCollector implements SpendCollector {
+  static final int DEFAULT_LIMIT = 5;
+
+  private final Map<String, TopSpenderAggregate> buckets = new HashMap<>();
+  private final int limit;
+
+  TopSpendersCollector() {
+    this(DEFAULT_LIMIT);
+  }
+
+  TopSpendersCollector(int limit) {
+    this.limit = limit;
+  }
+
+  int limit() {
+    return limit;
+  }
+
+  @Override
+  public void accept(SpendSample sample) {
+    TopSpenderAggregate bucket = buckets.get(sample.ingredientKey);
+    if (bucket == null) {
+      bucket = new TopSpenderAggregate();
+      buckets.put(sample.ingredientKey, bucket);
+    }
+    bucket.total += sample.price;
+    bucket.count += sample.count;
+    if (sample.unitPriceCount > 0) {
+      bucket.unitPriceSum += sample.unitPriceSum;
+      bucket.unitPriceCount += sample.unitPriceCount;
+      bucket.unitLabel = sample.baseUnit;
+    }
+  }
+
+  @Override
+  public void complete(SpendingAnalyticsResponse response) {
+    double totalSpent = response.getTotals() == null ? 0.0 : response.getTotals().getTotalSpent();
+    TopK<Map.Entry<String, TopSpenderAggregate>> top = new TopK<>(
+        limit,
+        Comparator.comparingDouble((Map.Entry<String, TopSpenderAggregate> entry) -> entry.getValue().total).reversed()
+    );
+    for (Map.Entry<String, TopSpenderAggregate> entry : buckets.entrySet()) {
+      top.offer(entry);
+    }
+    List<SpendingAnalyticsResponse.TopSpender> result = new ArrayList<>(top.limit());
+    for (Map.Entry<String, TopSpenderAggregate> entry : top.toList()) {
+      TopSpenderAggregate bucket = entry.getValue();
+      SpendingAnalyticsResponse.TopSpender spender = new SpendingAnalyticsResponse.TopSpender();
+      spender.setIngredientKey(entry.getKey());
+      spender.setTotal(bucket.total);
+      spender.setCount(bucket.count);
+      spender.setShare(totalSpent > 0 ? bucket.total / totalSpent : 0.0);
+      spender.setAverageUnitPrice(
+          bucket.unitPriceCount > 0 ? bucket.unitPriceSum / bucket.unitPriceCount : null
+      );
+      spender.setUnitLabel(bucket.unitLabel);
+      result.add(spender);
+    }
+    response.setTopSpenders(result);
+  }
+
+  private static class TopSpenderAggregate {
+    private double total;
+    private int count;
+    private double unitPriceSum;
+    private int unitPriceCount;
+    private String unitLabel;
+  }
+}
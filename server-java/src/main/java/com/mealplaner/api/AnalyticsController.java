@@ -1,11 +1,18 @@
 package com.mealplaner.api;
 
+import com.mealplaner.analytics.AnalyticsRequestCoalescer;
 import com.mealplaner.analytics.AnalyticsService;
-import com.mealplaner.api.dto.DishCostAnalyticsResponse;
-import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.analytics.AnalyticsSnapshotStore;
+import com.mealplaner.api.dto.PlanCostResponse;
+import com.mealplaner.api.dto.PriceHistoryResponse;
+import com.mealplaner.api.dto.SpendRangeTotalResponse;
 import com.mealplaner.auth.UserPrincipal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,35 +24,121 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
   private final AnalyticsService analyticsService;
+  private final AnalyticsRequestCoalescer coalescer;
+  private final AnalyticsSnapshotStore snapshots;
 
-  public AnalyticsController(AnalyticsService analyticsService) {
+  public AnalyticsController(
+      AnalyticsService analyticsService,
+      AnalyticsRequestCoalescer coalescer,
+      AnalyticsSnapshotStore snapshots
+  ) {
     this.analyticsService = analyticsService;
+    this.coalescer = coalescer;
+    this.snapshots = snapshots;
   }
 
   @GetMapping("/spending")
-  public SpendingAnalyticsResponse spending(
+  public ResponseEntity<byte[]> spending(
       @RequestParam(required = false) String start,
       @RequestParam(required = false) String end,
       @RequestParam(required = false, name = "ingredientKey") String ingredientKey,
+      @RequestParam(required = false) String granularity,
+      @RequestParam(required = false) Integer top,
       @AuthenticationPrincipal UserPrincipal principal
   ) {
     String userId = requireUser(principal);
+    List<String> params = Arrays.asList(start, end, ingredientKey, granularity, top == null ? null : top.toString());
     try {
-      return analyticsService.buildSpendingAnalytics(
+      return toResponse(snapshots.resolve("spending", userId, params, () -> coalescer.get(
+          "spending",
           userId,
+          params,
+          () -> analyticsService.buildSpendingAnalytics(
+              userId,
+              Optional.ofNullable(start),
+              Optional.ofNullable(end),
+              Optional.ofNullable(ingredientKey),
+              Optional.ofNullable(granularity),
+              Optional.ofNullable(top)
+          )
+      )));
+    } catch (IllegalArgumentException exc) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+    }
+  }
+
+  /**
+   * Total spend, purchase count and days with purchases between two inclusive UTC days, answered
+   * from the per-user range index. Bounds use the same inclusive semantics as {@code /spending},
+   * so for the same dates the totals match; bounds inside a day are rejected. {@code /spending}
+   * still scans the range because its percentiles, top spenders and nutrition need every purchase.
+   */
+  @GetMapping("/spending/range-total")
+  public SpendRangeTotalResponse spendingRangeTotal(
+      @RequestParam(required = false) String start,
+      @RequestParam(required = false) String end,
+      @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    String userId = requireUser(principal);
+    try {
+      return analyticsService.buildRangeTotal(userId, Optional.ofNullable(start), Optional.ofNullable(end));
+    } catch (IllegalArgumentException exc) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+    }
+  }
+
+  @GetMapping("/price-history")
+  public PriceHistoryResponse priceHistory(
+      @RequestParam(name = "ingredientKey") String ingredientKey,
+      @RequestParam(required = false) String start,
+      @RequestParam(required = false) String end,
+      @RequestParam(required = false) Integer maxPoints,
+      @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    String userId = requireUser(principal);
+    try {
+      return analyticsService.buildPriceHistory(
+          userId,
+          ingredientKey,
           Optional.ofNullable(start),
           Optional.ofNullable(end),
-          Optional.ofNullable(ingredientKey)
+          Optional.ofNullable(maxPoints)
       );
     } catch (IllegalArgumentException exc) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
     }
   }
 
+  @GetMapping("/plan-cost")
+  public PlanCostResponse planCost(
+      @RequestParam String start,
+      @RequestParam String end,
+      @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    String userId = requireUser(principal);
+    try {
+      return analyticsService.buildPlanCost(userId, start, end);
+    } catch (IllegalArgumentException exc) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+    }
+  }
+
   @GetMapping("/dish-costs")
-  public DishCostAnalyticsResponse dishCosts(@AuthenticationPrincipal UserPrincipal principal) {
+  public ResponseEntity<byte[]> dishCosts(@AuthenticationPrincipal UserPrincipal principal) {
     String userId = requireUser(principal);
-    return analyticsService.buildDishCostAnalytics(userId);
+    return toResponse(snapshots.resolve("dish-costs", userId, List.of(), () -> coalescer.get(
+        "dish-costs",
+        userId,
+        List.of(),
+        () -> analyticsService.buildDishCostAnalytics(userId)
+    )));
+  }
+
+  private ResponseEntity<byte[]> toResponse(AnalyticsSnapshotStore.Snapshot snapshot) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(snapshot.etag())
+        .body(snapshot.body());
   }
 
   private String requireUser(UserPrincipal principal) {
@@ -2,39 +2,58 @@ package com.mealplaner.api;
 
 import com.mealplaner.api.dto.EventEntry;
 import com.mealplaner.auth.UserPrincipal;
+import com.mealplaner.events.EventFeed;
 import com.mealplaner.events.EventService;
+import com.mealplaner.events.EventStreamHub;
 import java.util.List;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/events")
 public class EventsController {
+  private static final String DEGRADED_SOURCES_HEADER = "X-Degraded-Sources";
+
   private final EventService eventService;
+  private final EventStreamHub streamHub;
 
-  public EventsController(EventService eventService) {
+  public EventsController(EventService eventService, EventStreamHub streamHub) {
     this.eventService = eventService;
+    this.streamHub = streamHub;
   }
 
   @GetMapping
-  public List<EventEntry> list(
+  public ResponseEntity<List<EventEntry>> list(
       @RequestParam(required = false) Integer limit,
       @RequestParam(required = false) Integer lookaheadDays,
       @AuthenticationPrincipal UserPrincipal principal
   ) {
     String userId = requireUser(principal);
     try {
-      return eventService.buildEvents(userId, limit, lookaheadDays);
+      EventFeed feed = eventService.buildEvents(userId, limit, lookaheadDays);
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+      if (!feed.degradedSources().isEmpty()) {
+        response.header(DEGRADED_SOURCES_HEADER, String.join(",", feed.degradedSources()));
+      }
+      return response.body(feed.events());
     } catch (IllegalArgumentException exc) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
     }
   }
 
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@AuthenticationPrincipal UserPrincipal principal) {
+    return streamHub.subscribe(requireUser(principal));
+  }
+
   private String requireUser(UserPrincipal principal) {
     if (principal == null) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Could not validate credentials");
@@ -1,6 +1,10 @@
 package com.mealplaner.api;
 
+import com.mealplaner.analytics.IngredientPriceService;
+import com.mealplaner.analytics.SpendRollupService;
 import com.mealplaner.api.dto.MigrationResult;
+import com.mealplaner.api.dto.PlanDayMergeResult;
+import com.mealplaner.api.dto.RollupRebuildResult;
 import com.mealplaner.auth.UserPrincipal;
 import com.mealplaner.migration.MigrationService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -15,9 +19,17 @@ import org.springframework.http.HttpStatus;
 @RequestMapping("/api/migrations")
 public class MigrationsController {
   private final MigrationService migrationService;
+  private final SpendRollupService rollupService;
+  private final IngredientPriceService priceService;
 
-  public MigrationsController(MigrationService migrationService) {
+  public MigrationsController(
+      MigrationService migrationService,
+      SpendRollupService rollupService,
+      IngredientPriceService priceService
+  ) {
     this.migrationService = migrationService;
+    this.rollupService = rollupService;
+    this.priceService = priceService;
   }
 
   @PostMapping("/step-9")
@@ -30,6 +42,36 @@ public class MigrationsController {
     return migrationService.runStep9(userId, dryRun, backfillInventory);
   }
 
+  @PostMapping("/plan-days")
+  public PlanDayMergeResult mergeDuplicatePlanDays(
+      @RequestParam(defaultValue = "true") boolean dryRun,
+      @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    requireUser(principal);
+    if (!principal.isAdmin()) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin privileges required");
+    }
+    return migrationService.mergeDuplicatePlanDays(dryRun);
+  }
+
+  @PostMapping("/spend-rollups")
+  public RollupRebuildResult rebuildSpendRollups(@AuthenticationPrincipal UserPrincipal principal) {
+    String userId = requireUser(principal);
+    RollupRebuildResult result = new RollupRebuildResult();
+    result.setUserId(userId);
+    result.setRows(rollupService.rebuild(userId));
+    return result;
+  }
+
+  @PostMapping("/ingredient-prices")
+  public RollupRebuildResult rebuildIngredientPrices(@AuthenticationPrincipal UserPrincipal principal) {
+    String userId = requireUser(principal);
+    RollupRebuildResult result = new RollupRebuildResult();
+    result.setUserId(userId);
+    result.setRows(priceService.rebuild(userId));
+    return result;
+  }
+
   private String requireUser(UserPrincipal principal) {
     if (principal == null) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Could not validate credentials");
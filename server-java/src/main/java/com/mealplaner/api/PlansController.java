@@ -1,9 +1,11 @@
 package com.mealplaner.api;
 
 import com.mealplaner.api.dto.DayPlan;
+import com.mealplaner.api.dto.DayPlanResult;
 import com.mealplaner.auth.UserPrincipal;
 import com.mealplaner.plan.PlanDocument;
 import com.mealplaner.plan.PlanService;
+import com.mealplaner.plan.PlanUpsertResult;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -24,6 +26,8 @@ import org.springframework.web.server.ResponseStatusException;
 @RestController
 @RequestMapping("/api/plans")
 public class PlansController {
+  private static final int MAX_BATCH_DAYS = 366;
+
   private final PlanService planService;
 
   public PlansController(PlanService planService) {
@@ -44,6 +48,30 @@ public class PlansController {
         .toList();
   }
 
+  @PutMapping
+  public List<DayPlanResult> upsertAll(
+      @RequestBody List<DayPlan> payload,
+      @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    String userId = requireUser(principal);
+    if (payload.size() > MAX_BATCH_DAYS) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many days in one request");
+    }
+    List<PlanDocument> plans = payload.stream()
+        .map(day -> {
+          PlanDocument plan = new PlanDocument();
+          if (day != null) {
+            plan.setDateIso(day.getDateISO());
+            plan.setSlots(day.getSlots());
+          }
+          return plan;
+        })
+        .toList();
+    return planService.upsertAll(userId, plans).stream()
+        .map(this::toResultDto)
+        .toList();
+  }
+
   @PutMapping("/{dateISO}")
   public DayPlan upsert(
       @PathVariable String dateISO,
@@ -92,6 +120,18 @@ public class PlansController {
     return dto;
   }
 
+  private DayPlanResult toResultDto(PlanUpsertResult result) {
+    DayPlanResult dto = new DayPlanResult();
+    dto.setDateISO(result.dateIso());
+    dto.setStatus(result.status().name().toLowerCase());
+    if (result.saved()) {
+      dto.setSlots(result.plan().getSlots());
+    } else {
+      dto.setError(result.error());
+    }
+    return dto;
+  }
+
   private String requireUser(UserPrincipal principal) {
     if (principal == null) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Could not validate credentials");
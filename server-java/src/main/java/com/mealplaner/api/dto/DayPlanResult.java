@@ -0,0 +1,43 @@
+package com.mealplaner.api.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DayPlanResult {
+  private String dateISO;
+  private String status;
+  private String error;
+  private Map<String, String> slots = new HashMap<>();
+
+  public String getDateISO() {
+    return dateISO;
+  }
+
+  public void setDateISO(String dateISO) {
+    this.dateISO = dateISO;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public Map<String, String> getSlots() {
+    return slots;
+  }
+
+  public void setSlots(Map<String, String> slots) {
+    this.slots = slots == null ? new HashMap<>() : slots;
+  }
+}
@@ -0,0 +1,40 @@
+package com.mealplaner.api.dto;
+
+public class EventDelta {
+  private String type;
+  private String eventId;
+  private String previousPriority;
+  private EventEntry event;
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getEventId() {
+    return eventId;
+  }
+
+  public void setEventId(String eventId) {
+    this.eventId = eventId;
+  }
+
+  public String getPreviousPriority() {
+    return previousPriority;
+  }
+
+  public void setPreviousPriority(String previousPriority) {
+    this.previousPriority = previousPriority;
+  }
+
+  public EventEntry getEvent() {
+    return event;
+  }
+
+  public void setEvent(EventEntry event) {
+    this.event = event;
+  }
+}
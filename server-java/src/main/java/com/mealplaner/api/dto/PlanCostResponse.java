@@ -0,0 +1,130 @@
+package com.mealplaner.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PlanCostResponse {
+  private String start;
+  private String end;
+  private double totalCost;
+  private int missingCount;
+  private List<DayCost> days = new ArrayList<>();
+
+  public String getStart() {
+    return start;
+  }
+
+  public void setStart(String start) {
+    this.start = start;
+  }
+
+  public String getEnd() {
+    return end;
+  }
+
+  public void setEnd(String end) {
+    this.end = end;
+  }
+
+  public double getTotalCost() {
+    return totalCost;
+  }
+
+  public void setTotalCost(double totalCost) {
+    this.totalCost = totalCost;
+  }
+
+  public int getMissingCount() {
+    return missingCount;
+  }
+
+  public void setMissingCount(int missingCount) {
+    this.missingCount = missingCount;
+  }
+
+  public List<DayCost> getDays() {
+    return days;
+  }
+
+  public void setDays(List<DayCost> days) {
+    this.days = days;
+  }
+
+  public static class DayCost {
+    private String date;
+    private double totalCost;
+    private List<SlotCost> slots = new ArrayList<>();
+
+    public String getDate() {
+      return date;
+    }
+
+    public void setDate(String date) {
+      this.date = date;
+    }
+
+    public double getTotalCost() {
+      return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+      this.totalCost = totalCost;
+    }
+
+    public List<SlotCost> getSlots() {
+      return slots;
+    }
+
+    public void setSlots(List<SlotCost> slots) {
+      this.slots = slots;
+    }
+  }
+
+  public static class SlotCost {
+    private String slot;
+    private String dishId;
+    private String name;
+    private double cost;
+    private List<DishCostAnalyticsResponse.MissingIngredient> missingIngredients = new ArrayList<>();
+
+    public String getSlot() {
+      return slot;
+    }
+
+    public void setSlot(String slot) {
+      this.slot = slot;
+    }
+
+    public String getDishId() {
+      return dishId;
+    }
+
+    public void setDishId(String dishId) {
+      this.dishId = dishId;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public double getCost() {
+      return cost;
+    }
+
+    public void setCost(double cost) {
+      this.cost = cost;
+    }
+
+    public List<DishCostAnalyticsResponse.MissingIngredient> getMissingIngredients() {
+      return missingIngredients;
+    }
+
+    public void setMissingIngredients(List<DishCostAnalyticsResponse.MissingIngredient> missingIngredients) {
+      this.missingIngredients = missingIngredients;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.mealplaner.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PlanDayMergeResult {
+  private boolean dryRun;
+  private int duplicateDays;
+  private int removedPlans;
+  private List<String> removedIds = new ArrayList<>();
+  private List<SlotConflict> conflicts = new ArrayList<>();
+
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+  public void setDryRun(boolean dryRun) {
+    this.dryRun = dryRun;
+  }
+
+  public int getDuplicateDays() {
+    return duplicateDays;
+  }
+
+  public void setDuplicateDays(int duplicateDays) {
+    this.duplicateDays = duplicateDays;
+  }
+
+  public int getRemovedPlans() {
+    return removedPlans;
+  }
+
+  public void setRemovedPlans(int removedPlans) {
+    this.removedPlans = removedPlans;
+  }
+
+  public List<String> getRemovedIds() {
+    return removedIds;
+  }
+
+  public void setRemovedIds(List<String> removedIds) {
+    this.removedIds = removedIds;
+  }
+
+  public List<SlotConflict> getConflicts() {
+    return conflicts;
+  }
+
+  public void setConflicts(List<SlotConflict> conflicts) {
+    this.conflicts = conflicts;
+  }
+
+  public static class SlotConflict {
+    private String userId;
+    private String dateISO;
+    private String slot;
+    private String keptId;
+    private String kept;
+    private String droppedId;
+    private String dropped;
+
+    public String getUserId() {
+      return userId;
+    }
+
+    public void setUserId(String userId) {
+      this.userId = userId;
+    }
+
+    public String getDateISO() {
+      return dateISO;
+    }
+
+    public void setDateISO(String dateISO) {
+      this.dateISO = dateISO;
+    }
+
+    public String getSlot() {
+      return slot;
+    }
+
+    public void setSlot(String slot) {
+      this.slot = slot;
+    }
+
+    public String getKeptId() {
+      return keptId;
+    }
+
+    public void setKeptId(String keptId) {
+      this.keptId = keptId;
+    }
+
+    public String getKept() {
+      return kept;
+    }
+
+    public void setKept(String kept) {
+      this.kept = kept;
+    }
+
+    public String getDroppedId() {
+      return droppedId;
+    }
+
+    public void setDroppedId(String droppedId) {
+      this.droppedId = droppedId;
+    }
+
+    public String getDropped() {
+      return dropped;
+    }
+
+    public void setDropped(String dropped) {
+      this.dropped = dropped;
+    }
+  }
+}
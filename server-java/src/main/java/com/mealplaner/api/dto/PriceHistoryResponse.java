@@ -0,0 +1,65 @@
+package com.mealplaner.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PriceHistoryResponse {
+  private String ingredientKey;
+  private String baseUnit;
+  private int totalPoints;
+  private List<PricePoint> points = new ArrayList<>();
+
+  public String getIngredientKey() {
+    return ingredientKey;
+  }
+
+  public void setIngredientKey(String ingredientKey) {
+    this.ingredientKey = ingredientKey;
+  }
+
+  public String getBaseUnit() {
+    return baseUnit;
+  }
+
+  public void setBaseUnit(String baseUnit) {
+    this.baseUnit = baseUnit;
+  }
+
+  public int getTotalPoints() {
+    return totalPoints;
+  }
+
+  public void setTotalPoints(int totalPoints) {
+    this.totalPoints = totalPoints;
+  }
+
+  public List<PricePoint> getPoints() {
+    return points;
+  }
+
+  public void setPoints(List<PricePoint> points) {
+    this.points = points;
+  }
+
+  public static class PricePoint {
+    private LocalDateTime purchasedAt;
+    private double pricePerUnit;
+
+    public LocalDateTime getPurchasedAt() {
+      return purchasedAt;
+    }
+
+    public void setPurchasedAt(LocalDateTime purchasedAt) {
+      this.purchasedAt = purchasedAt;
+    }
+
+    public double getPricePerUnit() {
+      return pricePerUnit;
+    }
+
+    public void setPricePerUnit(double pricePerUnit) {
+      this.pricePerUnit = pricePerUnit;
+    }
+  }
+}
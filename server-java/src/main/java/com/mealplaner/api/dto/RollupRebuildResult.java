@@ -0,0 +1,22 @@
+package com.mealplaner.api.dto;
+
+public class RollupRebuildResult {
+  private String userId;
+  private int rows;
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+}
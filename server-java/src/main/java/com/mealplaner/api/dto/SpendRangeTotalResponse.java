@@ -0,0 +1,49 @@
+package com.mealplaner.api.dto;
+
+public class SpendRangeTotalResponse {
+  private String start;
+  private String end;
+  private double total;
+  private long purchaseCount;
+  private int daysWithPurchases;
+
+  public String getStart() {
+    return start;
+  }
+
+  public void setStart(String start) {
+    this.start = start;
+  }
+
+  public String getEnd() {
+    return end;
+  }
+
+  public void setEnd(String end) {
+    this.end = end;
+  }
+
+  public double getTotal() {
+    return total;
+  }
+
+  public void setTotal(double total) {
+    this.total = total;
+  }
+
+  public long getPurchaseCount() {
+    return purchaseCount;
+  }
+
+  public void setPurchaseCount(long purchaseCount) {
+    this.purchaseCount = purchaseCount;
+  }
+
+  public int getDaysWithPurchases() {
+    return daysWithPurchases;
+  }
+
+  public void setDaysWithPurchases(int daysWithPurchases) {
+    this.daysWithPurchases = daysWithPurchases;
+  }
+}
@@ -9,6 +9,7 @@ public class SpendingAnalyticsResponse {
   private int purchaseCount;
   private SpendingStats totals;
   private SpendingStats allTime;
+  private String granularity = "day";
   private List<DailyTotal> dailyTotals = new ArrayList<>();
   private List<TopSpender> topSpenders = new ArrayList<>();
   private NutritionStats nutrition;
@@ -54,6 +55,14 @@ public class SpendingAnalyticsResponse {
     this.allTime = allTime;
   }
 
+  public String getGranularity() {
+    return granularity;
+  }
+
+  public void setGranularity(String granularity) {
+    this.granularity = granularity;
+  }
+
   public List<DailyTotal> getDailyTotals() {
     return dailyTotals;
   }
@@ -116,6 +125,8 @@ public class SpendingAnalyticsResponse {
     private String normalizedUnit;
     private Double totalNormalizedQuantity;
     private Double averageUnitPrice;
+    private PercentileSummary dailyPercentiles;
+    private PercentileSummary purchasePercentiles;
 
     public double getTotalSpent() {
       return totalSpent;
@@ -180,6 +191,52 @@ public class SpendingAnalyticsResponse {
     public void setAverageUnitPrice(Double averageUnitPrice) {
       this.averageUnitPrice = averageUnitPrice;
     }
+
+    public PercentileSummary getDailyPercentiles() {
+      return dailyPercentiles;
+    }
+
+    public void setDailyPercentiles(PercentileSummary dailyPercentiles) {
+      this.dailyPercentiles = dailyPercentiles;
+    }
+
+    public PercentileSummary getPurchasePercentiles() {
+      return purchasePercentiles;
+    }
+
+    public void setPurchasePercentiles(PercentileSummary purchasePercentiles) {
+      this.purchasePercentiles = purchasePercentiles;
+    }
+  }
+
+  public static class PercentileSummary {
+    private double p50;
+    private double p90;
+    private double p99;
+
+    public double getP50() {
+      return p50;
+    }
+
+    public void setP50(double p50) {
+      this.p50 = p50;
+    }
+
+    public double getP90() {
+      return p90;
+    }
+
+    public void setP90(double p90) {
+      this.p90 = p90;
+    }
+
+    public double getP99() {
+      return p99;
+    }
+
+    public void setP99(double p99) {
+      this.p99 = p99;
+    }
   }
 
   public static class DailyTotal {
@@ -0,0 +1,9 @@
+package com.mealplaner.calorie;
+
+import java.util.List;
+
+public record CalorieChangedEvent(String userId, List<String> ingredientKeys) {
+  public CalorieChangedEvent(String userId) {
+    this(userId, null);
+  }
+}
@@ -0,0 +1,95 @@
+package com.mealplaner.calorie;
+
+import com.mealplaner.util.UnitConverter;
+import com.mealplaner.util.Units;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CalorieDensity {
+  static final Comparator<CalorieDocument> ORDER = Comparator
+      .comparing(CalorieDocument::getIngredientName, String.CASE_INSENSITIVE_ORDER)
+      .thenComparing(CalorieDocument::getUnit)
+      .thenComparingDouble(CalorieDocument::getAmount);
+
+  private static final int DIMENSIONS = 3;
+  private static final int UNITS = Units.MEASUREMENT_UNITS.size();
+
+  private final double[] primary = filled(DIMENSIONS);
+  private final double[] byUnit = filled(UNITS);
+  private final double[] unitAmount = new double[UNITS];
+
+  private CalorieDensity() {
+  }
+
+  public static Map<String, CalorieDensity> index(List<CalorieDocument> entries) {
+    Map<String, List<CalorieDocument>> grouped = new HashMap<>();
+    for (CalorieDocument entry : entries) {
+      grouped.computeIfAbsent(normalizeKey(entry.getIngredientKey()), ignore -> new ArrayList<>()).add(entry);
+    }
+    Map<String, CalorieDensity> result = new HashMap<>(grouped.size() * 2);
+    grouped.forEach((key, group) -> result.put(key, of(group)));
+    return result;
+  }
+
+  public static CalorieDensity of(List<CalorieDocument> entries) {
+    CalorieDensity density = new CalorieDensity();
+    for (CalorieDocument entry : entries) {
+      if (entry.getAmount() <= 0) {
+        continue;
+      }
+      int code = UnitConverter.code(entry.getUnit());
+      int sanitized = code == UnitConverter.UNKNOWN ? UnitConverter.G : code;
+      if (UnitConverter.dimension(sanitized) == UnitConverter.UNKNOWN) {
+        continue;
+      }
+      double perBase = entry.getCalories() / UnitConverter.toBase(entry.getAmount(), sanitized);
+      if (Double.isNaN(density.byUnit[sanitized]) || entry.getAmount() > density.unitAmount[sanitized]) {
+        density.byUnit[sanitized] = perBase;
+        density.unitAmount[sanitized] = entry.getAmount();
+      }
+    }
+    List<CalorieDocument> ordered = new ArrayList<>(entries);
+    ordered.sort(ORDER);
+    for (CalorieDocument entry : ordered) {
+      int code = UnitConverter.code(entry.getUnit());
+      int dimension = UnitConverter.dimension(code);
+      if (entry.getAmount() <= 0 || dimension == UnitConverter.UNKNOWN) {
+        continue;
+      }
+      double perBase = entry.getCalories() / UnitConverter.toBase(entry.getAmount(), code);
+      if (Double.isNaN(density.primary[dimension]) && Double.isFinite(perBase)) {
+        density.primary[dimension] = perBase;
+      }
+    }
+    return density;
+  }
+
+  public double caloriesFor(double amount, int unitCode) {
+    int dimension = UnitConverter.dimension(unitCode);
+    if (dimension == UnitConverter.UNKNOWN) {
+      return Double.NaN;
+    }
+    return UnitConverter.toBase(amount, unitCode) * primary[dimension];
+  }
+
+  public double caloriesForDish(double amount, int unitCode) {
+    if (UnitConverter.dimension(unitCode) == UnitConverter.UNKNOWN) {
+      return Double.NaN;
+    }
+    return UnitConverter.toBase(amount, unitCode) * byUnit[unitCode];
+  }
+
+  static String normalizeKey(String key) {
+    return key == null ? "" : key.trim().toLowerCase();
+  }
+
+  private static double[] filled(int size) {
+    double[] values = new double[size];
+    Arrays.fill(values, Double.NaN);
+    return values;
+  }
+}
@@ -0,0 +1,119 @@
+package com.mealplaner.calorie;
+
+import com.mealplaner.config.AppProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CalorieDensityService {
+  private final CalorieRepository repository;
+  private final AppProperties properties;
+  private final LinkedHashMap<String, Map<String, CalorieDensity>> indexes = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Integer> loading = new HashMap<>();
+  private final Set<String> changedWhileLoading = new HashSet<>();
+
+  public CalorieDensityService(CalorieRepository repository, AppProperties properties) {
+    this.repository = repository;
+    this.properties = properties;
+  }
+
+  public Map<String, CalorieDensity> forUser(String userId) {
+    synchronized (this) {
+      Map<String, CalorieDensity> cached = indexes.get(userId);
+      if (cached != null) {
+        return cached;
+      }
+      loading.merge(userId, 1, Integer::sum);
+    }
+    Map<String, CalorieDensity> loaded = null;
+    try {
+      loaded = Map.copyOf(CalorieDensity.index(repository.findByUserId(userId)));
+      return loaded;
+    } finally {
+      finishLoading(userId, loaded);
+    }
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onCalorieChanged(CalorieChangedEvent event) {
+    String userId = event.userId();
+    while (true) {
+      Map<String, CalorieDensity> current;
+      synchronized (this) {
+        if (loading.containsKey(userId)) {
+          changedWhileLoading.add(userId);
+        }
+        current = indexes.get(userId);
+        if (current == null) {
+          return;
+        }
+        if (event.ingredientKeys() == null) {
+          indexes.remove(userId);
+          return;
+        }
+      }
+      Map<String, CalorieDensity> updated = refresh(userId, current, event.ingredientKeys());
+      synchronized (this) {
+        if (indexes.get(userId) == current) {
+          indexes.put(userId, updated);
+          return;
+        }
+      }
+    }
+  }
+
+  private synchronized void finishLoading(String userId, Map<String, CalorieDensity> loaded) {
+    boolean changed = changedWhileLoading.contains(userId);
+    if (loading.merge(userId, -1, Integer::sum) == 0) {
+      loading.remove(userId);
+      changedWhileLoading.remove(userId);
+    }
+    if (loaded == null || changed || indexes.containsKey(userId)) {
+      return;
+    }
+    indexes.put(userId, loaded);
+    int maxUsers = properties.getAnalytics().getCalorieIndexMaxUsers();
+    Iterator<Map.Entry<String, Map<String, CalorieDensity>>> iterator = indexes.entrySet().iterator();
+    while (indexes.size() > maxUsers && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Rebuilds the changed keys from all of the user's entries. Stored keys differ from the event's in
+   * case and whitespace ("OATS__g", " oats__g"), so entries are matched by normalized key, not queried
+   * by the raw one.
+   */
+  private Map<String, CalorieDensity> refresh(
+      String userId,
+      Map<String, CalorieDensity> current,
+      List<String> ingredientKeys
+  ) {
+    Set<String> normalized = new HashSet<>();
+    for (String key : ingredientKeys) {
+      normalized.add(CalorieDensity.normalizeKey(key));
+    }
+    List<CalorieDocument> entries = new ArrayList<>();
+    for (CalorieDocument entry : repository.findByUserId(userId)) {
+      if (normalized.contains(CalorieDensity.normalizeKey(entry.getIngredientKey()))) {
+        entries.add(entry);
+      }
+    }
+    Map<String, CalorieDensity> updated = new HashMap<>(current);
+    normalized.forEach(updated::remove);
+    updated.putAll(CalorieDensity.index(entries));
+    return Map.copyOf(updated);
+  }
+}
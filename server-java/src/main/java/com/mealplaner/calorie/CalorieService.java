@@ -2,28 +2,38 @@ package com.mealplaner.calorie;
 
 import com.mealplaner.ingredient.IngredientDocument;
 import com.mealplaner.ingredient.IngredientRepository;
+import com.mealplaner.migration.MigrationService;
 import com.mealplaner.util.Units;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CalorieService {
   private final CalorieRepository repository;
   private final IngredientRepository ingredientRepository;
+  private final MigrationService migrationService;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public CalorieService(CalorieRepository repository, IngredientRepository ingredientRepository) {
+  public CalorieService(
+      CalorieRepository repository,
+      IngredientRepository ingredientRepository,
+      MigrationService migrationService,
+      ApplicationEventPublisher eventPublisher
+  ) {
     this.repository = repository;
     this.ingredientRepository = ingredientRepository;
+    this.migrationService = migrationService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<CalorieDocument> listAll(String userId) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     return repository.findByUserId(userId).stream()
-        .sorted(Comparator.comparing(CalorieDocument::getIngredientName, String.CASE_INSENSITIVE_ORDER)
-            .thenComparing(CalorieDocument::getUnit)
-            .thenComparingDouble(CalorieDocument::getAmount))
+        .sorted(CalorieDensity.ORDER)
         .toList();
   }
 
@@ -53,7 +63,9 @@ public class CalorieService {
     doc.setAmount(amount);
     doc.setUnit(safeUnit);
     doc.setCalories(calories);
-    return repository.save(doc);
+    CalorieDocument saved = repository.save(doc);
+    eventPublisher.publishEvent(new CalorieChangedEvent(userId, List.of(ingredientKey)));
+    return saved;
   }
 
   public CalorieDocument update(
@@ -64,6 +76,7 @@ public class CalorieService {
       String unit,
       Double calories
   ) {
+    String previousKey = existing.getIngredientKey();
     String targetKey = ingredientKey == null ? existing.getIngredientKey() : ingredientKey.trim();
     IngredientDocument ingredient = null;
     if (ingredientKey != null) {
@@ -96,17 +109,11 @@ public class CalorieService {
     if (duplicate.isPresent() && !duplicate.get().getId().equals(existing.getId())) {
       throw new IllegalStateException("Calorie entry already exists");
     }
-    return repository.save(existing);
-  }
-
-  private void claimUnowned(String userId) {
-    List<CalorieDocument> legacy = repository.findByUserIdIsNull();
-    if (legacy.isEmpty()) {
-      return;
-    }
-    for (CalorieDocument doc : legacy) {
-      doc.setUserId(userId);
-    }
-    repository.saveAll(legacy);
+    CalorieDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new CalorieChangedEvent(
+        userId,
+        Stream.of(previousKey, saved.getIngredientKey()).filter(Objects::nonNull).distinct().toList()
+    ));
+    return saved;
   }
 }
@@ -6,6 +6,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class AppProperties {
   private final Jwt jwt = new Jwt();
   private final Admin admin = new Admin();
+  private final Analytics analytics = new Analytics();
+  private final Events events = new Events();
+  private final Shopping shopping = new Shopping();
 
   public Jwt getJwt() {
     return jwt;
@@ -15,6 +18,18 @@ public class AppProperties {
     return admin;
   }
 
+  public Analytics getAnalytics() {
+    return analytics;
+  }
+
+  public Events getEvents() {
+    return events;
+  }
+
+  public Shopping getShopping() {
+    return shopping;
+  }
+
   public static class Jwt {
     private String secret;
     private String algorithm = "HS256";
@@ -65,4 +80,175 @@ public class AppProperties {
       this.initialPassword = initialPassword;
     }
   }
+
+  public static class Analytics {
+    private String mode = "memory";
+    private long columnarMaxRows = 2_000_000;
+    private int rangeIndexMaxUsers = 10_000;
+    private int calorieIndexMaxUsers = 10_000;
+    private long snapshotDebounceMillis = 2000;
+    private int snapshotMaxEntries = 10_000;
+    private int snapshotRefreshPerUser = 8;
+    private int parallelDishThreshold = 256;
+    private int dishCostingParallelism = Runtime.getRuntime().availableProcessors();
+
+    public String getMode() {
+      return mode;
+    }
+
+    public void setMode(String mode) {
+      this.mode = mode;
+    }
+
+    public long getColumnarMaxRows() {
+      return columnarMaxRows;
+    }
+
+    public void setColumnarMaxRows(long columnarMaxRows) {
+      this.columnarMaxRows = columnarMaxRows;
+    }
+
+    public int getRangeIndexMaxUsers() {
+      return rangeIndexMaxUsers;
+    }
+
+    public void setRangeIndexMaxUsers(int rangeIndexMaxUsers) {
+      this.rangeIndexMaxUsers = rangeIndexMaxUsers;
+    }
+
+    public int getCalorieIndexMaxUsers() {
+      return calorieIndexMaxUsers;
+    }
+
+    public void setCalorieIndexMaxUsers(int calorieIndexMaxUsers) {
+      this.calorieIndexMaxUsers = calorieIndexMaxUsers;
+    }
+
+    public long getSnapshotDebounceMillis() {
+      return snapshotDebounceMillis;
+    }
+
+    public void setSnapshotDebounceMillis(long snapshotDebounceMillis) {
+      this.snapshotDebounceMillis = snapshotDebounceMillis;
+    }
+
+    public int getSnapshotMaxEntries() {
+      return snapshotMaxEntries;
+    }
+
+    public void setSnapshotMaxEntries(int snapshotMaxEntries) {
+      this.snapshotMaxEntries = snapshotMaxEntries;
+    }
+
+    public int getSnapshotRefreshPerUser() {
+      return snapshotRefreshPerUser;
+    }
+
+    public void setSnapshotRefreshPerUser(int snapshotRefreshPerUser) {
+      this.snapshotRefreshPerUser = snapshotRefreshPerUser;
+    }
+
+    public int getParallelDishThreshold() {
+      return parallelDishThreshold;
+    }
+
+    public void setParallelDishThreshold(int parallelDishThreshold) {
+      this.parallelDishThreshold = parallelDishThreshold;
+    }
+
+    public int getDishCostingParallelism() {
+      return dishCostingParallelism;
+    }
+
+    public void setDishCostingParallelism(int dishCostingParallelism) {
+      this.dishCostingParallelism = dishCostingParallelism;
+    }
+  }
+
+  public static class Events {
+    private long sourceTimeoutMillis = 2000;
+    private long streamHeartbeatMillis = 15_000;
+    private long streamTimeoutMillis = 1_800_000;
+    private int streamBufferSize = 256;
+    private int feedMaxUsers = 10_000;
+    private int feedRerankActiveDays = 2;
+
+    public long getSourceTimeoutMillis() {
+      return sourceTimeoutMillis;
+    }
+
+    public void setSourceTimeoutMillis(long sourceTimeoutMillis) {
+      this.sourceTimeoutMillis = sourceTimeoutMillis;
+    }
+
+    public long getStreamHeartbeatMillis() {
+      return streamHeartbeatMillis;
+    }
+
+    public void setStreamHeartbeatMillis(long streamHeartbeatMillis) {
+      this.streamHeartbeatMillis = streamHeartbeatMillis;
+    }
+
+    public long getStreamTimeoutMillis() {
+      return streamTimeoutMillis;
+    }
+
+    public void setStreamTimeoutMillis(long streamTimeoutMillis) {
+      this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    public int getStreamBufferSize() {
+      return streamBufferSize;
+    }
+
+    public void setStreamBufferSize(int streamBufferSize) {
+      this.streamBufferSize = streamBufferSize;
+    }
+
+    public int getFeedMaxUsers() {
+      return feedMaxUsers;
+    }
+
+    public void setFeedMaxUsers(int feedMaxUsers) {
+      this.feedMaxUsers = feedMaxUsers;
+    }
+
+    public int getFeedRerankActiveDays() {
+      return feedRerankActiveDays;
+    }
+
+    public void setFeedRerankActiveDays(int feedRerankActiveDays) {
+      this.feedRerankActiveDays = feedRerankActiveDays;
+    }
+  }
+
+  public static class Shopping {
+    private int aggregateMaxUsers = 10_000;
+    private long verifyIntervalMillis = 600_000;
+    private int verifySampleSize = 50;
+
+    public int getAggregateMaxUsers() {
+      return aggregateMaxUsers;
+    }
+
+    public void setAggregateMaxUsers(int aggregateMaxUsers) {
+      this.aggregateMaxUsers = aggregateMaxUsers;
+    }
+
+    public long getVerifyIntervalMillis() {
+      return verifyIntervalMillis;
+    }
+
+    public void setVerifyIntervalMillis(long verifyIntervalMillis) {
+      this.verifyIntervalMillis = verifyIntervalMillis;
+    }
+
+    public int getVerifySampleSize() {
+      return verifySampleSize;
+    }
+
+    public void setVerifySampleSize(int verifySampleSize) {
+      this.verifySampleSize = verifySampleSize;
+    }
+  }
 }
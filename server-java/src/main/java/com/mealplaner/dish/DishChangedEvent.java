@@ -0,0 +1,7 @@
+package com.mealplaner.dish;
+
+public record DishChangedEvent(String userId, String dishId) {
+  public DishChangedEvent(String userId) {
+    this(userId, null);
+  }
+}
@@ -1,39 +1,51 @@
 package com.mealplaner.dish;
 
-import com.mealplaner.calorie.CalorieDocument;
-import com.mealplaner.calorie.CalorieRepository;
+import com.mealplaner.calorie.CalorieDensity;
+import com.mealplaner.calorie.CalorieDensityService;
 import com.mealplaner.ingredient.IngredientService;
+import com.mealplaner.migration.MigrationService;
 import com.mealplaner.util.IngredientKey;
+import com.mealplaner.util.UnitConverter;
 import com.mealplaner.util.Units;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DishService {
   private final DishRepository repository;
   private final IngredientService ingredientService;
-  private final CalorieRepository calorieRepository;
+  private final CalorieDensityService densityService;
+  private final MigrationService migrationService;
+  private final ApplicationEventPublisher eventPublisher;
 
   public DishService(
       DishRepository repository,
       IngredientService ingredientService,
-      CalorieRepository calorieRepository
+      CalorieDensityService densityService,
+      MigrationService migrationService,
+      ApplicationEventPublisher eventPublisher
   ) {
     this.repository = repository;
     this.ingredientService = ingredientService;
-    this.calorieRepository = calorieRepository;
+    this.densityService = densityService;
+    this.migrationService = migrationService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<DishDocument> listDishes(String userId) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     return new ArrayList<>(repository.findByUserIdOrderByIdAsc(userId));
   }
 
+  public List<DishDocument> listDishesByIds(String userId, Collection<String> ids) {
+    migrationService.claimLegacy(userId);
+    return repository.findByUserIdAndIdIn(userId, ids);
+  }
+
   public DishDocument upsertDish(String userId, DishDocument dish) {
     DishDocument existing = findOwned(userId, dish.getId());
     if (existing == null && dish.getId() != null && !dish.getId().isBlank()) {
@@ -51,6 +63,7 @@ public class DishService {
     dish.setCalories(computeCalories(userId, dish.getIngredients()));
     DishDocument saved = repository.save(dish);
     ingredientService.ensureIngredientEntries(userId, saved.getIngredients());
+    eventPublisher.publishEvent(new DishChangedEvent(userId, saved.getId()));
     return saved;
   }
 
@@ -71,7 +84,9 @@ public class DishService {
       existing.setCalories(computeCalories(userId, normalized));
       ingredientService.ensureIngredientEntries(userId, normalized);
     }
-    return repository.save(existing);
+    DishDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new DishChangedEvent(userId, saved.getId()));
+    return saved;
   }
 
   public void deleteDish(String userId, String id) {
@@ -80,6 +95,7 @@ public class DishService {
       throw new IllegalStateException("Dish not found");
     }
     repository.deleteById(existing.getId());
+    eventPublisher.publishEvent(new DishChangedEvent(userId, existing.getId()));
   }
 
   private List<DishIngredient> normalizeIngredients(List<DishIngredient> raw) {
@@ -109,43 +125,30 @@ public class DishService {
     if (ingredients == null || ingredients.isEmpty()) {
       return 0.0;
     }
-    List<String> keys = ingredients.stream()
-        .map(this::resolveIngredientKey)
-        .filter(key -> key != null && !key.isBlank())
-        .distinct()
-        .toList();
-    List<CalorieDocument> entries = calorieRepository.findAllByUserIdAndIngredientKeyIn(userId, keys);
-    Map<String, List<CalorieDocument>> mapping = new HashMap<>();
-    for (CalorieDocument doc : entries) {
-      String key = doc.getIngredientKey() + "::" + Units.sanitize(doc.getUnit());
-      mapping.computeIfAbsent(key, ignore -> new ArrayList<>()).add(doc);
-    }
-
+    Map<String, CalorieDensity> densities = densityService.forUser(userId);
     double total = 0.0;
     for (DishIngredient ingredient : ingredients) {
       String key = resolveIngredientKey(ingredient);
       if (key == null || key.isBlank()) {
         continue;
       }
-      List<CalorieDocument> candidates = mapping.get(key + "::" + Units.sanitize(ingredient.getUnit()));
-      if (candidates == null || candidates.isEmpty()) {
-        continue;
-      }
-      Optional<CalorieDocument> best = candidates.stream()
-          .filter(entry -> entry.getAmount() > 0)
-          .max(Comparator.comparingDouble(CalorieDocument::getAmount));
-      if (best.isEmpty()) {
+      CalorieDensity density = densities.get(key);
+      if (density == null) {
         continue;
       }
-      CalorieDocument entry = best.get();
-      if (entry.getAmount() <= 0) {
-        continue;
+      double calories = density.caloriesForDish(ingredient.getQty(), sanitizedUnitCode(ingredient.getUnit()));
+      if (!Double.isNaN(calories)) {
+        total += calories;
       }
-      total += (ingredient.getQty() / entry.getAmount()) * entry.getCalories();
     }
     return total;
   }
 
+  private int sanitizedUnitCode(String unit) {
+    int code = UnitConverter.code(unit);
+    return code == UnitConverter.UNKNOWN ? UnitConverter.G : code;
+  }
+
   private String resolveIngredientKey(DishIngredient ingredient) {
     if (ingredient == null) {
       return null;
@@ -186,15 +189,4 @@ public class DishService {
     legacy.setUserId(userId);
     return repository.save(legacy);
   }
-
-  private void claimUnowned(String userId) {
-    List<DishDocument> legacy = repository.findByUserIdIsNull();
-    if (legacy.isEmpty()) {
-      return;
-    }
-    for (DishDocument dish : legacy) {
-      dish.setUserId(userId);
-    }
-    repository.saveAll(legacy);
-  }
 }
@@ -0,0 +1,287 @@
+package com.mealplaner.events;
+
+import com.mealplaner.api.dto.EventEntry;
+import com.mealplaner.api.dto.ShoppingListItem;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.inventory.PetFoodItemDocument;
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchasePriceSummary;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+final class EventBuilder {
+  static final int EXPIRY_LOOKAHEAD_DAYS = 60;
+  static final int PURCHASE_WINDOW_DAYS = 30;
+  static final int MAX_CRITICAL_EVENTS = 5;
+  static final int MAX_PURCHASE_EVENTS = 5;
+  static final Comparator<EventEntry> ORDER = (left, right) -> {
+    int priorityCompare = Integer.compare(priorityScore(right.getPriority()), priorityScore(left.getPriority()));
+    if (priorityCompare != 0) {
+      return priorityCompare;
+    }
+    return Long.compare(sortTimestamp(left), sortTimestamp(right));
+  };
+
+  private EventBuilder() {
+  }
+
+  record Clock(LocalDate today, LocalDateTime now) {
+    static Clock current() {
+      return new Clock(LocalDate.now(ZoneOffset.UTC), LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    LocalDate expiryMin() {
+      return today.minusDays(1);
+    }
+
+    LocalDate expiryMax() {
+      return today.plusDays(EXPIRY_LOOKAHEAD_DAYS);
+    }
+
+    Instant expiringFrom() {
+      return expiryMin().atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    Instant expiringUntil() {
+      return expiryMax().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    LocalDate purchaseStart() {
+      return today.minusDays(PURCHASE_WINDOW_DAYS);
+    }
+
+    LocalDate shoppingEnd(int lookaheadDays) {
+      return today.plusDays(lookaheadDays - 1);
+    }
+  }
+
+  static List<EventEntry> inventoryEvents(List<InventoryItemDocument> items, Clock clock) {
+    List<EventEntry> events = new ArrayList<>();
+    for (InventoryItemDocument item : items) {
+      String title = resolveInventoryTitle(item);
+      EventEntry expiry = expiryEvent("expiry-inventory-" + item.getId(), title, item.getExpiresAt(), clock);
+      if (expiry != null) {
+        events.add(expiry);
+      }
+
+      Double minQty = item.getMinQty();
+      if (minQty != null && item.getQuantity() < minQty) {
+        double deficit = minQty - item.getQuantity();
+        EventEntry event = baseEvent(
+            "restock-inventory-" + item.getId(),
+            "restock",
+            restockPriority(item.getQuantity(), minQty),
+            title,
+            clock.now()
+        );
+        event.setAmount(deficit);
+        event.setUnit(item.getUnit());
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  static List<EventEntry> petEvents(List<PetFoodItemDocument> items, Clock clock) {
+    List<EventEntry> events = new ArrayList<>();
+    for (PetFoodItemDocument item : items) {
+      String title = resolvePetTitle(item);
+      EventEntry expiry = expiryEvent("expiry-pet-" + item.getId(), title, item.getExpiresAt(), clock);
+      if (expiry != null) {
+        events.add(expiry);
+      }
+
+      Double minQty = item.getMinQty();
+      if (minQty != null && item.getQuantity() < minQty) {
+        double deficit = minQty - item.getQuantity();
+        EventEntry event = baseEvent(
+            "restock-pet-" + item.getId(),
+            "restock",
+            restockPriority(item.getQuantity(), minQty),
+            title,
+            clock.now()
+        );
+        event.setAmount(deficit);
+        event.setUnit("pcs");
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  static List<EventEntry> shoppingEvents(List<ShoppingListItem> shoppingList, Clock clock) {
+    List<EventEntry> events = new ArrayList<>();
+    shoppingList.stream()
+        .filter(item -> item.getToBuyQty() > 0)
+        .sorted(Comparator.comparingDouble(ShoppingListItem::getToBuyQty).reversed())
+        .limit(MAX_CRITICAL_EVENTS)
+        .forEach(item -> {
+          EventEntry event = baseEvent(
+              "critical-" + (item.getIngredientKey() == null ? item.getName() : item.getIngredientKey()),
+              "critical",
+              criticalPriority(item),
+              item.getName(),
+              clock.now()
+          );
+          event.setAmount(item.getToBuyQty());
+          event.setUnit(item.getUnit());
+          events.add(event);
+        });
+    return events;
+  }
+
+  static List<EventEntry> purchaseEvents(PurchasePriceSummary summary) {
+    List<EventEntry> events = new ArrayList<>();
+    for (PurchaseDocument purchase : summary.top()) {
+      EventEntry event = baseEvent(
+          "purchase-" + purchase.getId(),
+          "purchase",
+          purchasePriority(purchase.getPrice(), summary.averagePrice()),
+          resolvePurchaseTitle(purchase),
+          toLocalDateTime(purchase.getPurchasedAt())
+      );
+      event.setAmount(purchase.getAmount());
+      event.setUnit(purchase.getUnit());
+      event.setPrice(purchase.getPrice());
+      events.add(event);
+    }
+    return events;
+  }
+
+  static int priorityScore(String priority) {
+    if ("critical".equals(priority)) {
+      return 4;
+    }
+    if ("high".equals(priority)) {
+      return 3;
+    }
+    if ("medium".equals(priority)) {
+      return 2;
+    }
+    return 1;
+  }
+
+  static long sortTimestamp(EventEntry event) {
+    LocalDateTime date = event.getDate();
+    if (date == null) {
+      return 0L;
+    }
+    long epoch = date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    if ("purchase".equals(event.getKind())) {
+      return -epoch;
+    }
+    return epoch;
+  }
+
+  private static EventEntry expiryEvent(String id, String title, Instant expiresAt, Clock clock) {
+    if (expiresAt == null) {
+      return null;
+    }
+    LocalDate expiryDate = expiresAt.atZone(ZoneOffset.UTC).toLocalDate();
+    if (expiryDate.isBefore(clock.expiryMin()) || expiryDate.isAfter(clock.expiryMax())) {
+      return null;
+    }
+    return baseEvent(id, "expiry", expiryPriority(clock.today(), expiryDate), title, toLocalDateTime(expiresAt));
+  }
+
+  private static EventEntry baseEvent(String id, String kind, String priority, String title, LocalDateTime date) {
+    EventEntry entry = new EventEntry();
+    entry.setId(id);
+    entry.setKind(kind);
+    entry.setPriority(priority);
+    entry.setTitle(title);
+    entry.setDate(date);
+    return entry;
+  }
+
+  private static String resolveInventoryTitle(InventoryItemDocument item) {
+    String name = item.getName();
+    if (name != null && !name.trim().isEmpty()) {
+      return name.trim();
+    }
+    String key = item.getIngredientKey();
+    if (key != null && !key.trim().isEmpty()) {
+      return key.trim();
+    }
+    return "Item";
+  }
+
+  private static String resolvePetTitle(PetFoodItemDocument item) {
+    String manufacturer = item.getManufacturer() == null ? "" : item.getManufacturer().trim();
+    String product = item.getProductName() == null ? "" : item.getProductName().trim();
+    String combined = (manufacturer + " " + product).trim();
+    return combined.isEmpty() ? "Pet item" : combined;
+  }
+
+  private static String resolvePurchaseTitle(PurchaseDocument purchase) {
+    String name = purchase.getIngredientName();
+    if (name != null && !name.trim().isEmpty()) {
+      return name.trim();
+    }
+    String key = purchase.getIngredientKey();
+    if (key != null && !key.trim().isEmpty()) {
+      return key.trim();
+    }
+    return "Purchase";
+  }
+
+  private static String expiryPriority(LocalDate today, LocalDate expiryDate) {
+    long days = ChronoUnit.DAYS.between(today, expiryDate);
+    if (days < 0) {
+      return "critical";
+    }
+    if (days <= 7) {
+      return "high";
+    }
+    if (days <= 14) {
+      return "medium";
+    }
+    return "low";
+  }
+
+  private static String restockPriority(double quantity, double minQty) {
+    if (quantity <= 0) {
+      return "critical";
+    }
+    if (quantity < minQty * 0.5) {
+      return "high";
+    }
+    return "medium";
+  }
+
+  private static String criticalPriority(ShoppingListItem item) {
+    if (item.getInStockQty() <= 0) {
+      return "critical";
+    }
+    if (item.getRequiredQty() > 0 && item.getToBuyQty() >= item.getRequiredQty() * 0.75) {
+      return "high";
+    }
+    return "medium";
+  }
+
+  private static String purchasePriority(double price, double averagePrice) {
+    if (averagePrice <= 0) {
+      return "low";
+    }
+    if (price >= averagePrice * 1.5) {
+      return "high";
+    }
+    if (price >= averagePrice) {
+      return "medium";
+    }
+    return "low";
+  }
+
+  private static LocalDateTime toLocalDateTime(Instant instant) {
+    if (instant == null) {
+      return null;
+    }
+    return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,153 @@
+package com.mealplaner.events;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+@Document(collection = "events")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_rank", def = "{'user_id': 1, 'priority_score': -1, 'sort_ts': 1, 'ordinal': 1}"),
+    @CompoundIndex(name = "user_source", def = "{'user_id': 1, 'source': 1}")
+})
+public class EventDocument {
+  @Id
+  private String id;
+
+  @Field("user_id")
+  private String userId;
+
+  @Field("event_id")
+  private String eventId;
+
+  private String source;
+  private String kind;
+  private String priority;
+
+  @Field("priority_score")
+  private int priorityScore;
+
+  @Field("sort_ts")
+  private long sortTs;
+
+  private long ordinal;
+  private String title;
+  private Instant date;
+  private Double amount;
+  private String unit;
+  private Double price;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public String getEventId() {
+    return eventId;
+  }
+
+  public void setEventId(String eventId) {
+    this.eventId = eventId;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  public String getKind() {
+    return kind;
+  }
+
+  public void setKind(String kind) {
+    this.kind = kind;
+  }
+
+  public String getPriority() {
+    return priority;
+  }
+
+  public void setPriority(String priority) {
+    this.priority = priority;
+  }
+
+  public int getPriorityScore() {
+    return priorityScore;
+  }
+
+  public void setPriorityScore(int priorityScore) {
+    this.priorityScore = priorityScore;
+  }
+
+  public long getSortTs() {
+    return sortTs;
+  }
+
+  public void setSortTs(long sortTs) {
+    this.sortTs = sortTs;
+  }
+
+  public long getOrdinal() {
+    return ordinal;
+  }
+
+  public void setOrdinal(long ordinal) {
+    this.ordinal = ordinal;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public Instant getDate() {
+    return date;
+  }
+
+  public void setDate(Instant date) {
+    this.date = date;
+  }
+
+  public Double getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Double amount) {
+    this.amount = amount;
+  }
+
+  public String getUnit() {
+    return unit;
+  }
+
+  public void setUnit(String unit) {
+    this.unit = unit;
+  }
+
+  public Double getPrice() {
+    return price;
+  }
+
+  public void setPrice(Double price) {
+    this.price = price;
+  }
+}
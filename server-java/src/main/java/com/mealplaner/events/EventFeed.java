@@ -0,0 +1,6 @@
+package com.mealplaner.events;
+
+import com.mealplaner.api.dto.EventEntry;
+import java.util.List;
+
+public record EventFeed(List<EventEntry> events, List<String> degradedSources) {}
@@ -0,0 +1,6 @@
+package com.mealplaner.events;
+
+import com.mealplaner.api.dto.EventDelta;
+import java.util.List;
+
+public record EventFeedChangedEvent(String userId, List<EventDelta> deltas) {}
@@ -0,0 +1,435 @@
+package com.mealplaner.events;
+
+import com.mealplaner.api.dto.EventDelta;
+import com.mealplaner.api.dto.EventEntry;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.inventory.InventoryChangedEvent;
+import com.mealplaner.inventory.PetFoodChangedEvent;
+import com.mealplaner.purchase.PurchaseRecordedEvent;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
+import com.mealplaner.shopping.ShoppingChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EventFeedStore {
+  static final int LOOKAHEAD_DAYS = 7;
+  private static final Logger logger = LoggerFactory.getLogger(EventFeedStore.class);
+  private static final String ADDED = "added";
+  private static final String REMOVED = "removed";
+  private static final String PRIORITY_CHANGED = "priority-changed";
+  private static final long ORDINAL_STRIDE = 1_000_000L;
+  private static final int LOCK_STRIPES = 64;
+  private static final Sort RANK = Sort.by(
+      Sort.Order.desc("priority_score"),
+      Sort.Order.asc("sort_ts"),
+      Sort.Order.asc("ordinal")
+  );
+
+  private final EventRepository repository;
+  private final EventSourceLoader sourceLoader;
+  private final ApplicationEventPublisher eventPublisher;
+  private final AppProperties properties;
+  private final LinkedHashMap<String, Feed> feeds = new LinkedHashMap<>(16, 0.75f, true);
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  private final Map<String, LinkedHashSet<String>> pendingRefresh = new HashMap<>();
+  private final Set<String> refreshing = new HashSet<>();
+  private final ExecutorService refreshers = Executors.newVirtualThreadPerTaskExecutor();
+
+  public EventFeedStore(
+      EventRepository repository,
+      EventSourceLoader sourceLoader,
+      ApplicationEventPublisher eventPublisher,
+      AppProperties properties
+  ) {
+    this.repository = repository;
+    this.sourceLoader = sourceLoader;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties;
+    for (int index = 0; index < LOCK_STRIPES; index++) {
+      locks[index] = new Object();
+    }
+  }
+
+  private record Feed(LocalDate builtOn, LocalDate activeOn) {}
+
+  public EventFeed read(String userId, int limit) {
+    List<String> degradedSources = ensureBuilt(userId);
+    synchronized (lockFor(userId)) {
+      return query(userId, limit, degradedSources);
+    }
+  }
+
+  /**
+   * Reads the feed and hands it to {@code consumer} before the user's lock is released, so no
+   * delta for the same user can be published between the read and the consumer.
+   */
+  public void read(String userId, int limit, Consumer<EventFeed> consumer) {
+    List<String> degradedSources = ensureBuilt(userId);
+    synchronized (lockFor(userId)) {
+      consumer.accept(query(userId, limit, degradedSources));
+    }
+  }
+
+  private EventFeed query(String userId, int limit, List<String> degradedSources) {
+    List<EventEntry> events = new ArrayList<>();
+    for (EventDocument doc : repository.findByUserId(userId, PageRequest.of(0, limit, RANK))) {
+      events.add(toEntry(doc));
+    }
+    return new EventFeed(events, degradedSources);
+  }
+
+  /**
+   * Brings the user's feed up to date before a read: rebuilds it once a day and applies every
+   * refresh queued by earlier writes, waiting for one already in flight. Sources are loaded under
+   * the user's refresh claim rather than the stripe lock, so a slow load only holds up this user.
+   */
+  public List<String> ensureBuilt(String userId) {
+    claim(userId);
+    try {
+      EventBuilder.Clock clock = EventBuilder.Clock.current();
+      Feed feed = feed(userId);
+      List<String> degradedSources = List.of();
+      if (feed == null || !clock.today().equals(feed.builtOn())) {
+        takePending(userId);
+        degradedSources = rebuild(userId, clock);
+        feed = feed(userId);
+      }
+      track(userId, new Feed(feed == null ? null : feed.builtOn(), clock.today()));
+      return degradedSources;
+    } finally {
+      List<String> sources = takePending(userId);
+      if (sources != null) {
+        applyRefresh(userId, sources);
+      }
+      release(userId);
+    }
+  }
+
+  @Scheduled(cron = "0 5 0 * * *", zone = "UTC")
+  public void rerank() {
+    EventBuilder.Clock clock = EventBuilder.Clock.current();
+    LocalDate activeSince = clock.today().minusDays(properties.getEvents().getFeedRerankActiveDays());
+    for (String userId : recentlyActive(activeSince)) {
+      claim(userId);
+      try {
+        if (feed(userId) != null) {
+          rebuild(userId, EventBuilder.Clock.current());
+        }
+      } catch (RuntimeException exc) {
+        forget(userId);
+        logger.warn("Event feed re-rank failed for user {}", userId, exc);
+      } finally {
+        release(userId);
+      }
+    }
+  }
+
+  @EventListener
+  public void onInventoryChanged(InventoryChangedEvent event) {
+    refresh(event.userId(), List.of(EventSourceLoader.INVENTORY));
+  }
+
+  @EventListener
+  public void onPetFoodChanged(PetFoodChangedEvent event) {
+    refresh(event.userId(), List.of(EventSourceLoader.PET_FOOD));
+  }
+
+  @EventListener
+  public void onShoppingChanged(ShoppingChangedEvent event) {
+    refresh(event.userId(), List.of(EventSourceLoader.SHOPPING));
+  }
+
+  @EventListener
+  public void onPurchaseRecorded(PurchaseRecordedEvent event) {
+    refresh(event.purchase().getUserId(), List.of(EventSourceLoader.PURCHASES));
+  }
+
+  @EventListener
+  public void onPurchasesClaimed(PurchasesClaimedEvent event) {
+    refresh(event.userId(), List.of(EventSourceLoader.PURCHASES));
+  }
+
+  /**
+   * Queues a refresh of {@code sources} for the user's built feed. Writers return immediately; the
+   * thread holding the user's refresh claim applies the queue, or a refresher claims it here.
+   */
+  private void refresh(String userId, List<String> sources) {
+    if (userId == null || feed(userId) == null) {
+      return;
+    }
+    synchronized (pendingRefresh) {
+      pendingRefresh.computeIfAbsent(userId, ignore -> new LinkedHashSet<>()).addAll(sources);
+      if (!refreshing.add(userId)) {
+        return;
+      }
+    }
+    startRefresher(userId);
+  }
+
+  /**
+   * Takes the user's refresh claim, waiting while another thread holds it. One claim per user keeps
+   * that user's loads in order, so an older load is never applied over a newer one, and whoever
+   * takes it finds every earlier write either applied or still queued.
+   */
+  private void claim(String userId) {
+    boolean interrupted = false;
+    synchronized (pendingRefresh) {
+      while (!refreshing.add(userId)) {
+        try {
+          pendingRefresh.wait();
+        } catch (InterruptedException exc) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Gives up the claim, or hands it to a refresher when writes queued more sources meanwhile. */
+  private void release(String userId) {
+    synchronized (pendingRefresh) {
+      if (!pendingRefresh.containsKey(userId)) {
+        refreshing.remove(userId);
+        pendingRefresh.notifyAll();
+        return;
+      }
+    }
+    startRefresher(userId);
+  }
+
+  private void startRefresher(String userId) {
+    try {
+      refreshers.execute(() -> drainRefresh(userId));
+    } catch (RejectedExecutionException exc) {
+      synchronized (pendingRefresh) {
+        pendingRefresh.remove(userId);
+        refreshing.remove(userId);
+        pendingRefresh.notifyAll();
+      }
+      forget(userId);
+    }
+  }
+
+  private void drainRefresh(String userId) {
+    List<String> sources;
+    while ((sources = takePending(userId)) != null) {
+      applyRefresh(userId, sources);
+    }
+    release(userId);
+  }
+
+  private List<String> takePending(String userId) {
+    synchronized (pendingRefresh) {
+      LinkedHashSet<String> pending = pendingRefresh.remove(userId);
+      return pending == null ? null : List.copyOf(pending);
+    }
+  }
+
+  private void applyRefresh(String userId, List<String> sources) {
+    if (feed(userId) == null) {
+      return;
+    }
+    try {
+      EventSourceLoader.Loaded loaded = sourceLoader.load(userId, EventBuilder.Clock.current(), LOOKAHEAD_DAYS, sources);
+      synchronized (lockFor(userId)) {
+        Feed current = feed(userId);
+        if (current == null) {
+          return;
+        }
+        List<EventDelta> deltas = new ArrayList<>();
+        loaded.events().forEach((source, events) -> deltas.addAll(replace(userId, source, events)));
+        if (!loaded.degradedSources().isEmpty()) {
+          track(userId, new Feed(null, current.activeOn()));
+        }
+        publish(userId, deltas);
+      }
+    } catch (RuntimeException exc) {
+      forget(userId);
+      logger.warn("Event feed refresh failed for user {}", userId, exc);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refreshers.shutdownNow();
+  }
+
+  private List<String> rebuild(String userId, EventBuilder.Clock clock) {
+    EventSourceLoader.Loaded loaded = sourceLoader.load(userId, clock, LOOKAHEAD_DAYS, EventSourceLoader.SOURCES);
+    synchronized (lockFor(userId)) {
+      List<EventDelta> deltas = new ArrayList<>();
+      loaded.events().forEach((source, events) -> deltas.addAll(replace(userId, source, events)));
+      Feed previous = feed(userId);
+      LocalDate builtOn = loaded.degradedSources().isEmpty() ? clock.today() : previous == null ? null : previous.builtOn();
+      track(userId, new Feed(builtOn, previous == null ? clock.today() : previous.activeOn()));
+      publish(userId, deltas);
+    }
+    return loaded.degradedSources();
+  }
+
+  private List<EventDelta> replace(String userId, String source, List<EventEntry> events) {
+    long base = EventSourceLoader.SOURCES.indexOf(source) * ORDINAL_STRIDE;
+    List<EventDocument> previous = repository.findByUserIdAndSource(userId, source);
+    Map<String, String> storedIds = new HashMap<>();
+    for (EventDocument doc : previous) {
+      storedIds.put(doc.getEventId(), doc.getId());
+    }
+    List<EventDocument> docs = new ArrayList<>();
+    for (int index = 0; index < events.size(); index++) {
+      EventDocument doc = toDocument(userId, source, base + index, events.get(index));
+      doc.setId(storedIds.getOrDefault(doc.getEventId(), doc.getId()));
+      docs.add(doc);
+    }
+    List<EventDelta> deltas = diff(previous, docs);
+    if (!docs.isEmpty()) {
+      repository.saveAll(docs);
+    }
+    List<String> removed = new ArrayList<>();
+    for (EventDelta delta : deltas) {
+      if (REMOVED.equals(delta.getType())) {
+        removed.add(storedIds.get(delta.getEventId()));
+      }
+    }
+    if (!removed.isEmpty()) {
+      repository.deleteAllById(removed);
+    }
+    return deltas;
+  }
+
+  private List<EventDelta> diff(List<EventDocument> previous, List<EventDocument> current) {
+    Map<String, EventDocument> before = new LinkedHashMap<>();
+    for (EventDocument doc : previous) {
+      before.put(doc.getEventId(), doc);
+    }
+    List<EventDelta> deltas = new ArrayList<>();
+    for (EventDocument doc : current) {
+      EventDocument old = before.remove(doc.getEventId());
+      if (old == null) {
+        deltas.add(delta(ADDED, doc.getEventId(), null, toEntry(doc)));
+      } else if (!Objects.equals(old.getPriority(), doc.getPriority())) {
+        deltas.add(delta(PRIORITY_CHANGED, doc.getEventId(), old.getPriority(), toEntry(doc)));
+      }
+    }
+    for (EventDocument old : before.values()) {
+      deltas.add(delta(REMOVED, old.getEventId(), old.getPriority(), null));
+    }
+    return deltas;
+  }
+
+  private EventDelta delta(String type, String eventId, String previousPriority, EventEntry event) {
+    EventDelta delta = new EventDelta();
+    delta.setType(type);
+    delta.setEventId(eventId);
+    delta.setPreviousPriority(previousPriority);
+    delta.setEvent(event);
+    return delta;
+  }
+
+  private void publish(String userId, List<EventDelta> deltas) {
+    if (!deltas.isEmpty()) {
+      eventPublisher.publishEvent(new EventFeedChangedEvent(userId, deltas));
+    }
+  }
+
+  private Feed feed(String userId) {
+    synchronized (feeds) {
+      return feeds.get(userId);
+    }
+  }
+
+  private void track(String userId, Feed feed) {
+    synchronized (feeds) {
+      feeds.put(userId, feed);
+      Iterator<Feed> oldest = feeds.values().iterator();
+      while (feeds.size() > properties.getEvents().getFeedMaxUsers() && oldest.hasNext()) {
+        oldest.next();
+        oldest.remove();
+      }
+    }
+  }
+
+  private void forget(String userId) {
+    synchronized (feeds) {
+      feeds.remove(userId);
+    }
+  }
+
+  private List<String> recentlyActive(LocalDate activeSince) {
+    List<String> active = new ArrayList<>();
+    synchronized (feeds) {
+      Iterator<Map.Entry<String, Feed>> entries = feeds.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, Feed> entry = entries.next();
+        if (entry.getValue().activeOn().isBefore(activeSince)) {
+          entries.remove();
+        } else {
+          active.add(entry.getKey());
+        }
+      }
+    }
+    return active;
+  }
+
+  private Object lockFor(String userId) {
+    return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+  }
+
+  private EventDocument toDocument(String userId, String source, long ordinal, EventEntry event) {
+    EventDocument doc = new EventDocument();
+    doc.setId(userId + ":" + source + ":" + event.getId());
+    doc.setUserId(userId);
+    doc.setEventId(event.getId());
+    doc.setSource(source);
+    doc.setKind(event.getKind());
+    doc.setPriority(event.getPriority());
+    doc.setPriorityScore(EventBuilder.priorityScore(event.getPriority()));
+    doc.setSortTs(EventBuilder.sortTimestamp(event));
+    doc.setOrdinal(ordinal);
+    doc.setTitle(event.getTitle());
+    doc.setDate(event.getDate() == null ? null : event.getDate().toInstant(ZoneOffset.UTC));
+    doc.setAmount(event.getAmount());
+    doc.setUnit(event.getUnit());
+    doc.setPrice(event.getPrice());
+    return doc;
+  }
+
+  private EventEntry toEntry(EventDocument doc) {
+    EventEntry entry = new EventEntry();
+    entry.setId(doc.getEventId());
+    entry.setKind(doc.getKind());
+    entry.setPriority(doc.getPriority());
+    entry.setTitle(doc.getTitle());
+    entry.setDate(doc.getDate() == null ? null : LocalDateTime.ofInstant(doc.getDate(), ZoneOffset.UTC));
+    entry.setAmount(doc.getAmount());
+    entry.setUnit(doc.getUnit());
+    entry.setPrice(doc.getPrice());
+    return entry;
+  }
+}
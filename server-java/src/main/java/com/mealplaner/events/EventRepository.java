@@ -0,0 +1,10 @@
+package com.mealplaner.events;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EventRepository extends MongoRepository<EventDocument, String> {
+  List<EventDocument> findByUserId(String userId, Pageable pageable);
+  List<EventDocument> findByUserIdAndSource(String userId, String source);
+}
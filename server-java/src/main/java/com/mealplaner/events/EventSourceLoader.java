@@ -0,0 +1,120 @@
+package com.mealplaner.events;
+
+import com.mealplaner.api.dto.EventEntry;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.inventory.PetFoodService;
+import com.mealplaner.purchase.PurchaseService;
+import com.mealplaner.shopping.ShoppingService;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EventSourceLoader {
+  static final String INVENTORY = "inventory";
+  static final String PET_FOOD = "pet-food";
+  static final String SHOPPING = "shopping";
+  static final String PURCHASES = "purchases";
+  static final List<String> SOURCES = List.of(INVENTORY, PET_FOOD, SHOPPING, PURCHASES);
+  private static final Logger logger = LoggerFactory.getLogger(EventSourceLoader.class);
+
+  private final InventoryService inventoryService;
+  private final PetFoodService petFoodService;
+  private final ShoppingService shoppingService;
+  private final PurchaseService purchaseService;
+  private final AppProperties properties;
+  private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+
+  public EventSourceLoader(
+      InventoryService inventoryService,
+      PetFoodService petFoodService,
+      ShoppingService shoppingService,
+      PurchaseService purchaseService,
+      AppProperties properties
+  ) {
+    this.inventoryService = inventoryService;
+    this.petFoodService = petFoodService;
+    this.shoppingService = shoppingService;
+    this.purchaseService = purchaseService;
+    this.properties = properties;
+  }
+
+  record Loaded(Map<String, List<EventEntry>> events, List<String> degradedSources) {}
+
+  Loaded load(String userId, EventBuilder.Clock clock, int lookaheadDays, List<String> sources) {
+    Map<String, Future<List<EventEntry>>> pending = new LinkedHashMap<>();
+    for (String source : sources) {
+      pending.put(source, loaders.submit(() -> events(userId, source, clock, lookaheadDays)));
+    }
+    long deadline = System.nanoTime() + properties.getEvents().getSourceTimeoutMillis() * 1_000_000L;
+    Map<String, List<EventEntry>> events = new LinkedHashMap<>();
+    List<String> degradedSources = new ArrayList<>();
+    for (Map.Entry<String, Future<List<EventEntry>>> entry : pending.entrySet()) {
+      List<EventEntry> loaded = await(entry.getKey(), entry.getValue(), deadline);
+      if (loaded == null) {
+        degradedSources.add(entry.getKey());
+      } else {
+        events.put(entry.getKey(), loaded);
+      }
+    }
+    return new Loaded(events, degradedSources);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    loaders.shutdownNow();
+  }
+
+  private List<EventEntry> events(String userId, String source, EventBuilder.Clock clock, int lookaheadDays) {
+    LocalDate today = clock.today();
+    return switch (source) {
+      case INVENTORY -> EventBuilder.inventoryEvents(
+          inventoryService.listEventCandidates(userId, clock.expiringFrom(), clock.expiringUntil()),
+          clock
+      );
+      case PET_FOOD -> EventBuilder.petEvents(
+          petFoodService.listEventCandidates(userId, clock.expiringFrom(), clock.expiringUntil()),
+          clock
+      );
+      case SHOPPING -> EventBuilder.shoppingEvents(
+          shoppingService.build(userId, today.toString(), clock.shoppingEnd(lookaheadDays).toString()),
+          clock
+      );
+      case PURCHASES -> EventBuilder.purchaseEvents(purchaseService.summarizePrices(
+          userId,
+          clock.purchaseStart().toString(),
+          today.toString(),
+          EventBuilder.MAX_PURCHASE_EVENTS
+      ));
+      default -> throw new IllegalArgumentException("Unknown event source");
+    };
+  }
+
+  private List<EventEntry> await(String source, Future<List<EventEntry>> load, long deadline) {
+    try {
+      return load.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException exc) {
+      load.cancel(true);
+      logger.warn("Event source {} timed out", source);
+    } catch (ExecutionException exc) {
+      logger.warn("Event source {} failed", source, exc.getCause());
+    } catch (InterruptedException exc) {
+      load.cancel(true);
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+}
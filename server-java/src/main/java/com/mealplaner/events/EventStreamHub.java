@@ -0,0 +1,174 @@
+package com.mealplaner.events;
+
+import com.mealplaner.config.AppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Component
+public class EventStreamHub {
+  private static final Logger logger = LoggerFactory.getLogger(EventStreamHub.class);
+  private static final int SNAPSHOT_LIMIT = 50;
+
+  private final EventFeedStore feedStore;
+  private final AppProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+  public EventStreamHub(EventFeedStore feedStore, AppProperties properties, MeterRegistry meterRegistry) {
+    this.feedStore = feedStore;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @PostConstruct
+  void registerGauges() {
+    meterRegistry.gauge("events.stream.connections", this, EventStreamHub::connectionCount);
+  }
+
+  public SseEmitter subscribe(String userId) {
+    SseEmitter emitter = new SseEmitter(properties.getEvents().getStreamTimeoutMillis());
+    Subscriber subscriber = new Subscriber(userId, emitter, Math.max(1, properties.getEvents().getStreamBufferSize()));
+    subscribers.computeIfAbsent(userId, ignore -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onTimeout(() -> remove(subscriber));
+    emitter.onError(exc -> remove(subscriber));
+    subscriber.offer(SseEmitter.event().comment("connected"));
+    senders.execute(() -> sendSnapshot(subscriber));
+    meterRegistry.counter("events.stream", "outcome", "subscribed").increment();
+    return emitter;
+  }
+
+  private void sendSnapshot(Subscriber subscriber) {
+    try {
+      feedStore.read(subscriber.userId, SNAPSHOT_LIMIT, feed -> subscriber.offer(
+          SseEmitter.event().name("snapshot").data(feed.events(), MediaType.APPLICATION_JSON)
+      ));
+    } catch (RuntimeException exc) {
+      logger.warn("Event stream snapshot failed for user {}", subscriber.userId, exc);
+      remove(subscriber);
+      subscriber.emitter.completeWithError(exc);
+    }
+  }
+
+  int connectionCount() {
+    return subscribers.values().stream().mapToInt(Set::size).sum();
+  }
+
+  @EventListener
+  public void onFeedChanged(EventFeedChangedEvent event) {
+    Set<Subscriber> targets = subscribers.get(event.userId());
+    if (targets == null) {
+      return;
+    }
+    for (Subscriber subscriber : targets) {
+      subscriber.offer(SseEmitter.event().name("delta").data(event.deltas(), MediaType.APPLICATION_JSON));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.events.stream-heartbeat-millis:15000}")
+  public void heartbeat() {
+    for (Set<Subscriber> targets : subscribers.values()) {
+      for (Subscriber subscriber : targets) {
+        subscriber.offerIfIdle(SseEmitter.event().comment("heartbeat"));
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    for (Set<Subscriber> targets : subscribers.values()) {
+      for (Subscriber subscriber : targets) {
+        subscriber.emitter.complete();
+      }
+    }
+    senders.shutdownNow();
+  }
+
+  private void remove(Subscriber subscriber) {
+    subscribers.computeIfPresent(subscriber.userId, (ignore, targets) -> {
+      targets.remove(subscriber);
+      return targets.isEmpty() ? null : targets;
+    });
+  }
+
+  private final class Subscriber {
+    private final String userId;
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+    private boolean draining;
+
+    private Subscriber(String userId, SseEmitter emitter, int capacity) {
+      this.userId = userId;
+      this.emitter = emitter;
+      this.capacity = capacity;
+    }
+
+    void offer(SseEmitter.SseEventBuilder message) {
+      synchronized (this) {
+        if (buffer.size() >= capacity) {
+          buffer.clear();
+          buffer.add(SseEmitter.event().name("resync").data("buffer-overflow"));
+          meterRegistry.counter("events.stream", "outcome", "overflow").increment();
+        } else {
+          buffer.add(message);
+        }
+        if (draining) {
+          return;
+        }
+        draining = true;
+      }
+      senders.execute(this::drain);
+    }
+
+    void offerIfIdle(SseEmitter.SseEventBuilder message) {
+      synchronized (this) {
+        if (draining || !buffer.isEmpty()) {
+          return;
+        }
+      }
+      offer(message);
+    }
+
+    private void drain() {
+      while (true) {
+        SseEmitter.SseEventBuilder next;
+        synchronized (this) {
+          next = buffer.poll();
+          if (next == null) {
+            draining = false;
+            return;
+          }
+        }
+        try {
+          emitter.send(next);
+        } catch (IOException | IllegalStateException exc) {
+          logger.debug("Event stream for user {} closed", userId, exc);
+          synchronized (this) {
+            buffer.clear();
+            draining = false;
+          }
+          remove(this);
+          emitter.completeWithError(exc);
+          return;
+        }
+      }
+    }
+  }
+}
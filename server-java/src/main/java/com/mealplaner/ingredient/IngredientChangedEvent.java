@@ -0,0 +1,3 @@
+package com.mealplaner.ingredient;
+
+public record IngredientChangedEvent(String userId) {}
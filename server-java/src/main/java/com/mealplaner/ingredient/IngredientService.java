@@ -2,6 +2,7 @@ package com.mealplaner.ingredient;
 
 import com.mealplaner.calorie.CalorieDocument;
 import com.mealplaner.calorie.CalorieRepository;
+import com.mealplaner.migration.MigrationService;
 import com.mealplaner.util.IngredientKey;
 import com.mealplaner.util.Units;
 import java.util.ArrayList;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -21,19 +23,25 @@ public class IngredientService {
   private final IngredientRepository repository;
   private final CalorieRepository calorieRepository;
   private final MongoTemplate mongoTemplate;
+  private final MigrationService migrationService;
+  private final ApplicationEventPublisher eventPublisher;
 
   public IngredientService(
       IngredientRepository repository,
       CalorieRepository calorieRepository,
-      MongoTemplate mongoTemplate
+      MongoTemplate mongoTemplate,
+      MigrationService migrationService,
+      ApplicationEventPublisher eventPublisher
   ) {
     this.repository = repository;
     this.calorieRepository = calorieRepository;
     this.mongoTemplate = mongoTemplate;
+    this.migrationService = migrationService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<IngredientDocument> listIngredients(String userId) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     List<IngredientDocument> items = new ArrayList<>(repository.findByUserIdOrderByNameAsc(userId));
     items.sort(Comparator.comparing(IngredientDocument::getName, String.CASE_INSENSITIVE_ORDER));
     boolean changed = false;
@@ -50,6 +58,7 @@ public class IngredientService {
     }
     if (changed) {
       repository.saveAll(items);
+      eventPublisher.publishEvent(new IngredientChangedEvent(userId));
     }
     return items;
   }
@@ -71,11 +80,13 @@ public class IngredientService {
     doc.setName(safeName);
     doc.setUnit(safeUnit);
     doc.setTranslations(cleanTranslations(translations));
-    return repository.save(doc);
+    IngredientDocument saved = repository.save(doc);
+    eventPublisher.publishEvent(new IngredientChangedEvent(userId));
+    return saved;
   }
 
   public IngredientDocument updateIngredient(String userId, String key, String name, String unit, Map<String, String> translations) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     String safeName = name == null ? "" : name.trim();
     String safeUnit = Units.sanitize(unit);
     String newKey = IngredientKey.normalize(safeName, safeUnit);
@@ -106,11 +117,12 @@ public class IngredientService {
       mongoTemplate.updateMulti(query, update, CalorieDocument.class);
     }
 
+    eventPublisher.publishEvent(new IngredientChangedEvent(userId));
     return saved;
   }
 
   public Optional<IngredientDocument> findByKey(String userId, String key) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     return repository.findByUserIdAndKey(userId, key);
   }
 
@@ -141,6 +153,9 @@ public class IngredientService {
       }
       repository.save(doc);
     }
+    if (!ingredients.isEmpty()) {
+      eventPublisher.publishEvent(new IngredientChangedEvent(userId));
+    }
   }
 
   private Map<String, String> cleanTranslations(Map<String, String> translations) {
@@ -155,15 +170,4 @@ public class IngredientService {
             entry -> entry.getValue().trim()
         ));
   }
-
-  private void claimUnowned(String userId) {
-    List<IngredientDocument> legacy = repository.findByUserIdIsNull();
-    if (legacy.isEmpty()) {
-      return;
-    }
-    for (IngredientDocument doc : legacy) {
-      doc.setUserId(userId);
-    }
-    repository.saveAll(legacy);
-  }
 }
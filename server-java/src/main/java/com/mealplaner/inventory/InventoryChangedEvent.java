@@ -0,0 +1,3 @@
+package com.mealplaner.inventory;
+
+public record InventoryChangedEvent(String userId, String itemId, InventoryItemDocument item) {}
@@ -1,11 +1,20 @@
 package com.mealplaner.inventory;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 public interface InventoryItemRepository extends MongoRepository<InventoryItemDocument, String> {
   List<InventoryItemDocument> findByUserId(String userId);
+
+  @Query("{ 'user_id': ?0, 'expires_at': { $gte: ?1, $lt: ?2 } }")
+  List<InventoryItemDocument> findExpiringWithin(String userId, Instant from, Instant until);
+
+  @Query("{ 'user_id': ?0, 'min_qty': { $ne: null }, $expr: { $lt: ['$quantity', '$min_qty'] } }")
+  List<InventoryItemDocument> findBelowMinQty(String userId);
+
   Optional<InventoryItemDocument> findByIdAndUserId(String id, String userId);
   void deleteByIdAndUserId(String id, String userId);
   Optional<InventoryItemDocument> findFirstByUserIdAndIngredientKeyAndUnitAndLocation(
@@ -3,21 +3,44 @@ package com.mealplaner.inventory;
 import com.mealplaner.util.IngredientKey;
 import com.mealplaner.util.Units;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class InventoryService {
+  public static final Comparator<InventoryItemDocument> NEWEST_FIRST = Comparator
+      .comparing(InventoryItemDocument::getAddedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+      .thenComparing(InventoryItemDocument::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
   private final InventoryItemRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public InventoryService(InventoryItemRepository repository) {
+  public InventoryService(InventoryItemRepository repository, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<InventoryItemDocument> listItems(String userId) {
     List<InventoryItemDocument> items = repository.findByUserId(userId);
-    items.sort(Comparator.comparing(InventoryItemDocument::getAddedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+    items.sort(NEWEST_FIRST);
+    return items;
+  }
+
+  public List<InventoryItemDocument> listEventCandidates(String userId, Instant expiringFrom, Instant expiringUntil) {
+    Map<String, InventoryItemDocument> candidates = new LinkedHashMap<>();
+    for (InventoryItemDocument item : repository.findExpiringWithin(userId, expiringFrom, expiringUntil)) {
+      candidates.put(item.getId(), item);
+    }
+    for (InventoryItemDocument item : repository.findBelowMinQty(userId)) {
+      candidates.putIfAbsent(item.getId(), item);
+    }
+    List<InventoryItemDocument> items = new ArrayList<>(candidates.values());
+    items.sort(NEWEST_FIRST);
     return items;
   }
 
@@ -43,7 +66,9 @@ public class InventoryService {
     if (doc.getChangeSource() == null || doc.getChangeSource().isBlank()) {
       doc.setChangeSource("manual");
     }
-    return repository.save(doc);
+    InventoryItemDocument saved = repository.save(doc);
+    eventPublisher.publishEvent(new InventoryChangedEvent(userId, saved.getId(), saved));
+    return saved;
   }
 
   public InventoryItemDocument updateItem(
@@ -104,12 +129,15 @@ public class InventoryService {
       existing.setIngredientKey(normalizeIngredientKey(null, existing.getName(), existing.getUnit()));
     }
     validate(existing);
-    return repository.save(existing);
+    InventoryItemDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new InventoryChangedEvent(userId, saved.getId(), saved));
+    return saved;
   }
 
   public void deleteItem(String userId, String id) {
     InventoryItemDocument existing = repository.findByIdAndUserId(id, userId).orElseThrow();
     repository.delete(existing);
+    eventPublisher.publishEvent(new InventoryChangedEvent(userId, existing.getId(), null));
   }
 
   public InventoryItemDocument consume(String userId, String id, double amount) {
@@ -123,7 +151,9 @@ public class InventoryService {
     }
     existing.setQuantity(next);
     existing.setChangeSource("consume");
-    return repository.save(existing);
+    InventoryItemDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new InventoryChangedEvent(userId, saved.getId(), saved));
+    return saved;
   }
 
   public InventoryItemDocument addStock(
@@ -170,7 +200,9 @@ public class InventoryService {
     target.setQuantity(target.getQuantity() + amount);
     target.setChangeSource(source == null || source.isBlank() ? "purchase" : source.trim().toLowerCase());
     validate(target);
-    return repository.save(target);
+    InventoryItemDocument saved = repository.save(target);
+    eventPublisher.publishEvent(new InventoryChangedEvent(userId, saved.getId(), saved));
+    return saved;
   }
 
   private void validate(InventoryItemDocument doc) {
@@ -0,0 +1,3 @@
+package com.mealplaner.inventory;
+
+public record PetFoodChangedEvent(String userId) {}
@@ -2,10 +2,15 @@ package com.mealplaner.inventory;
 
 import java.time.Instant;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "pet_inventory_items")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_expires_at", def = "{'user_id': 1, 'expires_at': 1}")
+})
 public class PetFoodItemDocument {
   @Id
   private String id;
@@ -1,11 +1,20 @@
 package com.mealplaner.inventory;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 public interface PetFoodItemRepository extends MongoRepository<PetFoodItemDocument, String> {
   List<PetFoodItemDocument> findByUserId(String userId);
+
+  @Query("{ 'user_id': ?0, 'expires_at': { $gte: ?1, $lt: ?2 } }")
+  List<PetFoodItemDocument> findExpiringWithin(String userId, Instant from, Instant until);
+
+  @Query("{ 'user_id': ?0, 'min_qty': { $ne: null }, $expr: { $lt: ['$quantity', '$min_qty'] } }")
+  List<PetFoodItemDocument> findBelowMinQty(String userId);
+
   Optional<PetFoodItemDocument> findByIdAndUserId(String id, String userId);
   void deleteByIdAndUserId(String id, String userId);
 }
@@ -1,21 +1,44 @@
 package com.mealplaner.inventory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PetFoodService {
+  public static final Comparator<PetFoodItemDocument> NEWEST_FIRST = Comparator
+      .comparing(PetFoodItemDocument::getAddedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+      .thenComparing(PetFoodItemDocument::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
   private final PetFoodItemRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public PetFoodService(PetFoodItemRepository repository) {
+  public PetFoodService(PetFoodItemRepository repository, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<PetFoodItemDocument> listItems(String userId) {
     List<PetFoodItemDocument> items = repository.findByUserId(userId);
-    items.sort(Comparator.comparing(PetFoodItemDocument::getAddedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+    items.sort(NEWEST_FIRST);
+    return items;
+  }
+
+  public List<PetFoodItemDocument> listEventCandidates(String userId, Instant expiringFrom, Instant expiringUntil) {
+    Map<String, PetFoodItemDocument> candidates = new LinkedHashMap<>();
+    for (PetFoodItemDocument item : repository.findExpiringWithin(userId, expiringFrom, expiringUntil)) {
+      candidates.put(item.getId(), item);
+    }
+    for (PetFoodItemDocument item : repository.findBelowMinQty(userId)) {
+      candidates.putIfAbsent(item.getId(), item);
+    }
+    List<PetFoodItemDocument> items = new ArrayList<>(candidates.values());
+    items.sort(NEWEST_FIRST);
     return items;
   }
 
@@ -35,7 +58,9 @@ public class PetFoodService {
     if (doc.getAddedAt() == null) {
       doc.setAddedAt(Instant.now());
     }
-    return repository.save(doc);
+    PetFoodItemDocument saved = repository.save(doc);
+    eventPublisher.publishEvent(new PetFoodChangedEvent(userId));
+    return saved;
   }
 
   public PetFoodItemDocument updateItem(
@@ -88,12 +113,15 @@ public class PetFoodService {
       existing.setNotes(normalizeOptional(notes));
     }
     validate(existing);
-    return repository.save(existing);
+    PetFoodItemDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new PetFoodChangedEvent(userId));
+    return saved;
   }
 
   public void deleteItem(String userId, String id) {
     PetFoodItemDocument existing = repository.findByIdAndUserId(id, userId).orElseThrow();
     repository.delete(existing);
+    eventPublisher.publishEvent(new PetFoodChangedEvent(userId));
   }
 
   public PetFoodItemDocument consume(String userId, String id, double amount) {
@@ -106,7 +134,9 @@ public class PetFoodService {
       throw new IllegalArgumentException("Cannot consume more than available");
     }
     existing.setQuantity(next);
-    return repository.save(existing);
+    PetFoodItemDocument saved = repository.save(existing);
+    eventPublisher.publishEvent(new PetFoodChangedEvent(userId));
+    return saved;
   }
 
   private void validate(PetFoodItemDocument doc) {
@@ -0,0 +1,74 @@
+package com.mealplaner.migration;
+
+import com.mealplaner.analytics.IngredientPriceDocument;
+import com.mealplaner.analytics.SpendRollupDocument;
+import com.mealplaner.events.EventDocument;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.inventory.PetFoodItemDocument;
+import com.mealplaner.plan.PlanDocument;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IndexInitializer implements ApplicationRunner {
+  private static final Logger logger = LoggerFactory.getLogger(IndexInitializer.class);
+  private static final List<Class<?>> INDEXED = List.of(
+      PurchaseDocument.class,
+      InventoryItemDocument.class,
+      PetFoodItemDocument.class,
+      EventDocument.class,
+      SpendRollupDocument.class,
+      IngredientPriceDocument.class,
+      PlanDocument.class
+  );
+
+  private static final Map<Class<?>, List<String>> SHARED_LAYOUT = Map.of(
+      SpendRollupDocument.class,
+      List.of(SpendRollupDocument.WEEKLY_COLLECTION, SpendRollupDocument.MONTHLY_COLLECTION)
+  );
+
+  private final MongoTemplate mongoTemplate;
+  private final MigrationService migrationService;
+
+  public IndexInitializer(MongoTemplate mongoTemplate, MigrationService migrationService) {
+    this.mongoTemplate = mongoTemplate;
+    this.migrationService = migrationService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      migrationService.mergeDuplicatePlanDays(false);
+    } catch (RuntimeException exc) {
+      logger.warn("Duplicate plan days could not be merged; plan_user_date_unique may fail to build", exc);
+    }
+    IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+    for (Class<?> type : INDEXED) {
+      List<IndexOperations> targets = new ArrayList<>();
+      targets.add(mongoTemplate.indexOps(type));
+      for (String collection : SHARED_LAYOUT.getOrDefault(type, List.of())) {
+        targets.add(mongoTemplate.indexOps(collection));
+      }
+      for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+        for (IndexOperations operations : targets) {
+          try {
+            operations.ensureIndex(index);
+          } catch (RuntimeException exc) {
+            logger.warn("Index {} on {} could not be created", index.getIndexOptions().get("name"), type.getSimpleName(), exc);
+          }
+        }
+      }
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package com.mealplaner.migration;
 
 import com.mealplaner.api.dto.MigrationResult;
+import com.mealplaner.api.dto.PlanDayMergeResult;
+import com.mealplaner.dish.DishChangedEvent;
 import com.mealplaner.dish.DishDocument;
 import com.mealplaner.dish.DishIngredient;
 import com.mealplaner.dish.DishRepository;
+import com.mealplaner.ingredient.IngredientChangedEvent;
 import com.mealplaner.ingredient.IngredientDocument;
 import com.mealplaner.ingredient.IngredientRepository;
 import com.mealplaner.inventory.InventoryItemDocument;
@@ -11,24 +14,44 @@ import com.mealplaner.inventory.InventoryItemRepository;
 import com.mealplaner.inventory.InventoryService;
 import com.mealplaner.inventory.PetFoodItemDocument;
 import com.mealplaner.inventory.PetFoodItemRepository;
+import com.mealplaner.plan.PlanChangedEvent;
 import com.mealplaner.plan.PlanDocument;
 import com.mealplaner.plan.PlanRepository;
 import com.mealplaner.purchase.PurchaseDocument;
 import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchasesClaimedEvent;
 import com.mealplaner.util.IngredientKey;
 import com.mealplaner.util.Units;
+import com.mealplaner.calorie.CalorieChangedEvent;
 import com.mealplaner.calorie.CalorieDocument;
 import com.mealplaner.calorie.CalorieRepository;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MigrationService {
+  private static final Logger logger = LoggerFactory.getLogger(MigrationService.class);
+  private static final String LEGACY_OWNERSHIP = "legacy-ownership";
+  private static final String PLAN_DAY_MERGE = "plan-day-merge";
+
   private final IngredientRepository ingredientRepository;
   private final DishRepository dishRepository;
   private final PlanRepository planRepository;
@@ -38,6 +61,9 @@ public class MigrationService {
   private final PetFoodItemRepository petFoodItemRepository;
   private final InventoryService inventoryService;
   private final MongoTemplate mongoTemplate;
+  private final MigrationStateRepository stateRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private volatile boolean ownershipSettled;
 
   public MigrationService(
       IngredientRepository ingredientRepository,
@@ -48,7 +74,9 @@ public class MigrationService {
       InventoryItemRepository inventoryRepository,
       PetFoodItemRepository petFoodItemRepository,
       InventoryService inventoryService,
-      MongoTemplate mongoTemplate
+      MongoTemplate mongoTemplate,
+      MigrationStateRepository stateRepository,
+      ApplicationEventPublisher eventPublisher
   ) {
     this.ingredientRepository = ingredientRepository;
     this.dishRepository = dishRepository;
@@ -59,6 +87,141 @@ public class MigrationService {
     this.petFoodItemRepository = petFoodItemRepository;
     this.inventoryService = inventoryService;
     this.mongoTemplate = mongoTemplate;
+    this.stateRepository = stateRepository;
+    this.eventPublisher = eventPublisher;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void settleOwnershipOnStartup() {
+    try {
+      synchronized (this) {
+        if (stateRepository.existsById(LEGACY_OWNERSHIP)) {
+          ownershipSettled = true;
+        } else if (!hasUnownedDocuments()) {
+          recordOwnershipSettled(null);
+        }
+      }
+    } catch (RuntimeException exc) {
+      logger.warn("Legacy ownership check failed; deferring to first request", exc);
+    }
+  }
+
+  public void claimLegacy(String userId) {
+    if (ownershipSettled) {
+      return;
+    }
+    synchronized (this) {
+      if (ownershipSettled) {
+        return;
+      }
+      if (stateRepository.existsById(LEGACY_OWNERSHIP)) {
+        ownershipSettled = true;
+        return;
+      }
+      if (claimUnowned(IngredientDocument.class, userId) > 0) {
+        eventPublisher.publishEvent(new IngredientChangedEvent(userId));
+      }
+      if (claimUnowned(DishDocument.class, userId) > 0) {
+        eventPublisher.publishEvent(new DishChangedEvent(userId));
+      }
+      if (claimUnowned(CalorieDocument.class, userId) > 0) {
+        eventPublisher.publishEvent(new CalorieChangedEvent(userId));
+      }
+      claimLegacyPurchases(userId);
+      claimLegacyPlans(userId);
+      recordOwnershipSettled(userId);
+    }
+  }
+
+  /**
+   * Folds duplicate (user_id, date_iso) plan rows into one so plan_user_date_unique can be built.
+   * A real run happens once and is recorded in the migrations collection; later calls return that
+   * record. A dry run only reports what would change.
+   */
+  public synchronized PlanDayMergeResult mergeDuplicatePlanDays(boolean dryRun) {
+    if (!dryRun) {
+      Optional<MigrationStateDocument> recorded = stateRepository.findById(PLAN_DAY_MERGE);
+      if (recorded.isPresent() && recorded.get().getPlanDayMerge() != null) {
+        return recorded.get().getPlanDayMerge();
+      }
+    }
+    PlanDayMergeResult result = new PlanDayMergeResult();
+    result.setDryRun(dryRun);
+    List<Document> pipeline = List.of(
+        new Document("$match", new Document("user_id", new Document("$type", "string"))),
+        new Document("$sort", new Document("_id", 1)),
+        new Document("$group", new Document("_id", new Document("user_id", "$user_id").append("date_iso", "$date_iso"))
+            .append("plans", new Document("$push", new Document("_id", "$_id").append("slots", "$slots")))
+            .append("count", new Document("$sum", 1))),
+        new Document("$match", new Document("count", new Document("$gt", 1)))
+    );
+    String collection = mongoTemplate.getCollectionName(PlanDocument.class);
+    Set<String> affectedUsers = new LinkedHashSet<>();
+    for (Document group : mongoTemplate.getCollection(collection).aggregate(pipeline).allowDiskUse(true)) {
+      Document key = group.get("_id", Document.class);
+      String userId = key.getString("user_id");
+      String dateIso = key.getString("date_iso");
+      List<Document> plans = new ArrayList<>(group.getList("plans", Document.class));
+      Document kept = plans.stream()
+          .filter(plan -> (userId + ":" + dateIso).equals(plan.get("_id")))
+          .findFirst()
+          .orElse(plans.get(0));
+      plans.remove(kept);
+      Map<String, String> slots = slotsOf(kept);
+      List<Object> removedIds = new ArrayList<>();
+      for (Document plan : plans) {
+        for (Map.Entry<String, String> slot : slotsOf(plan).entrySet()) {
+          String current = slots.get(slot.getKey());
+          if (current == null || current.isBlank()) {
+            slots.put(slot.getKey(), slot.getValue());
+          } else if (slot.getValue() != null && !slot.getValue().isBlank() && !current.equals(slot.getValue())) {
+            PlanDayMergeResult.SlotConflict conflict = new PlanDayMergeResult.SlotConflict();
+            conflict.setUserId(userId);
+            conflict.setDateISO(dateIso);
+            conflict.setSlot(slot.getKey());
+            conflict.setKeptId(String.valueOf(kept.get("_id")));
+            conflict.setKept(current);
+            conflict.setDroppedId(String.valueOf(plan.get("_id")));
+            conflict.setDropped(slot.getValue());
+            result.getConflicts().add(conflict);
+          }
+        }
+        removedIds.add(plan.get("_id"));
+        result.getRemovedIds().add(String.valueOf(plan.get("_id")));
+      }
+      result.setDuplicateDays(result.getDuplicateDays() + 1);
+      result.setRemovedPlans(result.getRemovedPlans() + removedIds.size());
+      if (!dryRun) {
+        mongoTemplate.updateFirst(
+            new Query(Criteria.where("_id").is(kept.get("_id"))),
+            new Update().set("slots", slots),
+            collection
+        );
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(removedIds)), collection);
+        affectedUsers.add(userId);
+      }
+    }
+    if (dryRun) {
+      return result;
+    }
+    MigrationStateDocument state = new MigrationStateDocument();
+    state.setId(PLAN_DAY_MERGE);
+    state.setCompletedAt(Instant.now());
+    state.setPlanDayMerge(result);
+    stateRepository.save(state);
+    if (result.getRemovedPlans() > 0) {
+      logger.info(
+          "Merged {} duplicate plan day(s), removed {} plan(s), {} slot conflict(s) recorded in migrations/{}",
+          result.getDuplicateDays(),
+          result.getRemovedPlans(),
+          result.getConflicts().size(),
+          PLAN_DAY_MERGE
+      );
+    }
+    for (String userId : affectedUsers) {
+      eventPublisher.publishEvent(new PlanChangedEvent(userId));
+    }
+    return result;
   }
 
   public MigrationResult runStep9(String userId, boolean dryRun, boolean backfillInventory) {
@@ -88,6 +251,7 @@ public class MigrationService {
     result.setClaimedCalories(claimUserId(legacyCalories, userId, dryRun));
     if (!dryRun && !legacyCalories.isEmpty()) {
       calorieRepository.saveAll(legacyCalories);
+      eventPublisher.publishEvent(new CalorieChangedEvent(userId));
     }
 
     List<PurchaseDocument> legacyPurchases = purchaseRepository.findByUserIdIsNull();
@@ -240,6 +404,93 @@ public class MigrationService {
     return result;
   }
 
+  private boolean hasUnownedDocuments() {
+    for (Class<?> type : List.of(
+        IngredientDocument.class,
+        DishDocument.class,
+        CalorieDocument.class,
+        PurchaseDocument.class,
+        PlanDocument.class
+    )) {
+      if (mongoTemplate.exists(unowned(), type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long claimUnowned(Class<?> type, String userId) {
+    return mongoTemplate.updateMulti(unowned(), new Update().set("user_id", userId), type).getModifiedCount();
+  }
+
+  private void claimLegacyPurchases(String userId) {
+    if (claimUnowned(PurchaseDocument.class, userId) > 0) {
+      eventPublisher.publishEvent(new PurchasesClaimedEvent(userId));
+    }
+  }
+
+  private void claimLegacyPlans(String userId) {
+    List<PlanDocument> legacy = planRepository.findByUserIdIsNull();
+    if (legacy.isEmpty()) {
+      return;
+    }
+    Map<String, PlanDocument> byDate = new LinkedHashMap<>();
+    for (PlanDocument plan : legacy) {
+      String dateIso = plan.getDateIso() == null || plan.getDateIso().isBlank() ? plan.getId() : plan.getDateIso();
+      if (dateIso != null && !dateIso.isBlank()) {
+        byDate.putIfAbsent(dateIso, plan);
+      }
+    }
+    if (!byDate.isEmpty()) {
+      Query owned = new Query(Criteria.where("user_id").is(userId).and("date_iso").in(byDate.keySet()));
+      owned.fields().include("date_iso");
+      for (PlanDocument existing : mongoTemplate.find(owned, PlanDocument.class)) {
+        byDate.remove(existing.getDateIso());
+      }
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PlanDocument.class);
+    Set<String> claimedIds = new LinkedHashSet<>();
+    byDate.forEach((dateIso, plan) -> {
+      String id = userId + ":" + dateIso;
+      claimedIds.add(id);
+      bulk.upsert(
+          new Query(Criteria.where("_id").is(id)),
+          new Update().set("user_id", userId).set("date_iso", dateIso).set("slots", plan.getSlots())
+      );
+    });
+    List<String> removed = legacy.stream()
+        .map(PlanDocument::getId)
+        .filter(id -> !claimedIds.contains(id))
+        .toList();
+    if (!removed.isEmpty()) {
+      bulk.remove(new Query(Criteria.where("_id").in(removed)));
+    }
+    bulk.execute();
+    eventPublisher.publishEvent(new PlanChangedEvent(userId));
+  }
+
+  private Map<String, String> slotsOf(Document plan) {
+    Map<String, String> slots = new LinkedHashMap<>();
+    Document raw = plan.get("slots", Document.class);
+    if (raw != null) {
+      raw.forEach((slot, value) -> slots.put(slot, value == null ? null : value.toString()));
+    }
+    return slots;
+  }
+
+  private void recordOwnershipSettled(String userId) {
+    MigrationStateDocument state = new MigrationStateDocument();
+    state.setId(LEGACY_OWNERSHIP);
+    state.setCompletedAt(Instant.now());
+    state.setClaimedBy(userId);
+    stateRepository.save(state);
+    ownershipSettled = true;
+  }
+
+  private Query unowned() {
+    return new Query(Criteria.where("user_id").is(null));
+  }
+
   private <T> int claimUserId(List<T> docs, String userId, boolean dryRun) {
     int count = 0;
     for (T doc : docs) {
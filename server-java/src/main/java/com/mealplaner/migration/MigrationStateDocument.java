@@ -0,0 +1,54 @@
+package com.mealplaner.migration;
+
+import com.mealplaner.api.dto.PlanDayMergeResult;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+@Document(collection = "migrations")
+public class MigrationStateDocument {
+  @Id
+  private String id;
+
+  @Field("completed_at")
+  private Instant completedAt;
+
+  @Field("claimed_by")
+  private String claimedBy;
+
+  @Field("plan_day_merge")
+  private PlanDayMergeResult planDayMerge;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public Instant getCompletedAt() {
+    return completedAt;
+  }
+
+  public void setCompletedAt(Instant completedAt) {
+    this.completedAt = completedAt;
+  }
+
+  public String getClaimedBy() {
+    return claimedBy;
+  }
+
+  public void setClaimedBy(String claimedBy) {
+    this.claimedBy = claimedBy;
+  }
+
+  public PlanDayMergeResult getPlanDayMerge() {
+    return planDayMerge;
+  }
+
+  public void setPlanDayMerge(PlanDayMergeResult planDayMerge) {
+    this.planDayMerge = planDayMerge;
+  }
+}
@@ -0,0 +1,5 @@
+package com.mealplaner.migration;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MigrationStateRepository extends MongoRepository<MigrationStateDocument, String> {}
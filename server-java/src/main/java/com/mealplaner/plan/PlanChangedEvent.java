@@ -0,0 +1,9 @@
+package com.mealplaner.plan;
+
+import java.util.Map;
+
+public record PlanChangedEvent(String userId, String dateIso, Map<String, String> slots) {
+  public PlanChangedEvent(String userId) {
+    this(userId, null, null);
+  }
+}
@@ -3,10 +3,20 @@ package com.mealplaner.plan;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "plans")
+@CompoundIndexes({
+    @CompoundIndex(
+        name = "plan_user_date_unique",
+        def = "{'user_id': 1, 'date_iso': 1}",
+        unique = true,
+        partialFilter = "{'user_id': {'$type': 'string'}}"
+    )
+})
 public class PlanDocument {
   @Id
   private String id;
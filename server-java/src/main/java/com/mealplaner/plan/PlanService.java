@@ -1,26 +1,68 @@
 package com.mealplaner.plan;
 
+import com.mealplaner.migration.MigrationService;
+import com.mongodb.bulk.BulkWriteError;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PlanService {
+  private static final Logger logger = LoggerFactory.getLogger(PlanService.class);
+
   private final PlanRepository repository;
+  private final MongoTemplate mongoTemplate;
+  private final MigrationService migrationService;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public PlanService(PlanRepository repository) {
+  public PlanService(
+      PlanRepository repository,
+      MongoTemplate mongoTemplate,
+      MigrationService migrationService,
+      ApplicationEventPublisher eventPublisher
+  ) {
     this.repository = repository;
+    this.mongoTemplate = mongoTemplate;
+    this.migrationService = migrationService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<PlanDocument> listPlans(String userId, Optional<String> start, Optional<String> end) {
-    claimLegacyPlans(userId);
-    List<PlanDocument> plans = repository.findByUserIdOrderByDateIsoAsc(userId);
+    migrationService.claimLegacy(userId);
     if (start.isEmpty() && end.isEmpty()) {
-      return plans;
+      return repository.findByUserIdOrderByDateIsoAsc(userId);
     }
     Optional<LocalDate> startDate = parseDate(start);
     Optional<LocalDate> endDate = parseDate(end);
+    List<PlanDocument> plans;
+    if (startDate.isPresent() && endDate.isPresent()) {
+      plans = repository.findByUserIdAndDateIsoBetweenOrderByDateIsoAsc(
+          userId,
+          Range.closed(startDate.get().toString(), endDate.get().toString())
+      );
+    } else if (startDate.isPresent()) {
+      plans = repository.findByUserIdAndDateIsoGreaterThanEqualOrderByDateIsoAsc(userId, startDate.get().toString());
+    } else if (endDate.isPresent()) {
+      plans = repository.findByUserIdAndDateIsoLessThanEqualOrderByDateIsoAsc(userId, endDate.get().toString());
+    } else {
+      plans = repository.findByUserIdOrderByDateIsoAsc(userId);
+    }
     return plans.stream()
         .filter(plan -> {
           LocalDate date = parseDate(Optional.ofNullable(plan.getDateIso())).orElse(null);
@@ -39,7 +81,7 @@ public class PlanService {
   }
 
   public PlanDocument upsert(String userId, PlanDocument plan) {
-    claimLegacyPlans(userId);
+    migrationService.claimLegacy(userId);
     String dateIso = plan.getDateIso();
     if (dateIso == null || dateIso.isBlank()) {
       throw new IllegalArgumentException("dateISO is required");
@@ -51,42 +93,74 @@ public class PlanService {
     target.setUserId(userId);
     target.setDateIso(dateIso);
     target.setSlots(plan.getSlots());
-    return repository.save(target);
-  }
-
-  public void delete(String userId, String dateIso) {
-    claimLegacyPlans(userId);
-    PlanDocument existing = repository.findByUserIdAndDateIso(userId, dateIso).orElseThrow();
-    repository.deleteById(existing.getId());
+    PlanDocument saved = repository.save(target);
+    eventPublisher.publishEvent(new PlanChangedEvent(userId, dateIso, saved.getSlots()));
+    return saved;
   }
 
-  private void claimLegacyPlans(String userId) {
-    List<PlanDocument> legacy = repository.findByUserIdIsNull();
-    if (legacy.isEmpty()) {
-      return;
-    }
-    for (PlanDocument plan : legacy) {
-      String dateIso = plan.getDateIso();
-      if (dateIso == null || dateIso.isBlank()) {
-        dateIso = plan.getId();
-      }
-      if (dateIso == null || dateIso.isBlank()) {
+  public List<PlanUpsertResult> upsertAll(String userId, List<PlanDocument> plans) {
+    migrationService.claimLegacy(userId);
+    List<PlanUpsertResult> results = new ArrayList<>(Collections.nCopies(plans.size(), null));
+    Map<String, Integer> positions = new LinkedHashMap<>();
+    for (int index = 0; index < plans.size(); index++) {
+      String dateIso = plans.get(index).getDateIso();
+      if (parseDate(Optional.ofNullable(dateIso)).isEmpty()) {
+        results.set(index, PlanUpsertResult.failed(dateIso, "Invalid date"));
         continue;
       }
-      if (repository.findByUserIdAndDateIso(userId, dateIso).isPresent()) {
-        repository.deleteById(plan.getId());
-        continue;
+      Integer previous = positions.put(dateIso, index);
+      if (previous != null) {
+        results.set(previous, PlanUpsertResult.superseded(dateIso));
       }
-      PlanDocument claimed = new PlanDocument();
-      claimed.setId(buildId(userId, dateIso));
-      claimed.setUserId(userId);
-      claimed.setDateIso(dateIso);
-      claimed.setSlots(plan.getSlots());
-      repository.save(claimed);
-      if (!claimed.getId().equals(plan.getId())) {
-        repository.deleteById(plan.getId());
+    }
+    if (positions.isEmpty()) {
+      return results;
+    }
+    List<String> dates = new ArrayList<>(positions.keySet());
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PlanDocument.class);
+    for (String dateIso : dates) {
+      bulk.upsert(
+          new Query(Criteria.where("user_id").is(userId).and("date_iso").is(dateIso)),
+          new Update()
+              .set("slots", plans.get(positions.get(dateIso)).getSlots())
+              .setOnInsert("_id", buildId(userId, dateIso))
+      );
+    }
+    Map<Integer, BulkWriteError> failures = new HashMap<>();
+    try {
+      bulk.execute();
+    } catch (BulkOperationException exc) {
+      for (BulkWriteError error : exc.getErrors()) {
+        failures.put(error.getIndex(), error);
+      }
+      logger.warn("Bulk plan upsert for user {} failed for {} of {} days", userId, failures.size(), dates.size());
+    }
+    Map<String, Map<String, String>> changed = new LinkedHashMap<>();
+    for (int index = 0; index < dates.size(); index++) {
+      String dateIso = dates.get(index);
+      int position = positions.get(dateIso);
+      if (failures.containsKey(index)) {
+        results.set(position, PlanUpsertResult.failed(dateIso, "Write failed"));
+        continue;
       }
+      PlanDocument saved = new PlanDocument();
+      saved.setUserId(userId);
+      saved.setDateIso(dateIso);
+      saved.setSlots(plans.get(position).getSlots());
+      results.set(position, PlanUpsertResult.saved(dateIso, saved));
+      changed.put(dateIso, saved.getSlots());
+    }
+    if (!changed.isEmpty()) {
+      eventPublisher.publishEvent(new PlansChangedEvent(userId, changed));
     }
+    return results;
+  }
+
+  public void delete(String userId, String dateIso) {
+    migrationService.claimLegacy(userId);
+    PlanDocument existing = repository.findByUserIdAndDateIso(userId, dateIso).orElseThrow();
+    repository.deleteById(existing.getId());
+    eventPublisher.publishEvent(new PlanChangedEvent(userId, dateIso, null));
   }
 
   private Optional<LocalDate> parseDate(Optional<String> raw) {
@@ -0,0 +1,25 @@
+package com.mealplaner.plan;
+
+public record PlanUpsertResult(String dateIso, Status status, PlanDocument plan, String error) {
+  public enum Status {
+    SAVED,
+    FAILED,
+    SUPERSEDED
+  }
+
+  public static PlanUpsertResult saved(String dateIso, PlanDocument plan) {
+    return new PlanUpsertResult(dateIso, Status.SAVED, plan, null);
+  }
+
+  public static PlanUpsertResult failed(String dateIso, String error) {
+    return new PlanUpsertResult(dateIso, Status.FAILED, null, error);
+  }
+
+  public static PlanUpsertResult superseded(String dateIso) {
+    return new PlanUpsertResult(dateIso, Status.SUPERSEDED, null, "Superseded by a later entry for the same date");
+  }
+
+  public boolean saved() {
+    return status == Status.SAVED;
+  }
+}
@@ -0,0 +1,5 @@
+package com.mealplaner.plan;
+
+import java.util.Map;
+
+public record PlansChangedEvent(String userId, Map<String, Map<String, String>> slotsByDate) {}
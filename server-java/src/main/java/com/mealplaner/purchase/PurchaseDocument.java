@@ -2,10 +2,15 @@ package com.mealplaner.purchase;
 
 import java.time.Instant;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "purchases")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_purchased_at", def = "{'user_id': 1, 'purchased_at': -1}")
+})
 public class PurchaseDocument {
   @Id
   private String id;
@@ -0,0 +1,64 @@
+package com.mealplaner.purchase;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PurchasePriceQuery {
+  private final MongoTemplate mongoTemplate;
+
+  public PurchasePriceQuery(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  PurchasePriceSummary summarize(String userId, Instant start, Instant end, int limit) {
+    List<Document> stages = List.of(
+        new Document("$match", new Document("user_id", userId)
+            .append("purchased_at", new Document("$gte", Date.from(start)).append("$lte", Date.from(end)))),
+        new Document("$facet", new Document()
+            .append("summary", List.of(
+                new Document("$group", new Document("_id", null)
+                    .append("average", new Document("$avg", "$price")))
+            ))
+            .append("top", List.of(
+                new Document("$sort", new Document("price", -1).append("purchased_at", -1).append("_id", -1)),
+                new Document("$limit", limit)
+            )))
+    );
+    List<AggregationOperation> operations = stages.stream()
+        .map(stage -> (AggregationOperation) context -> stage)
+        .toList();
+    Document result = mongoTemplate.aggregate(
+        Aggregation.newAggregation(operations),
+        mongoTemplate.getCollectionName(PurchaseDocument.class),
+        Document.class
+    ).getUniqueMappedResult();
+    if (result == null) {
+      return new PurchasePriceSummary(0.0, List.of());
+    }
+
+    double average = 0.0;
+    for (Document row : rows(result, "summary")) {
+      Object value = row.get("average");
+      average = value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+    List<PurchaseDocument> top = new ArrayList<>();
+    for (Document row : rows(result, "top")) {
+      top.add(mongoTemplate.getConverter().read(PurchaseDocument.class, row));
+    }
+    return new PurchasePriceSummary(average, top);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Document> rows(Document result, String facet) {
+    Object value = result.get(facet);
+    return value instanceof List<?> list ? (List<Document>) list : List.of();
+  }
+}
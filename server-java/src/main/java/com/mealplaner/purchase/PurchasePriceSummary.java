@@ -0,0 +1,5 @@
+package com.mealplaner.purchase;
+
+import java.util.List;
+
+public record PurchasePriceSummary(double averagePrice, List<PurchaseDocument> top) {}
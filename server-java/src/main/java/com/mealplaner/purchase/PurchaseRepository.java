@@ -2,14 +2,11 @@ package com.mealplaner.purchase;
 
 import java.time.Instant;
 import java.util.List;
+import org.springframework.data.domain.Range;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface PurchaseRepository extends MongoRepository<PurchaseDocument, String> {
-  List<PurchaseDocument> findByUserIdAndPurchasedAtBetweenOrderByPurchasedAtDesc(
-      String userId,
-      Instant start,
-      Instant end
-  );
+  List<PurchaseDocument> findByUserIdAndPurchasedAtBetweenOrderByPurchasedAtDesc(String userId, Range<Instant> range);
   List<PurchaseDocument> findByUserIdAndPurchasedAtGreaterThanEqualOrderByPurchasedAtDesc(String userId, Instant start);
   List<PurchaseDocument> findByUserIdAndPurchasedAtLessThanEqualOrderByPurchasedAtDesc(String userId, Instant end);
   List<PurchaseDocument> findByUserIdOrderByPurchasedAtDesc(String userId);
@@ -17,8 +14,7 @@ public interface PurchaseRepository extends MongoRepository<PurchaseDocument, St
   List<PurchaseDocument> findByUserIdAndIngredientKeyAndPurchasedAtBetweenOrderByPurchasedAtDesc(
       String userId,
       String ingredientKey,
-      Instant start,
-      Instant end
+      Range<Instant> range
   );
   List<PurchaseDocument> findByUserIdAndIngredientKeyAndPurchasedAtGreaterThanEqualOrderByPurchasedAtDesc(
       String userId,
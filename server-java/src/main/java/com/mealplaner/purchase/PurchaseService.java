@@ -3,6 +3,7 @@ package com.mealplaner.purchase;
 import com.mealplaner.ingredient.IngredientDocument;
 import com.mealplaner.ingredient.IngredientRepository;
 import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.migration.MigrationService;
 import com.mealplaner.util.Units;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -12,6 +13,9 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,15 +23,24 @@ public class PurchaseService {
   private final PurchaseRepository repository;
   private final IngredientRepository ingredientRepository;
   private final InventoryService inventoryService;
+  private final PurchasePriceQuery priceQuery;
+  private final MigrationService migrationService;
+  private final ApplicationEventPublisher eventPublisher;
 
   public PurchaseService(
       PurchaseRepository repository,
       IngredientRepository ingredientRepository,
-      InventoryService inventoryService
+      InventoryService inventoryService,
+      PurchasePriceQuery priceQuery,
+      MigrationService migrationService,
+      ApplicationEventPublisher eventPublisher
   ) {
     this.repository = repository;
     this.ingredientRepository = ingredientRepository;
     this.inventoryService = inventoryService;
+    this.priceQuery = priceQuery;
+    this.migrationService = migrationService;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<PurchaseDocument> list(
@@ -36,7 +49,7 @@ public class PurchaseService {
       Optional<String> end,
       Optional<String> ingredientKey
   ) {
-    claimUnowned(userId);
+    migrationService.claimLegacy(userId);
     Instant startValue = start.map(value -> parseRange(value, false)).orElse(null);
     Instant endValue = end.map(value -> parseRange(value, true)).orElse(null);
 
@@ -46,8 +59,7 @@ public class PurchaseService {
         return repository.findByUserIdAndIngredientKeyAndPurchasedAtBetweenOrderByPurchasedAtDesc(
             userId,
             key,
-            startValue,
-            endValue
+            Range.closed(startValue, endValue)
         );
       }
       if (startValue != null) {
@@ -68,7 +80,10 @@ public class PurchaseService {
     }
 
     if (startValue != null && endValue != null) {
-      return repository.findByUserIdAndPurchasedAtBetweenOrderByPurchasedAtDesc(userId, startValue, endValue);
+      return repository.findByUserIdAndPurchasedAtBetweenOrderByPurchasedAtDesc(
+          userId,
+          Range.closed(startValue, endValue)
+      );
     }
     if (startValue != null) {
       return repository.findByUserIdAndPurchasedAtGreaterThanEqualOrderByPurchasedAtDesc(userId, startValue);
@@ -79,6 +94,11 @@ public class PurchaseService {
     return repository.findByUserIdOrderByPurchasedAtDesc(userId);
   }
 
+  public PurchasePriceSummary summarizePrices(String userId, String start, String end, int limit) {
+    migrationService.claimLegacy(userId);
+    return priceQuery.summarize(userId, parseRange(start, false), parseRange(end, true), limit);
+  }
+
   public PurchaseDocument create(
       String userId,
       String ingredientKey,
@@ -108,7 +128,10 @@ public class PurchaseService {
     doc.setUnit(sanitizedUnit);
     doc.setPrice(price);
     doc.setPurchasedAt(normalize(purchasedAt));
+    doc.setId(new ObjectId().toHexString());
+    eventPublisher.publishEvent(new PurchaseSavingEvent(doc));
     PurchaseDocument saved = repository.save(doc);
+    eventPublisher.publishEvent(new PurchaseRecordedEvent(saved));
     if (applyToInventory) {
       inventoryService.addStock(
           userId,
@@ -130,7 +153,7 @@ public class PurchaseService {
     return value.toInstant(ZoneOffset.UTC);
   }
 
-  private Instant parseRange(String raw, boolean endOfDay) {
+  public Instant parseRange(String raw, boolean endOfDay) {
     try {
       return OffsetDateTime.parse(raw).toInstant();
     } catch (DateTimeParseException ignored) {
@@ -145,15 +168,4 @@ public class PurchaseService {
       }
     }
   }
-
-  private void claimUnowned(String userId) {
-    List<PurchaseDocument> legacy = repository.findByUserIdIsNull();
-    if (legacy.isEmpty()) {
-      return;
-    }
-    for (PurchaseDocument doc : legacy) {
-      doc.setUserId(userId);
-    }
-    repository.saveAll(legacy);
-  }
 }
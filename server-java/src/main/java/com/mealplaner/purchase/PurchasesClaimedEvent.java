@@ -0,0 +1,3 @@
+package com.mealplaner.purchase;
+
+public record PurchasesClaimedEvent(String userId) {}
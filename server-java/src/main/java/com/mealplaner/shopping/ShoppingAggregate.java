@@ -0,0 +1,306 @@
+package com.mealplaner.shopping;
+
+import com.mealplaner.api.dto.ShoppingListItem;
+import com.mealplaner.dish.DishDocument;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.util.IngredientKey;
+import com.mealplaner.util.Units;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class ShoppingAggregate {
+  private final LocalDate start;
+  private final LocalDate end;
+  private final Map<String, List<String>> slotsByDate = new HashMap<>();
+  private final Map<String, Integer> dishUses = new HashMap<>();
+  private final Map<String, List<Line>> linesByDish = new HashMap<>();
+  private final Map<String, Set<String>> dishesByBucket = new HashMap<>();
+  private final Map<String, Stock> stockByItem = new HashMap<>();
+  private final Map<String, Map<String, Double>> stockByKey = new HashMap<>();
+  private final Map<String, Map<String, Double>> stockByName = new HashMap<>();
+
+  ShoppingAggregate(LocalDate start, LocalDate end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  record Line(String bucket, String ingredientKey, String name, String unit, double qty) {}
+
+  private record Stock(String keyBucket, String nameBucket, double qty) {}
+
+  boolean covers(String dateIso) {
+    LocalDate date = parseDate(dateIso);
+    if (date == null) {
+      return false;
+    }
+    return (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+  }
+
+  Set<String> usedDishes() {
+    return new HashSet<>(dishUses.keySet());
+  }
+
+  boolean usesDish(String dishId) {
+    return dishUses.containsKey(dishId);
+  }
+
+  Set<String> unknownDishes(Map<String, String> slots) {
+    Set<String> unknown = new HashSet<>();
+    for (String dishId : slotDishes(slots)) {
+      if (!linesByDish.containsKey(dishId)) {
+        unknown.add(dishId);
+      }
+    }
+    return unknown;
+  }
+
+  void putPlan(String dateIso, Map<String, String> slots, Map<String, DishDocument> loadedDishes) {
+    putPlans(Collections.singletonMap(dateIso, slots), loadedDishes);
+  }
+
+  void putPlans(Map<String, Map<String, String>> plans, Map<String, DishDocument> loadedDishes) {
+    List<String> previous = new ArrayList<>();
+    for (Map.Entry<String, Map<String, String>> plan : plans.entrySet()) {
+      for (String dishId : slotDishes(plan.getValue())) {
+        if (!linesByDish.containsKey(dishId)) {
+          DishDocument dish = loadedDishes.get(dishId);
+          linesByDish.put(dishId, dish == null ? List.of() : linesOf(dish));
+        }
+      }
+      List<String> replaced = slotsByDate.remove(plan.getKey());
+      if (replaced != null) {
+        previous.addAll(replaced);
+      }
+      if (plan.getValue() != null) {
+        List<String> current = slotDishes(plan.getValue());
+        slotsByDate.put(plan.getKey(), current);
+        current.forEach(this::retain);
+      }
+    }
+    previous.forEach(this::release);
+  }
+
+  void putDish(String dishId, DishDocument dish) {
+    if (!dishUses.containsKey(dishId)) {
+      return;
+    }
+    detach(dishId);
+    linesByDish.put(dishId, dish == null ? List.of() : linesOf(dish));
+    attach(dishId);
+  }
+
+  void putInventoryItem(String itemId, InventoryItemDocument item) {
+    Stock previous = stockByItem.remove(itemId);
+    if (previous != null) {
+      removeStock(stockByName, previous.nameBucket(), itemId);
+      if (previous.keyBucket() != null) {
+        removeStock(stockByKey, previous.keyBucket(), itemId);
+      }
+    }
+    Stock stock = stockOf(item);
+    if (stock == null) {
+      return;
+    }
+    stockByItem.put(itemId, stock);
+    stockByName.computeIfAbsent(stock.nameBucket(), ignore -> new HashMap<>()).put(itemId, stock.qty());
+    if (stock.keyBucket() != null) {
+      stockByKey.computeIfAbsent(stock.keyBucket(), ignore -> new HashMap<>()).put(itemId, stock.qty());
+    }
+  }
+
+  List<ShoppingListItem> items() {
+    List<ShoppingListItem> items = new ArrayList<>();
+    for (Map.Entry<String, Set<String>> entry : dishesByBucket.entrySet()) {
+      String bucket = entry.getKey();
+      ShoppingListItem item = new ShoppingListItem();
+      double required = 0.0;
+      List<String> dishes = new ArrayList<>();
+      for (String dishId : entry.getValue()) {
+        int uses = dishUses.getOrDefault(dishId, 0);
+        for (Line line : linesByDish.getOrDefault(dishId, List.of())) {
+          if (!line.bucket().equals(bucket)) {
+            continue;
+          }
+          if (item.getName() == null) {
+            item.setName(line.name());
+            item.setUnit(line.unit());
+          }
+          if (item.getIngredientKey() == null && line.ingredientKey() != null) {
+            item.setIngredientKey(line.ingredientKey());
+          }
+          required += line.qty() * uses;
+        }
+        dishes.add(dishId);
+      }
+      String keyBucket = item.getIngredientKey() == null ? null : item.getIngredientKey() + "::" + item.getUnit();
+      String nameBucket = IngredientKey.normalize(item.getName(), item.getUnit()) + "::" + item.getUnit();
+      double inStock = keyBucket != null && stockByKey.containsKey(keyBucket)
+          ? sum(stockByKey.get(keyBucket))
+          : sum(stockByName.getOrDefault(nameBucket, Map.of()));
+      double toBuy = Math.max(required - inStock, 0.0);
+      item.setRequiredQty(required);
+      item.setInStockQty(inStock);
+      item.setToBuyQty(toBuy);
+      item.setQty(toBuy);
+      item.setDishes(dishes);
+      items.add(item);
+    }
+    items.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+    return items;
+  }
+
+  static boolean sameItems(List<ShoppingListItem> left, List<ShoppingListItem> right) {
+    if (left.size() != right.size()) {
+      return false;
+    }
+    Map<String, ShoppingListItem> byBucket = new HashMap<>();
+    for (ShoppingListItem item : left) {
+      byBucket.put(bucketOf(item), item);
+    }
+    for (ShoppingListItem item : right) {
+      ShoppingListItem other = byBucket.get(bucketOf(item));
+      if (other == null
+          || Math.abs(other.getRequiredQty() - item.getRequiredQty()) > 1e-6
+          || Math.abs(other.getInStockQty() - item.getInStockQty()) > 1e-6
+          || Math.abs(other.getToBuyQty() - item.getToBuyQty()) > 1e-6
+          || !new HashSet<>(other.getDishes()).equals(new HashSet<>(item.getDishes()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void retain(String dishId) {
+    int uses = dishUses.merge(dishId, 1, Integer::sum);
+    if (uses == 1) {
+      attach(dishId);
+    }
+  }
+
+  private void release(String dishId) {
+    Integer uses = dishUses.get(dishId);
+    if (uses == null) {
+      return;
+    }
+    if (uses > 1) {
+      dishUses.put(dishId, uses - 1);
+      return;
+    }
+    detach(dishId);
+    dishUses.remove(dishId);
+    linesByDish.remove(dishId);
+  }
+
+  private void attach(String dishId) {
+    for (Line line : linesByDish.getOrDefault(dishId, List.of())) {
+      dishesByBucket.computeIfAbsent(line.bucket(), ignore -> new LinkedHashSet<>()).add(dishId);
+    }
+  }
+
+  private void detach(String dishId) {
+    for (Line line : linesByDish.getOrDefault(dishId, List.of())) {
+      Set<String> dishes = dishesByBucket.get(line.bucket());
+      if (dishes == null) {
+        continue;
+      }
+      dishes.remove(dishId);
+      if (dishes.isEmpty()) {
+        dishesByBucket.remove(line.bucket());
+      }
+    }
+  }
+
+  private static void removeStock(Map<String, Map<String, Double>> index, String bucket, String itemId) {
+    Map<String, Double> items = index.get(bucket);
+    if (items == null) {
+      return;
+    }
+    items.remove(itemId);
+    if (items.isEmpty()) {
+      index.remove(bucket);
+    }
+  }
+
+  private static double sum(Map<String, Double> quantities) {
+    double total = 0.0;
+    for (double qty : quantities.values()) {
+      total += qty;
+    }
+    return total;
+  }
+
+  private static List<String> slotDishes(Map<String, String> slots) {
+    List<String> dishes = new ArrayList<>();
+    if (slots == null) {
+      return dishes;
+    }
+    for (String dishId : slots.values()) {
+      if (dishId != null && !dishId.isBlank()) {
+        dishes.add(dishId);
+      }
+    }
+    return dishes;
+  }
+
+  static List<Line> linesOf(DishDocument dish) {
+    List<Line> lines = new ArrayList<>();
+    dish.getIngredients().forEach(ingredient -> {
+      if (ingredient.getName() == null || ingredient.getName().trim().isEmpty()) {
+        return;
+      }
+      String unit = Units.sanitize(ingredient.getUnit());
+      String name = ingredient.getName().trim();
+      String ingredientKey = normalizeKey(ingredient.getIngredientKey());
+      String nameKey = IngredientKey.normalize(name, unit);
+      String bucket = (ingredientKey == null ? nameKey : ingredientKey) + "::" + unit;
+      lines.add(new Line(bucket, ingredientKey, name, unit, ingredient.getQty()));
+    });
+    return lines;
+  }
+
+  private static Stock stockOf(InventoryItemDocument item) {
+    if (item == null || item.getName() == null) {
+      return null;
+    }
+    String unit = Units.sanitize(item.getUnit());
+    String name = item.getName().trim();
+    if (name.isEmpty()) {
+      return null;
+    }
+    String ingredientKey = normalizeKey(item.getIngredientKey());
+    String nameBucket = IngredientKey.normalize(name, unit) + "::" + unit;
+    String keyBucket = ingredientKey == null ? null : ingredientKey + "::" + unit;
+    return new Stock(keyBucket, nameBucket, item.getQuantity());
+  }
+
+  private static String bucketOf(ShoppingListItem item) {
+    String unit = Units.sanitize(item.getUnit());
+    String ingredientKey = normalizeKey(item.getIngredientKey());
+    return (ingredientKey == null ? IngredientKey.normalize(item.getName(), unit) : ingredientKey) + "::" + unit;
+  }
+
+  static LocalDate parseDate(String raw) {
+    if (raw == null) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(raw);
+    } catch (Exception exc) {
+      return null;
+    }
+  }
+
+  private static String normalizeKey(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    return value.trim().toLowerCase();
+  }
+}
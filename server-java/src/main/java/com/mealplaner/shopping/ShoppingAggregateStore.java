@@ -0,0 +1,420 @@
+package com.mealplaner.shopping;
+
+import com.mealplaner.api.dto.ShoppingListItem;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishChangedEvent;
+import com.mealplaner.dish.DishDocument;
+import com.mealplaner.dish.DishRepository;
+import com.mealplaner.inventory.InventoryChangedEvent;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.inventory.InventoryItemRepository;
+import com.mealplaner.plan.PlanChangedEvent;
+import com.mealplaner.plan.PlanDocument;
+import com.mealplaner.plan.PlanService;
+import com.mealplaner.plan.PlansChangedEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ShoppingAggregateStore {
+  private static final int MAX_RANGES_PER_USER = 8;
+  private static final int LOCK_STRIPES = 64;
+
+  private final PlanService planService;
+  private final DishRepository dishRepository;
+  private final InventoryItemRepository inventoryRepository;
+  private final AppProperties properties;
+  private final ApplicationEventPublisher eventPublisher;
+  private final LinkedHashMap<String, LinkedHashMap<Range, ShoppingAggregate>> users =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashSet<Range> dirty = new LinkedHashSet<>();
+  private final Object[] locks = new Object[LOCK_STRIPES];
+  private final long[] writes = new long[LOCK_STRIPES];
+
+  public ShoppingAggregateStore(
+      PlanService planService,
+      DishRepository dishRepository,
+      InventoryItemRepository inventoryRepository,
+      AppProperties properties,
+      ApplicationEventPublisher eventPublisher
+  ) {
+    this.planService = planService;
+    this.dishRepository = dishRepository;
+    this.inventoryRepository = inventoryRepository;
+    this.properties = properties;
+    this.eventPublisher = eventPublisher;
+    for (int index = 0; index < LOCK_STRIPES; index++) {
+      locks[index] = new Object();
+    }
+  }
+
+  record Range(String userId, String start, String end) {}
+
+  /**
+   * Returns the cached aggregate for the range or loads it outside the user's stripe lock. The
+   * loaded aggregate is only cached when no write hit the stripe while it was loading, since the
+   * load may have missed that write.
+   */
+  List<ShoppingListItem> items(String userId, String start, String end) {
+    Range range = new Range(userId, start, end);
+    int stripe = stripe(userId);
+    long observedWrites;
+    synchronized (locks[stripe]) {
+      ShoppingAggregate cached = cached(range);
+      if (cached != null) {
+        return cached.items();
+      }
+      observedWrites = writes[stripe];
+    }
+    ShoppingAggregate loaded = load(range);
+    synchronized (locks[stripe]) {
+      ShoppingAggregate cached = cached(range);
+      if (cached != null) {
+        return cached.items();
+      }
+      if (writes[stripe] == observedWrites) {
+        LinkedHashMap<Range, ShoppingAggregate> ranges = track(userId);
+        ranges.put(range, loaded);
+        List<Range> dropped = new ArrayList<>();
+        Iterator<Range> oldest = ranges.keySet().iterator();
+        while (ranges.size() > MAX_RANGES_PER_USER && oldest.hasNext()) {
+          dropped.add(oldest.next());
+          oldest.remove();
+        }
+        clean(dropped);
+      }
+      return loaded.items();
+    }
+  }
+
+  List<Range> drainDirty(int limit) {
+    synchronized (dirty) {
+      List<Range> drained = new ArrayList<>();
+      Iterator<Range> iterator = dirty.iterator();
+      while (drained.size() < limit && iterator.hasNext()) {
+        drained.add(iterator.next());
+        iterator.remove();
+      }
+      return drained;
+    }
+  }
+
+  long writes(String userId) {
+    synchronized (lockFor(userId)) {
+      return writes[stripe(userId)];
+    }
+  }
+
+  /**
+   * Returns the cached items when no write hit the range's stripe since {@code observedWrites}. A
+   * range whose stripe was written meanwhile is queued again instead, since a rebuild read before
+   * that write cannot tell drift from the write itself.
+   */
+  Optional<List<ShoppingListItem>> peek(Range range, long observedWrites) {
+    synchronized (lockFor(range.userId())) {
+      ShoppingAggregate cached = cached(range);
+      if (cached == null) {
+        return Optional.empty();
+      }
+      if (writes[stripe(range.userId())] != observedWrites) {
+        markDirty(List.of(range));
+        return Optional.empty();
+      }
+      return Optional.of(cached.items());
+    }
+  }
+
+  void invalidate(String userId) {
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges;
+      synchronized (users) {
+        ranges = users.remove(userId);
+      }
+      if (ranges != null) {
+        clean(ranges.keySet());
+      }
+    }
+  }
+
+  @EventListener
+  public void onPlanChanged(PlanChangedEvent event) {
+    if (event.dateIso() == null) {
+      invalidate(event.userId());
+    } else {
+      applyPlans(event.userId(), Collections.singletonMap(event.dateIso(), event.slots()));
+    }
+    eventPublisher.publishEvent(new ShoppingChangedEvent(event.userId()));
+  }
+
+  @EventListener
+  public void onPlansChanged(PlansChangedEvent event) {
+    applyPlans(event.userId(), event.slotsByDate());
+    eventPublisher.publishEvent(new ShoppingChangedEvent(event.userId()));
+  }
+
+  @EventListener
+  public void onDishChanged(DishChangedEvent event) {
+    if (event.dishId() == null) {
+      applyDishes(event.userId());
+    } else {
+      applyDish(event.userId(), event.dishId());
+    }
+    eventPublisher.publishEvent(new ShoppingChangedEvent(event.userId()));
+  }
+
+  @EventListener
+  public void onInventoryChanged(InventoryChangedEvent event) {
+    synchronized (lockFor(event.userId())) {
+      markWritten(event.userId());
+      Map<Range, ShoppingAggregate> ranges = ranges(event.userId());
+      if (ranges != null) {
+        for (ShoppingAggregate aggregate : ranges.values()) {
+          aggregate.putInventoryItem(event.itemId(), event.item());
+        }
+        markDirty(ranges.keySet());
+      }
+    }
+    eventPublisher.publishEvent(new ShoppingChangedEvent(event.userId()));
+  }
+
+  private void applyDish(String userId, String dishId) {
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null || ranges.values().stream().noneMatch(aggregate -> aggregate.usesDish(dishId))) {
+        return;
+      }
+    }
+    DishDocument dish = loadDishes(userId, Set.of(dishId)).get(dishId);
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null) {
+        return;
+      }
+      List<Range> updated = new ArrayList<>();
+      for (Map.Entry<Range, ShoppingAggregate> entry : ranges.entrySet()) {
+        if (entry.getValue().usesDish(dishId)) {
+          entry.getValue().putDish(dishId, dish);
+          updated.add(entry.getKey());
+        }
+      }
+      markDirty(updated);
+    }
+  }
+
+  private void applyDishes(String userId) {
+    Set<String> used = new HashSet<>();
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null) {
+        return;
+      }
+      for (ShoppingAggregate aggregate : ranges.values()) {
+        used.addAll(aggregate.usedDishes());
+      }
+    }
+    Map<String, DishDocument> loaded = loadDishes(userId, used);
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null) {
+        return;
+      }
+      List<Range> dropped = new ArrayList<>();
+      List<Range> updated = new ArrayList<>();
+      Iterator<Map.Entry<Range, ShoppingAggregate>> iterator = ranges.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Range, ShoppingAggregate> entry = iterator.next();
+        ShoppingAggregate aggregate = entry.getValue();
+        if (!used.containsAll(aggregate.usedDishes())) {
+          dropped.add(entry.getKey());
+          iterator.remove();
+          continue;
+        }
+        for (String dishId : aggregate.usedDishes()) {
+          aggregate.putDish(dishId, loaded.get(dishId));
+        }
+        updated.add(entry.getKey());
+      }
+      clean(dropped);
+      markDirty(updated);
+    }
+  }
+
+  private void applyPlans(String userId, Map<String, Map<String, String>> plans) {
+    Set<String> unknown = new HashSet<>();
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null) {
+        return;
+      }
+      for (ShoppingAggregate aggregate : ranges.values()) {
+        unknown.addAll(unknownDishes(aggregate, covered(aggregate, plans)));
+      }
+    }
+    Map<String, DishDocument> loaded = loadDishes(userId, unknown);
+    synchronized (lockFor(userId)) {
+      markWritten(userId);
+      Map<Range, ShoppingAggregate> ranges = ranges(userId);
+      if (ranges == null) {
+        return;
+      }
+      List<Range> dropped = new ArrayList<>();
+      List<Range> updated = new ArrayList<>();
+      Iterator<Map.Entry<Range, ShoppingAggregate>> iterator = ranges.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Range, ShoppingAggregate> entry = iterator.next();
+        ShoppingAggregate aggregate = entry.getValue();
+        Map<String, Map<String, String>> covered = covered(aggregate, plans);
+        if (covered.isEmpty()) {
+          continue;
+        }
+        if (!unknown.containsAll(unknownDishes(aggregate, covered))) {
+          dropped.add(entry.getKey());
+          iterator.remove();
+          continue;
+        }
+        aggregate.putPlans(covered, loaded);
+        updated.add(entry.getKey());
+      }
+      clean(dropped);
+      markDirty(updated);
+    }
+  }
+
+  private Map<String, Map<String, String>> covered(
+      ShoppingAggregate aggregate,
+      Map<String, Map<String, String>> plans
+  ) {
+    Map<String, Map<String, String>> covered = new HashMap<>();
+    for (Map.Entry<String, Map<String, String>> plan : plans.entrySet()) {
+      if (aggregate.covers(plan.getKey())) {
+        covered.put(plan.getKey(), plan.getValue());
+      }
+    }
+    return covered;
+  }
+
+  private Set<String> unknownDishes(ShoppingAggregate aggregate, Map<String, Map<String, String>> plans) {
+    Set<String> unknown = new HashSet<>();
+    for (Map<String, String> slots : plans.values()) {
+      unknown.addAll(aggregate.unknownDishes(slots));
+    }
+    return unknown;
+  }
+
+  private ShoppingAggregate cached(Range range) {
+    Map<Range, ShoppingAggregate> ranges = ranges(range.userId());
+    return ranges == null ? null : ranges.get(range);
+  }
+
+  private LinkedHashMap<Range, ShoppingAggregate> ranges(String userId) {
+    synchronized (users) {
+      return users.get(userId);
+    }
+  }
+
+  private LinkedHashMap<Range, ShoppingAggregate> track(String userId) {
+    LinkedHashMap<Range, ShoppingAggregate> ranges;
+    Set<String> evicted = new HashSet<>();
+    synchronized (users) {
+      ranges = users.computeIfAbsent(userId, ignore -> new LinkedHashMap<>(16, 0.75f, true));
+      int maxUsers = properties.getShopping().getAggregateMaxUsers();
+      Iterator<String> oldest = users.keySet().iterator();
+      while (users.size() > maxUsers && oldest.hasNext()) {
+        evicted.add(oldest.next());
+        oldest.remove();
+      }
+    }
+    if (!evicted.isEmpty()) {
+      synchronized (dirty) {
+        dirty.removeIf(range -> evicted.contains(range.userId()));
+      }
+    }
+    return ranges;
+  }
+
+  private ShoppingAggregate load(Range range) {
+    ShoppingAggregate aggregate = new ShoppingAggregate(
+        ShoppingAggregate.parseDate(range.start()),
+        ShoppingAggregate.parseDate(range.end())
+    );
+    for (InventoryItemDocument item : inventoryRepository.findByUserId(range.userId())) {
+      if (item != null) {
+        aggregate.putInventoryItem(item.getId(), item);
+      }
+    }
+    List<PlanDocument> plans = planService.listPlans(
+        range.userId(),
+        Optional.of(range.start()),
+        Optional.of(range.end())
+    );
+    Set<String> dishIds = new HashSet<>();
+    for (PlanDocument plan : plans) {
+      dishIds.addAll(aggregate.unknownDishes(plan.getSlots()));
+    }
+    Map<String, DishDocument> dishes = loadDishes(range.userId(), dishIds);
+    for (PlanDocument plan : plans) {
+      aggregate.putPlan(plan.getDateIso() == null ? plan.getId() : plan.getDateIso(), plan.getSlots(), dishes);
+    }
+    return aggregate;
+  }
+
+  private Map<String, DishDocument> loadDishes(String userId, Set<String> dishIds) {
+    Map<String, DishDocument> dishes = new HashMap<>();
+    if (dishIds.isEmpty()) {
+      return dishes;
+    }
+    for (DishDocument dish : dishRepository.findByUserIdAndIdIn(userId, dishIds)) {
+      dishes.put(dish.getId(), dish);
+    }
+    return dishes;
+  }
+
+  private void markWritten(String userId) {
+    writes[stripe(userId)] += 1;
+  }
+
+  private void markDirty(Collection<Range> ranges) {
+    if (ranges.isEmpty()) {
+      return;
+    }
+    synchronized (dirty) {
+      dirty.addAll(ranges);
+    }
+  }
+
+  private void clean(Collection<Range> ranges) {
+    if (ranges.isEmpty()) {
+      return;
+    }
+    synchronized (dirty) {
+      dirty.removeAll(ranges);
+    }
+  }
+
+  private Object lockFor(String userId) {
+    return locks[stripe(userId)];
+  }
+
+  private static int stripe(String userId) {
+    return Math.floorMod(userId.hashCode(), LOCK_STRIPES);
+  }
+}
@@ -0,0 +1,3 @@
+package com.mealplaner.shopping;
+
+public record ShoppingChangedEvent(String userId) {}
@@ -1,6 +1,7 @@
 package com.mealplaner.shopping;
 
 import com.mealplaner.api.dto.ShoppingListItem;
+import com.mealplaner.config.AppProperties;
 import com.mealplaner.dish.DishDocument;
 import com.mealplaner.plan.PlanDocument;
 import com.mealplaner.dish.DishRepository;
@@ -9,6 +10,7 @@ import com.mealplaner.inventory.InventoryItemRepository;
 import com.mealplaner.plan.PlanService;
 import com.mealplaner.util.IngredientKey;
 import com.mealplaner.util.Units;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -16,25 +18,62 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ShoppingService {
+  private static final Logger logger = LoggerFactory.getLogger(ShoppingService.class);
+
   private final PlanService planService;
   private final DishRepository dishRepository;
   private final InventoryItemRepository inventoryRepository;
+  private final ShoppingAggregateStore aggregateStore;
+  private final MeterRegistry meterRegistry;
+  private final AppProperties properties;
 
   public ShoppingService(
       PlanService planService,
       DishRepository dishRepository,
-      InventoryItemRepository inventoryRepository
+      InventoryItemRepository inventoryRepository,
+      ShoppingAggregateStore aggregateStore,
+      MeterRegistry meterRegistry,
+      AppProperties properties
   ) {
     this.planService = planService;
     this.dishRepository = dishRepository;
     this.inventoryRepository = inventoryRepository;
+    this.aggregateStore = aggregateStore;
+    this.meterRegistry = meterRegistry;
+    this.properties = properties;
   }
 
   public List<ShoppingListItem> build(String userId, String start, String end) {
+    return aggregateStore.items(userId, start, end);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.shopping.verify-interval-millis:600000}",
+      initialDelayString = "${app.shopping.verify-interval-millis:600000}"
+  )
+  public void verifyAggregates() {
+    int sampleSize = properties.getShopping().getVerifySampleSize();
+    for (ShoppingAggregateStore.Range range : aggregateStore.drainDirty(sampleSize)) {
+      long observedWrites = aggregateStore.writes(range.userId());
+      List<ShoppingListItem> rebuilt = rebuild(range.userId(), range.start(), range.end());
+      Optional<List<ShoppingListItem>> cached = aggregateStore.peek(range, observedWrites);
+      if (cached.isEmpty() || ShoppingAggregate.sameItems(cached.get(), rebuilt)) {
+        continue;
+      }
+      logger.warn("Shopping aggregate for user {} drifted from full rebuild, dropping it", range.userId());
+      meterRegistry.counter("shopping.aggregate.drift").increment();
+      aggregateStore.invalidate(range.userId());
+    }
+  }
+
+  public List<ShoppingListItem> rebuild(String userId, String start, String end) {
     List<PlanDocument> plans = planService.listPlans(userId, Optional.of(start), Optional.of(end));
     Set<String> dishIds = new HashSet<>();
     Map<String, List<String>> planSlots = new HashMap<>();
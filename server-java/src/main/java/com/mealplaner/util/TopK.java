@@ -0,0 +1,61 @@
+package com.mealplaner.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public final class TopK<T> {
+  private final int limit;
+  private final Comparator<? super T> order;
+  private final PriorityQueue<Slot<T>> heap;
+  private long sequence;
+
+  public TopK(int limit, Comparator<? super T> order) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Invalid limit");
+    }
+    this.limit = limit;
+    this.order = order;
+    this.heap = new PriorityQueue<>(limit + 1, this::compareWorstFirst);
+  }
+
+  public int limit() {
+    return limit;
+  }
+
+  public boolean offer(T item) {
+    Slot<T> slot = new Slot<>(item, sequence++);
+    if (heap.size() < limit) {
+      heap.add(slot);
+      return true;
+    }
+    if (compareWorstFirst(slot, heap.peek()) <= 0) {
+      return false;
+    }
+    heap.poll();
+    heap.add(slot);
+    return true;
+  }
+
+  public List<T> toList() {
+    List<Slot<T>> slots = new ArrayList<>(heap);
+    slots.sort((left, right) -> compareWorstFirst(right, left));
+    List<T> result = new ArrayList<>(slots.size());
+    for (Slot<T> slot : slots) {
+      result.add(slot.item());
+    }
+    return result;
+  }
+
+  private int compareWorstFirst(Slot<T> left, Slot<T> right) {
+    int compared = order.compare(right.item(), left.item());
+    if (compared != 0) {
+      return compared;
+    }
+    return Long.compare(right.sequence(), left.sequence());
+  }
+
+  private record Slot<T>(T item, long sequence) {
+  }
+}
@@ -0,0 +1,166 @@
+package com.mealplaner.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class UnitConverter {
+  public static final int UNKNOWN = -1;
+  public static final int MASS = 0;
+  public static final int VOLUME = 1;
+  public static final int COUNT = 2;
+
+  public static final int G;
+  public static final int KG;
+  public static final int L;
+  public static final int PCS;
+
+  private static final String[] NAMES;
+  private static final int[] DIMENSIONS;
+  private static final double[] FACTORS;
+  private static final int[] BASE_CODES = new int[3];
+  private static final Map<String, Integer> CODES = new HashMap<>();
+
+  static {
+    List<String> units = Units.MEASUREMENT_UNITS;
+    NAMES = units.toArray(new String[0]);
+    DIMENSIONS = new int[NAMES.length];
+    FACTORS = new double[NAMES.length];
+    for (int code = 0; code < NAMES.length; code++) {
+      DIMENSIONS[code] = UNKNOWN;
+      FACTORS[code] = Double.NaN;
+      addCaseVariants(CODES, NAMES[code].toLowerCase(Locale.ROOT), 0, code);
+    }
+    define("kg", MASS, 1.0);
+    define("g", MASS, 1.0 / 1000);
+    define("mg", MASS, 1.0 / 1_000_000);
+    define("lb", MASS, 0.453592);
+    define("oz", MASS, 0.0283495);
+    define("l", VOLUME, 1.0);
+    define("ml", VOLUME, 1.0 / 1000);
+    define("cup", VOLUME, 0.236588);
+    define("tbsp", VOLUME, 0.0147868);
+    define("tsp", VOLUME, 0.00492892);
+    define("pcs", COUNT, 1.0);
+    for (Map.Entry<String, String> alias : Units.aliases().entrySet()) {
+      Integer code = CODES.get(alias.getValue());
+      if (code != null) {
+        addCaseVariants(CODES, alias.getKey().toLowerCase(Locale.ROOT), 0, code);
+      }
+    }
+    G = units.indexOf("g");
+    KG = units.indexOf("kg");
+    L = units.indexOf("l");
+    PCS = units.indexOf("pcs");
+    BASE_CODES[MASS] = KG;
+    BASE_CODES[VOLUME] = L;
+    BASE_CODES[COUNT] = PCS;
+  }
+
+  private UnitConverter() {}
+
+  public static int code(String unit) {
+    if (unit == null) {
+      return UNKNOWN;
+    }
+    Integer code = CODES.get(unit);
+    if (code == null) {
+      String trimmed = unit.trim();
+      code = trimmed == unit ? null : CODES.get(trimmed);
+    }
+    return code == null ? UNKNOWN : code;
+  }
+
+  public static String name(int code) {
+    return code < 0 || code >= NAMES.length ? null : NAMES[code];
+  }
+
+  public static int dimension(int code) {
+    return code < 0 || code >= NAMES.length ? UNKNOWN : DIMENSIONS[code];
+  }
+
+  public static int baseCode(int code) {
+    int dimension = dimension(code);
+    return dimension == UNKNOWN ? UNKNOWN : BASE_CODES[dimension];
+  }
+
+  public static String baseName(int code) {
+    return name(baseCode(code));
+  }
+
+  public static double toBase(double amount, int code) {
+    return dimension(code) == UNKNOWN ? Double.NaN : amount * FACTORS[code];
+  }
+
+  public static double convert(double amount, int fromCode, int toCode) {
+    int dimension = dimension(fromCode);
+    if (dimension == UNKNOWN || dimension != dimension(toCode)) {
+      return Double.NaN;
+    }
+    if (fromCode == toCode) {
+      return amount;
+    }
+    return amount * FACTORS[fromCode] / FACTORS[toCode];
+  }
+
+  public static boolean compatible(int fromCode, int toCode) {
+    int dimension = dimension(fromCode);
+    return dimension != UNKNOWN && dimension == dimension(toCode);
+  }
+
+  public static List<String> spellings(int code) {
+    Set<String> spellings = new TreeSet<>();
+    for (Map.Entry<String, Integer> entry : CODES.entrySet()) {
+      if (entry.getValue() == code) {
+        spellings.add(entry.getKey());
+      }
+    }
+    return List.copyOf(spellings);
+  }
+
+  public static Map<String, Double> massFactors() {
+    return factors(MASS);
+  }
+
+  public static Map<String, Double> volumeFactors() {
+    return factors(VOLUME);
+  }
+
+  private static Map<String, Double> factors(int dimension) {
+    Map<String, Double> factors = new LinkedHashMap<>();
+    factors.put(NAMES[BASE_CODES[dimension]], FACTORS[BASE_CODES[dimension]]);
+    for (int code = 0; code < NAMES.length; code++) {
+      if (DIMENSIONS[code] == dimension) {
+        factors.putIfAbsent(NAMES[code], FACTORS[code]);
+      }
+    }
+    return Collections.unmodifiableMap(factors);
+  }
+
+  private static void define(String name, int dimension, double factor) {
+    int code = Units.MEASUREMENT_UNITS.indexOf(name);
+    DIMENSIONS[code] = dimension;
+    FACTORS[code] = factor;
+  }
+
+  /**
+   * Registers every upper/lower case spelling of {@code spelling}, so {@link #code} finds mixed-case
+   * input with one lookup instead of lower-casing it first.
+   */
+  private static void addCaseVariants(Map<String, Integer> codes, String spelling, int from, int code) {
+    for (int index = from; index < spelling.length(); index++) {
+      char lower = spelling.charAt(index);
+      char upper = Character.toUpperCase(lower);
+      if (upper != lower) {
+        String variant = spelling.substring(0, index) + upper + spelling.substring(index + 1);
+        addCaseVariants(codes, variant, index + 1, code);
+      }
+    }
+    codes.put(spelling, code);
+  }
+}
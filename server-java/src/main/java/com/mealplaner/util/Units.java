@@ -38,24 +38,12 @@ public final class Units {
 
   private Units() {}
 
+  static Map<String, String> aliases() {
+    return UNIT_ALIASES;
+  }
+
   public static String resolve(String value) {
-    if (value == null) {
-      return null;
-    }
-    String normalized = value.trim().toLowerCase();
-    if (normalized.isEmpty()) {
-      return null;
-    }
-    String alias = UNIT_ALIASES.get(normalized);
-    if (alias != null) {
-      return alias;
-    }
-    for (String unit : MEASUREMENT_UNITS) {
-      if (unit.equals(normalized)) {
-        return unit;
-      }
-    }
-    return null;
+    return UnitConverter.name(UnitConverter.code(value));
   }
 
   public static String sanitize(String value) {
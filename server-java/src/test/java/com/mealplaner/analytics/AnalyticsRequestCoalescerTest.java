@@ -0,0 +1,78 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AnalyticsRequestCoalescerTest {
+  @Test
+  void concurrentRequestsShareOneComputationWhileInFlight() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AnalyticsRequestCoalescer coalescer = new AnalyticsRequestCoalescer(registry);
+    AtomicInteger computations = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int index = 0; index < 4; index++) {
+        results.add(executor.submit(() -> coalescer.get("spending", "user", List.of("a"), () -> {
+          computations.incrementAndGet();
+          await(release);
+          return 42;
+        })));
+      }
+      while (registry.counter("analytics.requests", "endpoint", "spending", "outcome", "coalesced").count() < 3) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+      for (Future<Integer> result : results) {
+        assertEquals(42, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, computations.get());
+
+    assertEquals(2, coalescer.get("spending", "user", List.of("a"), computations::incrementAndGet));
+    assertEquals(2.0, registry.counter("analytics.requests", "endpoint", "spending", "outcome", "loaded").count());
+  }
+
+  @Test
+  void requestsAfterInvalidationDoNotJoinTheStaleLoad() throws Exception {
+    AnalyticsRequestCoalescer coalescer = new AnalyticsRequestCoalescer(new SimpleMeterRegistry());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> stale = executor.submit(() -> coalescer.get("spending", "user", List.of("a"), () -> {
+        started.countDown();
+        await(release);
+        return 1;
+      }));
+      await(started);
+      coalescer.invalidate("user");
+      assertEquals(2, coalescer.get("spending", "user", List.of("a"), () -> 2));
+      release.countDown();
+      assertEquals(1, stale.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
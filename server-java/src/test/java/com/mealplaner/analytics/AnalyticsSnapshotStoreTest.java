@@ -0,0 +1,81 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AnalyticsSnapshotStoreTest {
+  @Test
+  void servesStoredSnapshotUntilDataChangesThenRefreshesInBackground() {
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setSnapshotDebounceMillis(0);
+    AnalyticsSnapshotStore store = new AnalyticsSnapshotStore(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    AtomicInteger total = new AtomicInteger(5);
+    AtomicInteger computations = new AtomicInteger();
+
+    AnalyticsSnapshotStore.Snapshot first = store.resolve("dish-costs", "user", List.of(), () -> {
+      computations.incrementAndGet();
+      return Map.of("total", total.get());
+    });
+    AnalyticsSnapshotStore.Snapshot second = store.resolve("dish-costs", "user", List.of(), () -> {
+      throw new AssertionError("fresh snapshot must not be recomputed");
+    });
+    assertSame(first, second);
+    assertEquals("{\"total\":5}", new String(first.body()));
+
+    total.set(7);
+    store.onDishChanged(new DishChangedEvent("user"));
+    store.refreshChanged();
+    assertEquals(2, computations.get());
+
+    AnalyticsSnapshotStore.Snapshot refreshed = store.resolve("dish-costs", "user", List.of(), () -> {
+      throw new AssertionError("background refresh should have stored the snapshot");
+    });
+    assertNotEquals(first.etag(), refreshed.etag());
+    assertEquals("{\"total\":7}", new String(refreshed.body()));
+  }
+
+  @Test
+  void backgroundRefreshOnlyPrewarmsMostRecentlyUsedSnapshotsPerUser() {
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setSnapshotDebounceMillis(0);
+    properties.getAnalytics().setSnapshotRefreshPerUser(2);
+    AnalyticsSnapshotStore store = new AnalyticsSnapshotStore(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    AtomicInteger computations = new AtomicInteger();
+    for (String days : List.of("7", "30", "90")) {
+      store.resolve("spending", "user", List.of(days), () -> Map.of("n", computations.incrementAndGet()));
+    }
+
+    store.onDishChanged(new DishChangedEvent("user"));
+    store.refreshChanged();
+
+    assertEquals(5, computations.get());
+  }
+
+  @Test
+  void userVersionsStayWithinSnapshotBound() {
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setSnapshotMaxEntries(2);
+    AnalyticsSnapshotStore store = new AnalyticsSnapshotStore(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    for (int index = 0; index < 50; index++) {
+      store.resolve("spending", "user-" + index, List.of(), () -> Map.of("n", 1));
+      store.onDishChanged(new DishChangedEvent("writer-" + index));
+    }
+
+    assertEquals(2, store.trackedUsers());
+    AtomicInteger computations = new AtomicInteger();
+    store.resolve("spending", "user-0", List.of(), () -> Map.of("n", computations.incrementAndGet()));
+    store.onDishChanged(new DishChangedEvent("user-0"));
+    store.resolve("spending", "user-0", List.of(), () -> Map.of("n", computations.incrementAndGet()));
+    assertEquals(2, computations.get());
+  }
+}
@@ -0,0 +1,105 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchaseRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+class IngredientPriceServiceTest {
+  private static final String USER = "user-1";
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rebuildStoresLatestBasePriceAndRollingAverage() {
+    IngredientPriceRepository repository = mock(IngredientPriceRepository.class);
+    PurchaseRepository purchaseRepository = mock(PurchaseRepository.class);
+    when(purchaseRepository.findByUserIdOrderByPurchasedAtDesc(USER)).thenReturn(List.of(
+        purchase("oats__g", 2, "kg", 8, "2024-03-03T00:00:00Z"),
+        purchase("oats__g", 3, "pcs", 3, "2024-03-02T00:00:00Z"),
+        purchase("oats__g", 500, "g", 3, "2024-03-01T00:00:00Z"),
+        purchase("milk__l", 0, "l", 2, "2024-03-01T00:00:00Z")
+    ));
+    IngredientPriceService service = new IngredientPriceService(repository, purchaseRepository, mock(MongoTemplate.class));
+
+    service.rebuild(USER);
+
+    ArgumentCaptor<List<IngredientPriceDocument>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    Map<String, IngredientPriceDocument> rows = new HashMap<>();
+    saved.getValue().forEach(row -> rows.put(row.getIngredientKey(), row));
+    IngredientPriceDocument oats = rows.get("oats__g");
+    assertEquals(3, oats.getRecent().size());
+    assertEquals("kg", oats.getBaseUnit());
+    assertEquals(4.0, oats.getLatestPricePerUnit(), 1e-12);
+    assertEquals(5.0, oats.getRollingAverage(), 1e-12);
+    IngredientPriceDocument milk = rows.get("milk__l");
+    assertNull(milk.getBaseUnit());
+    assertNull(milk.getLatestPricePerUnit());
+    assertNull(milk.getRollingAverage());
+  }
+
+  @Test
+  void recordMaintainsSummaryInTheSameUpsert() {
+    IngredientPriceRepository repository = mock(IngredientPriceRepository.class);
+    when(repository.existsByUserId(USER)).thenReturn(true);
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    IngredientPriceService service = new IngredientPriceService(repository, mock(PurchaseRepository.class), mongoTemplate);
+
+    service.record(purchase("oats__g", 250, "g", 2, "2024-03-04T00:00:00Z"));
+
+    ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+    verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(IngredientPriceDocument.class));
+    verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(IngredientPriceDocument.class));
+    List<Document> pipeline = new ArrayList<>(((AggregationUpdate) update.getValue()).toPipeline(null));
+    List<String> fields = new ArrayList<>();
+    pipeline.forEach(stage -> fields.addAll(stage.get("$set", Document.class).keySet()));
+    assertEquals(
+        List.of("user_id", "ingredient_key", "recent", "base_unit", "latest_price_per_unit", "rolling_average"),
+        fields
+    );
+    Document point = new Document("price", 2.0)
+        .append("amount", 250.0)
+        .append("unit", "g")
+        .append("purchased_at", Date.from(Instant.parse("2024-03-04T00:00:00Z")))
+        .append("base_unit", "kg")
+        .append("price_per_unit", 8.0);
+    Document slice = pipeline.get(0).get("$set", Document.class).get("recent", Document.class);
+    List<?> arguments = slice.getList("$slice", Object.class);
+    assertEquals(IngredientPriceService.RECENT_LIMIT, arguments.get(1));
+    List<?> parts = ((Document) arguments.get(0)).getList("$concatArrays", Object.class);
+    assertEquals(new Document("$literal", List.of(point)), parts.get(1));
+  }
+
+  private PurchaseDocument purchase(String key, double amount, String unit, double price, String purchasedAt) {
+    PurchaseDocument purchase = new PurchaseDocument();
+    purchase.setId(new ObjectId().toHexString());
+    purchase.setUserId(USER);
+    purchase.setIngredientKey(key);
+    purchase.setAmount(amount);
+    purchase.setUnit(unit);
+    purchase.setPrice(price);
+    purchase.setPurchasedAt(Instant.parse(purchasedAt));
+    return purchase;
+  }
+}
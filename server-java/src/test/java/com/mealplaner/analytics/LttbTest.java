@@ -0,0 +1,39 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class LttbTest {
+  @Test
+  void keepsEndpointsAndSpikes() {
+    int length = 1000;
+    long[] x = new long[length];
+    double[] y = new double[length];
+    for (int index = 0; index < length; index++) {
+      x[index] = index * 86_400_000L;
+      y[index] = 10.0;
+    }
+    y[400] = 50.0;
+    y[700] = 1.0;
+
+    int[] selected = Lttb.select(x, y, length, 20);
+
+    assertEquals(20, selected.length);
+    assertEquals(0, selected[0]);
+    assertEquals(length - 1, selected[selected.length - 1]);
+    for (int index = 1; index < selected.length; index++) {
+      assertTrue(selected[index] > selected[index - 1]);
+    }
+    assertTrue(Arrays.stream(selected).anyMatch(index -> index == 400));
+    assertTrue(Arrays.stream(selected).anyMatch(index -> index == 700));
+  }
+
+  @Test
+  void returnsEveryPointBelowThreshold() {
+    assertArrayEquals(new int[] {0, 1, 2}, Lttb.select(new long[] {1, 2, 3}, new double[] {1, 2, 3}, 3, 10));
+  }
+}
@@ -0,0 +1,87 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.calorie.CalorieDocument;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference for {@link SpendAggregationBenchmark}: the summed spending quantities computed the way
+ * the pre-pipeline code did, one pass and one boxed map per section with string unit lookups. It
+ * leaves out response formatting, medians and sorting, so it under-states the old cost.
+ */
+final class PassPerSectionSpend {
+  private static final Map<String, Double> FACTORS = Map.of(
+      "kg", 1.0, "g", 1.0 / 1000, "mg", 1.0 / 1_000_000, "lb", 0.453592, "oz", 0.0283495,
+      "l", 1.0, "ml", 1.0 / 1000, "cup", 0.236588, "tbsp", 0.0147868, "tsp", 0.00492892
+  );
+  private static final Map<String, String> BASES = Map.of(
+      "kg", "kg", "g", "kg", "mg", "kg", "lb", "kg", "oz", "kg",
+      "l", "l", "ml", "l", "cup", "l", "tbsp", "l", "tsp", "l"
+  );
+
+  private PassPerSectionSpend() {}
+
+  record Sums(
+      double total,
+      Map<LocalDate, Double> byDay,
+      Map<String, Double> byKey,
+      Map<String, Double> byBaseUnit,
+      double calories
+  ) {}
+
+  static Sums sum(List<PurchaseDocument> purchases, List<CalorieDocument> calorieEntries) {
+    double total = 0;
+    Map<LocalDate, Double> byDay = new HashMap<>();
+    for (PurchaseDocument purchase : purchases) {
+      total += purchase.getPrice();
+      if (purchase.getPurchasedAt() != null) {
+        byDay.merge(LocalDate.ofInstant(purchase.getPurchasedAt(), ZoneOffset.UTC), purchase.getPrice(), Double::sum);
+      }
+    }
+
+    Map<String, Double> byKey = new HashMap<>();
+    for (PurchaseDocument purchase : purchases) {
+      byKey.merge(normalizeKey(purchase.getIngredientKey()), purchase.getPrice(), Double::sum);
+    }
+
+    Map<String, Double> byBaseUnit = new HashMap<>();
+    for (PurchaseDocument purchase : purchases) {
+      String unit = normalizeUnit(purchase.getUnit());
+      if (purchase.getAmount() > 0 && FACTORS.containsKey(unit)) {
+        byBaseUnit.merge(BASES.get(unit), purchase.getAmount() * FACTORS.get(unit), Double::sum);
+      }
+    }
+
+    Map<String, Double> perBase = new HashMap<>();
+    Map<String, String> perBaseUnit = new HashMap<>();
+    for (CalorieDocument entry : calorieEntries) {
+      String unit = normalizeUnit(entry.getUnit());
+      if (entry.getAmount() > 0 && FACTORS.containsKey(unit)) {
+        String key = normalizeKey(entry.getIngredientKey());
+        perBase.put(key, entry.getCalories() / (entry.getAmount() * FACTORS.get(unit)));
+        perBaseUnit.put(key, BASES.get(unit));
+      }
+    }
+    double calories = 0;
+    for (PurchaseDocument purchase : purchases) {
+      String key = normalizeKey(purchase.getIngredientKey());
+      String unit = normalizeUnit(purchase.getUnit());
+      if (perBase.containsKey(key) && FACTORS.containsKey(unit) && BASES.get(unit).equals(perBaseUnit.get(key))) {
+        calories += purchase.getAmount() * FACTORS.get(unit) * perBase.get(key);
+      }
+    }
+    return new Sums(total, byDay, byKey, byBaseUnit, calories);
+  }
+
+  private static String normalizeKey(String value) {
+    return value == null ? "" : value.trim().toLowerCase();
+  }
+
+  private static String normalizeUnit(String value) {
+    return value == null ? "" : value.trim().toLowerCase();
+  }
+}
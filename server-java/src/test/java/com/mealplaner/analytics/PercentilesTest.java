@@ -0,0 +1,48 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PercentilesTest {
+  @Test
+  void selectMatchesSortedInterpolation() {
+    Random random = new Random(7);
+    double[] values = new double[1001];
+    for (int index = 0; index < values.length; index++) {
+      values[index] = random.nextInt(500);
+    }
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    assertEquals(sorted[500], Percentiles.select(values.clone(), values.length, 0.5));
+    assertEquals(sorted[900], Percentiles.select(values.clone(), values.length, 0.9));
+    assertEquals(8.5, Percentiles.select(new double[] {10, 7, 3, 12}, 4, 0.5), 1e-9);
+  }
+
+  @Test
+  void mergedDigestsApproximateTheExactQuantiles() {
+    Random random = new Random(11);
+    double[] values = new double[50_000];
+    PriceDigest left = new PriceDigest();
+    PriceDigest right = new PriceDigest();
+    for (int index = 0; index < values.length; index++) {
+      values[index] = Math.exp(random.nextGaussian()) * 100;
+      (index % 2 == 0 ? left : right).add(values[index]);
+    }
+    PriceDigest restored = PriceDigest.of(right.toCentroids());
+    left.merge(restored);
+    Arrays.sort(values);
+
+    assertEquals(values.length, left.count(), 1e-6);
+    assertEquals(0.5, rank(values, left.quantile(0.5)), 0.005);
+    assertEquals(0.9, rank(values, left.quantile(0.9)), 0.005);
+    assertEquals(0.99, rank(values, left.quantile(0.99)), 0.002);
+  }
+
+  private double rank(double[] sorted, double value) {
+    int index = Arrays.binarySearch(sorted, value);
+    return (index >= 0 ? index : -index - 1) / (double) sorted.length;
+  }
+}
@@ -0,0 +1,51 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PurchaseColumnsTest {
+  @Test
+  void scansRangesLikeTheRepositoryQueries() {
+    PurchaseColumns columns = PurchaseColumns.of(List.of(
+        purchase("milk__l", 4.0, "2026-01-05T00:00:00Z"),
+        purchase("sugar__kg", 2.0, "2026-01-03T00:00:00Z"),
+        purchase("milk__l", 1.0, "2026-01-01T00:00:00Z"),
+        purchase("bread__pcs", 8.0, null)
+    ));
+    columns.append(purchase("sugar__kg", 16.0, "2026-01-02T00:00:00Z"));
+
+    Instant start = Instant.parse("2026-01-01T00:00:00Z");
+    Instant end = Instant.parse("2026-01-05T00:00:00Z");
+    assertEquals(5, scan(columns, null, null, null).getPurchaseCount());
+    assertEquals(18.0, scan(columns, start, end, null).getTotals().getTotalSpent(), 1e-9);
+    assertEquals(4, scan(columns, null, end, null).getPurchaseCount());
+    assertEquals(23.0, scan(columns, null, end, null).getTotals().getTotalSpent(), 1e-9);
+    assertEquals(4, scan(columns, start, null, null).getPurchaseCount());
+    assertEquals(5.0, scan(columns, start, null, "milk__l").getTotals().getTotalSpent(), 1e-9);
+    assertEquals(0, scan(columns, null, null, "missing").getPurchaseCount());
+  }
+
+  private SpendingAnalyticsResponse scan(PurchaseColumns columns, Instant start, Instant end, String key) {
+    SpendTotalsCollector totals = new SpendTotalsCollector();
+    SpendAggregator aggregator = new SpendAggregator(List.of(totals));
+    columns.scan(start, end, key, aggregator);
+    SpendingAnalyticsResponse response = new SpendingAnalyticsResponse();
+    aggregator.complete(response);
+    return response;
+  }
+
+  private PurchaseDocument purchase(String key, double price, String purchasedAt) {
+    PurchaseDocument purchase = new PurchaseDocument();
+    purchase.setIngredientKey(key);
+    purchase.setAmount(1);
+    purchase.setUnit("kg");
+    purchase.setPrice(price);
+    purchase.setPurchasedAt(purchasedAt == null ? null : Instant.parse(purchasedAt));
+    return purchase;
+  }
+}
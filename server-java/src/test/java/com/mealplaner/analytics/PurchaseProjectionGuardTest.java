@@ -0,0 +1,135 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mealplaner.purchase.PurchaseDocument;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class PurchaseProjectionGuardTest {
+  private static final String USER = "user-1";
+
+  @Test
+  void recordSkipsUsersWithoutRowsAndChecksStorageOnce() {
+    AtomicInteger lookups = new AtomicInteger();
+    PurchaseProjectionGuard guard = new PurchaseProjectionGuard(userId -> {
+      lookups.incrementAndGet();
+      return false;
+    });
+    AtomicInteger applied = new AtomicInteger();
+
+    guard.record(purchase(new ObjectId()), applied::incrementAndGet);
+    guard.record(purchase(new ObjectId()), applied::incrementAndGet);
+
+    assertEquals(0, applied.get());
+    assertEquals(1, lookups.get());
+  }
+
+  @Test
+  void purchasesRecordedDuringRebuildAreCountedExactlyOnce() throws Exception {
+    PurchaseProjectionGuard guard = new PurchaseProjectionGuard(userId -> true);
+    PurchaseDocument before = purchase(new ObjectId());
+    guard.saving(before);
+    guard.record(before, () -> { });
+    List<PurchaseDocument> stored = new ArrayList<>(List.of(before));
+    List<String> applied = new ArrayList<>();
+    CountDownLatch rebuilding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    PurchaseDocument saved = purchase(new ObjectId());
+    guard.saving(saved);
+    stored.add(saved);
+    List<String> rebuilt = new ArrayList<>();
+    Thread rebuild = new Thread(() -> guard.rebuild(USER, included -> {
+      rebuilding.countDown();
+      await(release);
+      stored.stream().filter(included).forEach(purchase -> rebuilt.add(purchase.getId()));
+      return rebuilt.size();
+    }));
+    rebuild.start();
+    assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+
+    PurchaseDocument late = purchase(new ObjectId());
+    guard.saving(late);
+    stored.add(late);
+    Thread savedRecord = recordOnThread(guard, saved, applied);
+    Thread lateRecord = recordOnThread(guard, late, applied);
+    waitUntilBlocked(savedRecord);
+    waitUntilBlocked(lateRecord);
+    release.countDown();
+    rebuild.join();
+    savedRecord.join();
+    lateRecord.join();
+
+    assertEquals(List.of(before.getId()), rebuilt);
+    assertEquals(List.of(saved.getId(), late.getId()), applied.stream().sorted().toList());
+  }
+
+  @Test
+  void rebuildBetweenSaveAndRecordLeavesThePurchaseToItsRecord() {
+    PurchaseProjectionGuard guard = new PurchaseProjectionGuard(userId -> true);
+    List<PurchaseDocument> stored = new ArrayList<>();
+    List<String> applied = new ArrayList<>();
+    PurchaseDocument older = purchase(new ObjectId());
+    PurchaseDocument purchase = purchase(new ObjectId());
+
+    guard.saving(purchase);
+    stored.add(purchase);
+    guard.rebuild(USER, included -> {
+      stored.stream().filter(included).forEach(row -> applied.add(row.getId()));
+      return applied.size();
+    });
+    guard.record(purchase, () -> applied.add(purchase.getId()));
+
+    guard.saving(older);
+    guard.rebuild(USER, included -> {
+      applied.clear();
+      stored.stream().filter(included).forEach(row -> applied.add(row.getId()));
+      return applied.size();
+    });
+    stored.add(older);
+    guard.record(older, () -> applied.add(older.getId()));
+
+    assertEquals(List.of(purchase.getId(), older.getId()), applied);
+  }
+
+  private Thread recordOnThread(PurchaseProjectionGuard guard, PurchaseDocument purchase, List<String> applied) {
+    Thread thread = new Thread(() -> guard.record(purchase, () -> {
+      synchronized (applied) {
+        applied.add(purchase.getId());
+      }
+    }));
+    thread.start();
+    return thread;
+  }
+
+  private void waitUntilBlocked(Thread thread) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (thread.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(Thread.State.BLOCKED, thread.getState());
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private PurchaseDocument purchase(ObjectId id) {
+    PurchaseDocument purchase = new PurchaseDocument();
+    purchase.setId(id.toHexString());
+    purchase.setUserId(USER);
+    purchase.setPrice(1.0);
+    return purchase;
+  }
+}
@@ -0,0 +1,115 @@
+package com.mealplaner.analytics;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.calorie.CalorieDocument;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the fused single-pass spending pipeline and the columnar scan with
+ * the one-pass-per-section reference in {@link PassPerSectionSpend}.
+ * Run with {@code main} from the test classpath; the GC profiler reports
+ * {@code gc.alloc.rate.norm} (bytes allocated per request).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpendAggregationBenchmark {
+  private static final String[] UNITS = {"g", "kg", "ml", "l", "pcs", "tbsp"};
+
+  @Param({"10000", "100000", "1000000"})
+  public int purchases;
+
+  private List<PurchaseDocument> data;
+  private List<CalorieDocument> calories;
+  private PurchaseColumns columns;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    Instant start = Instant.parse("2020-01-01T00:00:00Z");
+    data = new ArrayList<>(purchases);
+    for (int index = 0; index < purchases; index++) {
+      PurchaseDocument purchase = new PurchaseDocument();
+      purchase.setIngredientKey("ingredient-" + random.nextInt(400) + "__g");
+      purchase.setUnit(UNITS[random.nextInt(UNITS.length)]);
+      purchase.setAmount(1 + random.nextInt(1000));
+      purchase.setPrice(random.nextDouble() * 300);
+      purchase.setPurchasedAt(start.plusSeconds(random.nextInt(6 * 365 * 86_400)));
+      data.add(purchase);
+    }
+    calories = new ArrayList<>();
+    for (int index = 0; index < 200; index++) {
+      CalorieDocument entry = new CalorieDocument();
+      entry.setIngredientKey("ingredient-" + index + "__g");
+      entry.setUnit("g");
+      entry.setAmount(100);
+      entry.setCalories(50 + random.nextInt(500));
+      calories.add(entry);
+    }
+    List<PurchaseDocument> newestFirst = new ArrayList<>(data);
+    newestFirst.sort(Comparator.comparing(PurchaseDocument::getPurchasedAt).reversed());
+    columns = PurchaseColumns.of(newestFirst);
+  }
+
+  @Benchmark
+  public SpendingAnalyticsResponse fused() {
+    SpendingAnalyticsResponse response = new SpendingAnalyticsResponse();
+    SpendAggregator aggregator = new SpendAggregator(List.of(
+        new SpendTotalsCollector(),
+        new TopSpendersCollector(),
+        new NutritionCollector(calories)
+    ));
+    aggregator.acceptAll(data);
+    aggregator.complete(response);
+    return response;
+  }
+
+  @Benchmark
+  public SpendingAnalyticsResponse columnar() {
+    SpendingAnalyticsResponse response = new SpendingAnalyticsResponse();
+    SpendAggregator aggregator = new SpendAggregator(List.of(
+        new SpendTotalsCollector(),
+        new TopSpendersCollector(),
+        new NutritionCollector(calories)
+    ));
+    columns.scan(null, null, null, aggregator);
+    aggregator.complete(response);
+    return response;
+  }
+
+  @Benchmark
+  public PassPerSectionSpend.Sums passPerSection() {
+    return PassPerSectionSpend.sum(data, calories);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(SpendAggregationBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
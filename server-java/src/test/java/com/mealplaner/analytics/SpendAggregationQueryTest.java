@@ -0,0 +1,144 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.util.UnitConverter;
+import com.mealplaner.util.Units;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+class SpendAggregationQueryTest {
+  private static final String USER = "user-1";
+
+  @Test
+  void smallRangesUseExactPurchasePercentiles() {
+    List<Document> prices = List.of(price(1.0), price(2.0), price(3.0));
+    SpendTotalsCollector totals = new SpendTotalsCollector();
+
+    boolean complete = query(prices).collect(
+        USER, null, null, null, totals, new TopSpendersCollector(), new NutritionCollector(List.of())
+    );
+
+    assertTrue(complete);
+    SpendingAnalyticsResponse.PercentileSummary summary = totals.stats().getPurchasePercentiles();
+    assertEquals(2.0, summary.getP50(), 1e-12);
+    assertEquals(2.8, summary.getP90(), 1e-12);
+    assertEquals(2.98, summary.getP99(), 1e-12);
+  }
+
+  @Test
+  void largeRangesLeavePurchasePercentilesToTheCaller() {
+    List<Document> prices = new ArrayList<>();
+    for (int index = 0; index <= QuantileAccumulator.EXACT_LIMIT; index++) {
+      prices.add(price(index));
+    }
+    SpendTotalsCollector totals = new SpendTotalsCollector();
+
+    boolean complete = query(prices).collect(
+        USER, null, null, null, totals, new TopSpendersCollector(), new NutritionCollector(List.of())
+    );
+
+    assertFalse(complete);
+    assertNull(totals.stats().getPurchasePercentiles());
+  }
+
+  @Test
+  void matchKeepsBothBoundsInclusive() {
+    Instant start = Instant.parse("2024-03-04T00:00:00Z");
+    Instant end = Instant.parse("2024-03-10T23:59:59.999Z");
+
+    Document match = pipeline(start, end, "oats__g").get(0).get("$match", Document.class);
+
+    assertEquals(
+        new Document("user_id", USER)
+            .append("ingredient_key", "oats__g")
+            .append("purchased_at", new Document("$gte", Date.from(start)).append("$lte", Date.from(end))),
+        match
+    );
+  }
+
+  @Test
+  void unitSwitchesResolveEverySpellingLikeTheConverter() {
+    List<Document> pipeline = pipeline(null, null, null);
+    Document unit = new Document("$toLower", new Document("$trim", new Document(
+        "input",
+        new Document("$ifNull", List.of("$unit", ""))
+    )));
+    assertEquals(unit, pipeline.get(1).get("$addFields", Document.class).get("_unit"));
+
+    Document units = pipeline.get(2).get("$addFields", Document.class);
+    Document base = units.get("_base", Document.class);
+    Document factor = units.get("_factor", Document.class);
+    for (String name : Units.MEASUREMENT_UNITS) {
+      int code = UnitConverter.code(name);
+      for (String spelling : UnitConverter.spellings(code)) {
+        assertEquals(UnitConverter.baseName(code), select(base, spelling), spelling);
+        assertEquals(UnitConverter.toBase(1, code), (Double) select(factor, spelling), 0.0, spelling);
+      }
+    }
+    assertNull(select(base, "box"));
+    assertNull(select(factor, "box"));
+  }
+
+  private List<Document> pipeline(Instant start, Instant end, String ingredientKey) {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    when(mongoTemplate.getCollectionName(PurchaseDocument.class)).thenReturn("purchases");
+    when(mongoTemplate.aggregate(any(Aggregation.class), anyString(), eq(Document.class)))
+        .thenReturn(new AggregationResults<>(List.of(), new Document()));
+    new SpendAggregationQuery(mongoTemplate).collect(
+        USER, start, end, ingredientKey,
+        new SpendTotalsCollector(), new TopSpendersCollector(), new NutritionCollector(List.of())
+    );
+    ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+    verify(mongoTemplate).aggregate(aggregation.capture(), eq("purchases"), eq(Document.class));
+    return aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+  }
+
+  /** Returns the {@code then} of the first {@code $switch} branch whose {@code $in} list holds the unit. */
+  @SuppressWarnings("unchecked")
+  private Object select(Document expression, String unit) {
+    Document spec = expression.get("$switch", Document.class);
+    for (Document branch : (List<Document>) spec.get("branches")) {
+      List<Object> in = (List<Object>) branch.get("case", Document.class).get("$in");
+      assertEquals("$_unit", in.get(0));
+      if (((List<String>) in.get(1)).contains(unit)) {
+        return branch.get("then");
+      }
+    }
+    return spec.get("default");
+  }
+
+  private SpendAggregationQuery query(List<Document> prices) {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    when(mongoTemplate.getCollectionName(PurchaseDocument.class)).thenReturn("purchases");
+    Document result = new Document("daily", List.of(
+        new Document("_id", "2024-03-01").append("total", 6.0).append("count", prices.size())
+    )).append("prices", prices);
+    when(mongoTemplate.aggregate(any(Aggregation.class), anyString(), eq(Document.class)))
+        .thenReturn(new AggregationResults<>(List.of(result), new Document()));
+    return new SpendAggregationQuery(mongoTemplate);
+  }
+
+  private Document price(double value) {
+    return new Document("price", value);
+  }
+}
@@ -0,0 +1,94 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.calorie.CalorieDocument;
+import com.mealplaner.purchase.PurchaseDocument;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SpendAggregatorTest {
+  @Test
+  void fillsEverySectionInOnePass() {
+    List<PurchaseDocument> purchases = List.of(
+        purchase("Sugar__kg", 2, "kg", 10.0, "2026-01-03T10:00:00Z"),
+        purchase("sugar__kg", 500, "g", 4.0, "2026-01-01T08:00:00Z"),
+        purchase("milk__l", 1, "l", 3.0, "2026-01-01T09:00:00Z"),
+        purchase("bread__pcs", 1, "pcs", 2.0, null)
+    );
+    CalorieDocument sugar = new CalorieDocument();
+    sugar.setIngredientKey("sugar__kg");
+    sugar.setUnit("g");
+    sugar.setAmount(100);
+    sugar.setCalories(400);
+
+    SpendingAnalyticsResponse response = new SpendingAnalyticsResponse();
+    SpendAggregator aggregator = new SpendAggregator(List.of(
+        new SpendTotalsCollector(),
+        new TopSpendersCollector(),
+        new NutritionCollector(List.of(sugar))
+    ));
+    aggregator.acceptAll(purchases);
+    aggregator.complete(response);
+
+    assertEquals(4, response.getPurchaseCount());
+    assertEquals(17.0, response.getTotals().getTotalSpent(), 1e-9);
+    assertEquals(3, response.getTotals().getDaysTracked());
+    assertEquals(8.5, response.getTotals().getMedianDailySpend(), 1e-9);
+    assertEquals("kg", response.getTotals().getNormalizedUnit());
+    assertEquals(2.5, response.getTotals().getTotalNormalizedQuantity(), 1e-9);
+
+    assertEquals(2, response.getDailyTotals().size());
+    assertEquals("2026-01-01", response.getDailyTotals().get(0).getDate());
+    assertEquals(7.0, response.getDailyTotals().get(0).getTotal(), 1e-9);
+
+    SpendingAnalyticsResponse.TopSpender top = response.getTopSpenders().get(0);
+    assertEquals("sugar__kg", top.getIngredientKey());
+    assertEquals(2, top.getCount());
+    assertEquals(14.0 / 17.0, top.getShare(), 1e-9);
+    assertEquals((5.0 + 8.0) / 2, top.getAverageUnitPrice(), 1e-9);
+
+    assertEquals(10_000.0, response.getNutrition().getTotalCalories(), 1e-6);
+    assertEquals(2, response.getNutrition().getPurchasesWithCalories());
+    assertEquals(1, response.getTopCalories().size());
+    SpendingAnalyticsResponse.TopSpender bread = response.getTopSpenders().stream()
+        .filter(spender -> spender.getIngredientKey().equals("bread__pcs"))
+        .findFirst()
+        .orElseThrow();
+    assertEquals("pcs", bread.getUnitLabel());
+  }
+
+  @Test
+  void bucketsDailyTotalsByIsoWeekAndMonth() {
+    SpendTotalsCollector totals = new SpendTotalsCollector();
+    SpendAggregator aggregator = new SpendAggregator(List.of(totals));
+    aggregator.acceptAll(List.of(
+        purchase("a", 1, "kg", 1.0, "2025-12-29T10:00:00Z"),
+        purchase("a", 1, "kg", 2.0, "2026-01-04T10:00:00Z"),
+        purchase("a", 1, "kg", 4.0, "2026-01-05T10:00:00Z")
+    ));
+
+    List<SpendingAnalyticsResponse.DailyTotal> weeks = totals.bucketTotals(SpendGranularity.WEEK);
+    assertEquals(2, weeks.size());
+    assertEquals("2025-12-29", weeks.get(0).getDate());
+    assertEquals(3.0, weeks.get(0).getTotal(), 1e-9);
+    assertEquals("2026-01-05", weeks.get(1).getDate());
+
+    List<SpendingAnalyticsResponse.DailyTotal> months = totals.bucketTotals(SpendGranularity.MONTH);
+    assertEquals(2, months.size());
+    assertEquals("2026-01-01", months.get(1).getDate());
+    assertEquals(6.0, months.get(1).getTotal(), 1e-9);
+  }
+
+  private PurchaseDocument purchase(String key, double amount, String unit, double price, String purchasedAt) {
+    PurchaseDocument purchase = new PurchaseDocument();
+    purchase.setIngredientKey(key);
+    purchase.setAmount(amount);
+    purchase.setUnit(unit);
+    purchase.setPrice(price);
+    purchase.setPurchasedAt(purchasedAt == null ? null : Instant.parse(purchasedAt));
+    return purchase;
+  }
+}
@@ -0,0 +1,113 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpendFenwickTest {
+  @Test
+  void rangeSumsMatchBruteForceAcrossGrowth() {
+    Random random = new Random(11);
+    long base = LocalDate.parse("2026-01-01").toEpochDay();
+    List<SpendRollupDocument> rows = new ArrayList<>();
+    rows.add(row("2026-01-10", 5.0, 1));
+    rows.add(row(null, 2.0, 1));
+    SpendFenwick index = SpendFenwick.of(rows);
+    double[] spend = new double[3000];
+    long[] counts = new long[3000];
+    spend[(int) (LocalDate.parse("2026-01-10").toEpochDay() - base + 1000)] += 5.0;
+    counts[(int) (LocalDate.parse("2026-01-10").toEpochDay() - base + 1000)] += 1;
+
+    for (int step = 0; step < 500; step++) {
+      int offset = random.nextInt(1600) - 800;
+      double price = random.nextInt(10_000) / 100.0;
+      index.add(base + offset, price, 1);
+      spend[offset + 1000] += price;
+      counts[offset + 1000] += 1;
+
+      long from = base + random.nextInt(1800) - 900;
+      long to = from + random.nextInt(400);
+      double expectedSpend = 0.0;
+      long expectedCount = 0;
+      int expectedDays = 0;
+      for (long day = from; day <= to; day++) {
+        int slot = (int) (day - base + 1000);
+        expectedSpend += spend[slot];
+        expectedCount += counts[slot];
+        expectedDays += counts[slot] > 0 ? 1 : 0;
+      }
+      SpendFenwick.Totals totals = index.sum(from, to);
+      assertEquals(expectedSpend, totals.total(), 1e-6);
+      assertEquals(expectedCount, totals.purchaseCount());
+      assertEquals(expectedDays, totals.daysWithPurchases());
+    }
+
+    SpendFenwick.Totals all = index.sum(null, null);
+    assertEquals(502, all.purchaseCount());
+  }
+
+  @Test
+  void appendedDaysMatchBruteForceAcrossCapacityGrowth() {
+    Random random = new Random(3);
+    long base = LocalDate.parse("2026-01-01").toEpochDay();
+    SpendFenwick index = SpendFenwick.of(List.of(row("2026-01-01", 1.0, 1)));
+    double[] spend = new double[400];
+    long[] counts = new long[400];
+    spend[0] = 1.0;
+    counts[0] = 1;
+    for (int offset = 1; offset < 400; offset++) {
+      int day = random.nextInt(10) == 0 ? random.nextInt(offset) : offset;
+      double price = random.nextInt(10_000) / 100.0;
+      int count = random.nextInt(8) == 0 ? 0 : 1;
+      index.add(base + day, price, count);
+      spend[day] += price;
+      counts[day] += count;
+
+      for (int from = 0; from <= offset; from += 1 + random.nextInt(40)) {
+        double expectedSpend = 0.0;
+        long expectedCount = 0;
+        int expectedDays = 0;
+        for (int slot = from; slot <= offset; slot++) {
+          expectedSpend += spend[slot];
+          expectedCount += counts[slot];
+          expectedDays += counts[slot] > 0 ? 1 : 0;
+        }
+        SpendFenwick.Totals totals = index.sum(base + from, base + offset);
+        assertEquals(expectedSpend, totals.total(), 1e-6);
+        assertEquals(expectedCount, totals.purchaseCount());
+        assertEquals(expectedDays, totals.daysWithPurchases());
+      }
+    }
+  }
+
+  @Test
+  void storesOnlyDaysWithDataRegardlessOfSpan() {
+    SpendFenwick index = SpendFenwick.of(List.of(row("0001-01-01", 3.0, 1), row("9999-12-31", 4.0, 2)));
+    index.add(LocalDate.MIN.toEpochDay(), 1.0, 1);
+    index.add(LocalDate.MAX.toEpochDay(), 2.0, 1);
+    index.add(LocalDate.parse("9999-12-31").toEpochDay(), 5.0, 1);
+
+    assertEquals(4, index.size());
+    SpendFenwick.Totals all = index.sum(null, null);
+    assertEquals(15.0, all.total(), 1e-9);
+    assertEquals(6, all.purchaseCount());
+    assertEquals(4, all.daysWithPurchases());
+    SpendFenwick.Totals middle = index.sum(LocalDate.parse("0001-01-01").toEpochDay(), LocalDate.parse("9999-12-31").toEpochDay());
+    assertEquals(12.0, middle.total(), 1e-9);
+    assertEquals(4, middle.purchaseCount());
+    assertEquals(2, middle.daysWithPurchases());
+    assertEquals(0, index.sum(LocalDate.parse("2000-01-01").toEpochDay(), LocalDate.parse("2000-12-31").toEpochDay()).purchaseCount());
+  }
+
+  private SpendRollupDocument row(String dateIso, double total, int count) {
+    SpendRollupDocument row = new SpendRollupDocument();
+    row.setDateIso(dateIso);
+    row.setTotal(total);
+    row.setCount(count);
+    return row;
+  }
+}
@@ -0,0 +1,317 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.calorie.CalorieDensity;
+import com.mealplaner.calorie.CalorieDensityService;
+import com.mealplaner.calorie.CalorieDocument;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishService;
+import com.mealplaner.ingredient.IngredientRepository;
+import com.mealplaner.ingredient.IngredientService;
+import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.migration.MigrationService;
+import com.mealplaner.plan.PlanService;
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchasePriceQuery;
+import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchaseService;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
+
+class SpendingAnalyticsModesTest {
+  private static final String USER = "user-1";
+  private static final Instant FIRST_DAY = Instant.parse("2024-03-01T00:00:00Z");
+  private static final List<String> KEYS = List.of(
+      "oats__g", "Oats__g", " milk__l", "Сахар__kg", "сахар__kg", "eggs__pcs", "tea__box"
+  );
+  private static final Map<String, List<String>> UNITS = Map.of(
+      "oats", List.of("g", "G", " kg ", "KG", "Kg", "гр", "Гр", "mg", "lb", "oz"),
+      "milk", List.of("ml", "ML", "l", "L", "мл", "Мл", "л", "Л", "cup", "Tbsp", "tsp"),
+      "сахар", List.of("кг", "Кг", "КГ.", "кГ", "г", "Г", "мг", "kg"),
+      "eggs", List.of("pcs", "PCS", "pc", "Pc", "шт", "Шт.", "ШТ"),
+      "tea", List.of("box", "", "g", "oz")
+  );
+  private static final double SUM_TOLERANCE = 1e-9;
+  private static final double RANK_TOLERANCE = 0.01;
+  private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  @Test
+  void columnarModeMatchesInMemoryMode() {
+    Random random = new Random(42);
+    List<PurchaseDocument> purchases = purchases(random);
+    Map<String, AnalyticsService> services = new LinkedHashMap<>();
+    for (String mode : List.of("memory", "columnar")) {
+      services.put(mode, service(mode, purchases));
+    }
+
+    int withCalories = 0;
+    int withPercentiles = 0;
+    for (int run = 0; run < 80; run++) {
+      Optional<String> start = bound(random, purchases, false);
+      Optional<String> end = bound(random, purchases, true);
+      Optional<String> key = random.nextInt(3) == 0
+          ? Optional.empty()
+          : Optional.of(List.of("oats__g", "Сахар__kg", " milk__l", "eggs__pcs", "missing__g").get(random.nextInt(5)));
+      Optional<String> granularity = Optional.of(random.nextBoolean() ? "day" : "week");
+      String label = "start=" + start + " end=" + end + " key=" + key + " granularity=" + granularity;
+
+      Map<String, JsonNode> responses = new LinkedHashMap<>();
+      services.forEach((mode, service) -> responses.put(mode, MAPPER.valueToTree(
+          service.buildSpendingAnalytics(USER, start, end, key, granularity, Optional.empty())
+      )));
+      JsonNode expected = responses.get("memory");
+      assertSame(label + " columnar", expected, responses.get("columnar"));
+
+      if (expected.path("nutrition").path("purchasesWithCalories").asInt() > 0) {
+        withCalories += 1;
+      }
+      if (expected.path("totals").path("purchasePercentiles").isObject()) {
+        withPercentiles += 1;
+      }
+    }
+    assertTrue(withCalories > 10);
+    assertTrue(withPercentiles > 10);
+  }
+
+  @Test
+  void aggregationSumsStayWithinToleranceInAnyAdditionOrder() {
+    Random random = new Random(7);
+    List<Double> prices = new ArrayList<>();
+    for (int index = 0; index < 20_000; index++) {
+      prices.add(0.01 * random.nextInt(100_000) + random.nextDouble() * 1e-3);
+    }
+    BigDecimal exact = BigDecimal.ZERO;
+    for (double price : prices) {
+      exact = exact.add(new BigDecimal(price));
+    }
+    for (int run = 0; run < 10; run++) {
+      Collections.shuffle(prices, random);
+      double total = 0;
+      for (double price : prices) {
+        total += price;
+      }
+      assertEquals(exact.doubleValue(), total, SUM_TOLERANCE * exact.doubleValue(), "run " + run);
+    }
+  }
+
+  @Test
+  void aggregationPercentilesFromDayDigestsStayWithinRankTolerance() {
+    Random random = new Random(11);
+    int days = 40;
+    double[] prices = new double[3 * QuantileAccumulator.EXACT_LIMIT];
+    List<PriceDigest> dayDigests = new ArrayList<>();
+    for (int day = 0; day < days; day++) {
+      dayDigests.add(new PriceDigest());
+    }
+    QuantileAccumulator memory = new QuantileAccumulator();
+    for (int index = 0; index < prices.length; index++) {
+      double price = random.nextInt(4) == 0 ? 50 + 200 * random.nextDouble() : 0.01 * random.nextInt(2_000);
+      prices[index] = price;
+      memory.add(price);
+      dayDigests.get(random.nextInt(days)).add(price);
+    }
+    QuantileAccumulator aggregation = new QuantileAccumulator();
+    for (PriceDigest digest : dayDigests) {
+      aggregation.merge(PriceDigest.of(digest.toCentroids()));
+    }
+    Arrays.sort(prices);
+
+    SpendingAnalyticsResponse.PercentileSummary fromMemory = memory.summary();
+    SpendingAnalyticsResponse.PercentileSummary fromAggregation = aggregation.summary();
+    assertRank(prices, 0.5, fromMemory.getP50());
+    assertRank(prices, 0.9, fromMemory.getP90());
+    assertRank(prices, 0.99, fromMemory.getP99());
+    assertRank(prices, 0.5, fromAggregation.getP50());
+    assertRank(prices, 0.9, fromAggregation.getP90());
+    assertRank(prices, 0.99, fromAggregation.getP99());
+  }
+
+  private static void assertRank(double[] sorted, double quantile, double value) {
+    int below = 0;
+    while (below < sorted.length && sorted[below] < value) {
+      below += 1;
+    }
+    int atOrBelow = below;
+    while (atOrBelow < sorted.length && sorted[atOrBelow] <= value) {
+      atOrBelow += 1;
+    }
+    double low = (double) below / sorted.length;
+    double high = (double) atOrBelow / sorted.length;
+    assertTrue(
+        low - RANK_TOLERANCE <= quantile && quantile <= high + RANK_TOLERANCE,
+        "p" + Math.round(quantile * 100) + "=" + value + " covers ranks " + low + ".." + high
+    );
+  }
+
+  private static List<PurchaseDocument> purchases(Random random) {
+    List<PurchaseDocument> purchases = new ArrayList<>();
+    Set<Instant> used = new HashSet<>();
+    for (int index = 0; index < 600; index++) {
+      String key = KEYS.get(random.nextInt(KEYS.size()));
+      List<String> units = UNITS.get(key.trim().toLowerCase().substring(0, key.trim().indexOf("__")));
+      PurchaseDocument purchase = new PurchaseDocument();
+      purchase.setId(String.format("purchase-%04d", index));
+      purchase.setUserId(USER);
+      purchase.setIngredientKey(random.nextInt(50) == 0 ? null : key);
+      purchase.setIngredientName(key);
+      purchase.setUnit(random.nextInt(40) == 0 ? null : units.get(random.nextInt(units.size())));
+      purchase.setAmount(random.nextInt(8) == 0 ? 0 : 0.25 * (1 + random.nextInt(40)));
+      purchase.setPrice(0.25 * random.nextInt(60));
+      if (random.nextInt(20) != 0) {
+        Instant at;
+        do {
+          at = random.nextInt(10) == 0
+              ? FIRST_DAY.plus(Duration.ofDays(random.nextInt(21)))
+              : FIRST_DAY.plusSeconds(random.nextInt(21 * 86_400));
+        } while (!used.add(at));
+        purchase.setPurchasedAt(at);
+      }
+      purchases.add(purchase);
+    }
+    return purchases;
+  }
+
+  private static Optional<String> bound(Random random, List<PurchaseDocument> purchases, boolean end) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return Optional.empty();
+      case 1:
+        return Optional.of(LocalDate.of(2024, 3, 1).plusDays(random.nextInt(21) + (end ? 8 : 0) - 4).toString());
+      case 2:
+        Instant at = purchases.get(random.nextInt(purchases.size())).getPurchasedAt();
+        return Optional.ofNullable(at).map(Instant::toString);
+      default:
+        return Optional.of(FIRST_DAY.plus(Duration.ofDays(random.nextInt(21))).atOffset(ZoneOffset.UTC).toString());
+    }
+  }
+
+  private static AnalyticsService service(String mode, List<PurchaseDocument> purchases) {
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setMode(mode);
+    PurchaseRepository repository = mock(PurchaseRepository.class, call -> derivedQuery(call, purchases));
+    PurchaseService purchaseService = new PurchaseService(
+        repository,
+        mock(IngredientRepository.class),
+        mock(InventoryService.class),
+        mock(PurchasePriceQuery.class),
+        mock(MigrationService.class),
+        mock(ApplicationEventPublisher.class)
+    );
+    CalorieDensityService densityService = mock(CalorieDensityService.class);
+    when(densityService.forUser(USER)).thenReturn(CalorieDensity.index(List.of(
+        calories("oats__g", "oats", 100, "g", 380),
+        calories("сахар__kg", "сахар", 1, "kg", 4000),
+        calories("milk__l", "milk", 250, "ml", 160),
+        calories("eggs__pcs", "eggs", 2, "pcs", 140)
+    )));
+    return new AnalyticsService(
+        purchaseService,
+        mock(DishService.class),
+        mock(IngredientService.class),
+        mock(MigrationService.class),
+        densityService,
+        mock(SpendRollupService.class),
+        mock(IngredientPriceService.class),
+        mock(SpendAggregationQuery.class),
+        new PurchaseColumnStore(repository, properties),
+        mock(SpendRangeIndex.class),
+        mock(PlanService.class),
+        properties
+    );
+  }
+
+  private static CalorieDocument calories(String key, String name, double amount, String unit, double calories) {
+    CalorieDocument document = new CalorieDocument();
+    document.setUserId(USER);
+    document.setIngredientKey(key);
+    document.setIngredientName(name);
+    document.setAmount(amount);
+    document.setUnit(unit);
+    document.setCalories(calories);
+    return document;
+  }
+
+  private static Object derivedQuery(InvocationOnMock call, List<PurchaseDocument> purchases) {
+    String method = call.getMethod().getName();
+    if (!method.startsWith("findByUserId") || !method.endsWith("OrderByPurchasedAtDesc")) {
+      return null;
+    }
+    Object[] arguments = call.getArguments();
+    int next = 1;
+    String key = method.contains("IngredientKey") ? (String) arguments[next++] : null;
+    List<PurchaseDocument> matches = new ArrayList<>();
+    for (PurchaseDocument purchase : purchases) {
+      Instant at = purchase.getPurchasedAt();
+      boolean inRange;
+      if (method.contains("PurchasedAtBetween")) {
+        @SuppressWarnings("unchecked")
+        Range<Instant> range = (Range<Instant>) arguments[next];
+        inRange = at != null && range.contains(at, Comparator.naturalOrder());
+      } else if (method.contains("PurchasedAtGreaterThanEqual")) {
+        inRange = at != null && !at.isBefore((Instant) arguments[next]);
+      } else if (method.contains("PurchasedAtLessThanEqual")) {
+        inRange = at != null && !at.isAfter((Instant) arguments[next]);
+      } else {
+        inRange = true;
+      }
+      if (inRange && (key == null || key.equals(purchase.getIngredientKey()))) {
+        matches.add(purchase);
+      }
+    }
+    matches.sort(Comparator.comparing(PurchaseDocument::getPurchasedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .reversed());
+    return matches;
+  }
+
+  private static void assertSame(String path, JsonNode expected, JsonNode actual) {
+    if (expected.isNumber() && actual.isNumber()) {
+      double tolerance = 1e-9 * Math.max(1.0, Math.abs(expected.asDouble()));
+      assertEquals(expected.asDouble(), actual.asDouble(), tolerance, path);
+      return;
+    }
+    assertEquals(expected.getNodeType(), actual.getNodeType(), path);
+    if (expected.isObject()) {
+      List<String> fields = new ArrayList<>();
+      expected.fieldNames().forEachRemaining(fields::add);
+      List<String> actualFields = new ArrayList<>();
+      actual.fieldNames().forEachRemaining(actualFields::add);
+      assertEquals(fields, actualFields, path);
+      for (String field : fields) {
+        assertSame(path + "." + field, expected.get(field), actual.get(field));
+      }
+    } else if (expected.isArray()) {
+      assertEquals(expected.size(), actual.size(), path);
+      for (int index = 0; index < expected.size(); index++) {
+        assertSame(path + "[" + index + "]", expected.get(index), actual.get(index));
+      }
+    } else {
+      assertEquals(expected, actual, path);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.mealplaner.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.SpendRangeTotalResponse;
+import com.mealplaner.api.dto.SpendingAnalyticsResponse;
+import com.mealplaner.calorie.CalorieDensity;
+import com.mealplaner.calorie.CalorieDensityService;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishService;
+import com.mealplaner.ingredient.IngredientRepository;
+import com.mealplaner.ingredient.IngredientService;
+import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.migration.MigrationService;
+import com.mealplaner.plan.PlanService;
+import com.mealplaner.purchase.PurchaseDocument;
+import com.mealplaner.purchase.PurchasePriceQuery;
+import com.mealplaner.purchase.PurchaseRepository;
+import com.mealplaner.purchase.PurchaseService;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
+
+class SpendingRangeBoundsTest {
+  private static final String USER = "user-1";
+  private static final List<PurchaseDocument> PURCHASES = List.of(
+      purchase("first-instant", "2024-03-04T00:00:00Z", 2.0),
+      purchase("inside", "2024-03-06T12:00:00Z", 3.0),
+      purchase("last-instant", "2024-03-10T23:59:59.999Z", 5.0),
+      purchase("after", "2024-03-11T00:00:00Z", 7.0)
+  );
+
+  @Test
+  void weeklyBucketsAndTotalsCountTheSameBoundaryDays() {
+    for (String mode : List.of("memory", "columnar")) {
+      SpendRollupService rollups = mock(SpendRollupService.class);
+      when(rollups.listBuckets(USER, SpendGranularity.WEEK, LocalDate.parse("2024-03-04"), LocalDate.parse("2024-03-10")))
+          .thenReturn(List.of(bucket("2024-03-04", 10.0)));
+
+      SpendingAnalyticsResponse response = service(mode, rollups).buildSpendingAnalytics(
+          USER,
+          Optional.of("2024-03-04"),
+          Optional.of("2024-03-10"),
+          Optional.empty(),
+          Optional.of("week"),
+          Optional.empty()
+      );
+
+      assertEquals(10.0, response.getTotals().getTotalSpent(), 1e-12, mode);
+      assertEquals(3, response.getPurchaseCount(), mode);
+      assertEquals(1, response.getDailyTotals().size(), mode);
+      assertEquals(
+          response.getTotals().getTotalSpent(),
+          response.getDailyTotals().get(0).getTotal(),
+          1e-12,
+          mode
+      );
+    }
+  }
+
+  @Test
+  void boundsInsideADayBucketTheScannedPurchases() {
+    SpendRollupService rollups = mock(SpendRollupService.class);
+
+    SpendingAnalyticsResponse response = service("memory", rollups).buildSpendingAnalytics(
+        USER,
+        Optional.of("2024-03-04T00:00:00.001Z"),
+        Optional.of("2024-03-10"),
+        Optional.empty(),
+        Optional.of("week"),
+        Optional.empty()
+    );
+
+    verify(rollups, never()).listBuckets(anyString(), any(), any(), any());
+    assertEquals(8.0, response.getTotals().getTotalSpent(), 1e-12);
+    assertEquals(8.0, response.getDailyTotals().get(0).getTotal(), 1e-12);
+  }
+
+  @Test
+  void rangeTotalMatchesSpendingForTheSameDays() {
+    SpendRollupService rollups = mock(SpendRollupService.class);
+    when(rollups.listDaily(USER)).thenReturn(List.of(
+        day("2024-03-04", 2.0),
+        day("2024-03-06", 3.0),
+        day("2024-03-10", 5.0),
+        day("2024-03-11", 7.0)
+    ));
+    AnalyticsService service = service("memory", rollups);
+
+    SpendingAnalyticsResponse spending = service.buildSpendingAnalytics(
+        USER,
+        Optional.of("2024-03-04"),
+        Optional.of("2024-03-10"),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty()
+    );
+    SpendRangeTotalResponse rangeTotal = service.buildRangeTotal(USER, Optional.of("2024-03-04"), Optional.of("2024-03-10"));
+
+    assertEquals(spending.getTotals().getTotalSpent(), rangeTotal.getTotal(), 1e-12);
+    assertEquals(spending.getPurchaseCount(), rangeTotal.getPurchaseCount());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> service.buildRangeTotal(USER, Optional.of("2024-03-04T12:00:00Z"), Optional.empty())
+    );
+  }
+
+  private AnalyticsService service(String mode, SpendRollupService rollups) {
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setMode(mode);
+    PurchaseRepository repository = mock(PurchaseRepository.class);
+    when(repository.findByUserIdOrderByPurchasedAtDesc(USER)).thenReturn(newestFirst(PURCHASES));
+    when(repository.findByUserIdAndPurchasedAtBetweenOrderByPurchasedAtDesc(eq(USER), any())).thenAnswer(call -> {
+      Range<Instant> range = call.getArgument(1);
+      return newestFirst(PURCHASES.stream()
+          .filter(purchase -> range.contains(purchase.getPurchasedAt(), Comparator.naturalOrder()))
+          .toList());
+    });
+    CalorieDensityService densityService = mock(CalorieDensityService.class);
+    when(densityService.forUser(USER)).thenReturn(CalorieDensity.index(List.of()));
+    return new AnalyticsService(
+        new PurchaseService(
+            repository,
+            mock(IngredientRepository.class),
+            mock(InventoryService.class),
+            mock(PurchasePriceQuery.class),
+            mock(MigrationService.class),
+            mock(ApplicationEventPublisher.class)
+        ),
+        mock(DishService.class),
+        mock(IngredientService.class),
+        mock(MigrationService.class),
+        densityService,
+        rollups,
+        mock(IngredientPriceService.class),
+        mock(SpendAggregationQuery.class),
+        new PurchaseColumnStore(repository, properties),
+        new SpendRangeIndex(rollups, properties),
+        mock(PlanService.class),
+        properties
+    );
+  }
+
+  private static List<PurchaseDocument> newestFirst(List<PurchaseDocument> purchases) {
+    return purchases.stream()
+        .sorted(Comparator.comparing(PurchaseDocument::getPurchasedAt).reversed())
+        .toList();
+  }
+
+  private static PurchaseDocument purchase(String id, String purchasedAt, double price) {
+    PurchaseDocument purchase = new PurchaseDocument();
+    purchase.setId(id);
+    purchase.setUserId(USER);
+    purchase.setIngredientKey("oats__g");
+    purchase.setIngredientName("oats");
+    purchase.setUnit("g");
+    purchase.setAmount(100);
+    purchase.setPrice(price);
+    purchase.setPurchasedAt(Instant.parse(purchasedAt));
+    return purchase;
+  }
+
+  private static SpendRollupDocument day(String dateIso, double total) {
+    SpendRollupDocument day = new SpendRollupDocument();
+    day.setDateIso(dateIso);
+    day.setTotal(total);
+    day.setCount(1);
+    return day;
+  }
+
+  private static SpendRollupDocument bucket(String dateIso, double total) {
+    SpendRollupDocument bucket = new SpendRollupDocument();
+    bucket.setDateIso(dateIso);
+    bucket.setTotal(total);
+    bucket.setCount(3);
+    return bucket;
+  }
+}
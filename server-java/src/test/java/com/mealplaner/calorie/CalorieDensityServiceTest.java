@@ -0,0 +1,82 @@
+package com.mealplaner.calorie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.util.UnitConverter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class CalorieDensityServiceTest {
+  @Test
+  void keepsOnlyMostRecentlyUsedUsers() {
+    CalorieRepository repository = mock(CalorieRepository.class);
+    AppProperties properties = new AppProperties();
+    properties.getAnalytics().setCalorieIndexMaxUsers(2);
+    CalorieDensityService service = new CalorieDensityService(repository, properties);
+
+    service.forUser("a");
+    service.forUser("b");
+    service.forUser("a");
+    service.forUser("c");
+    service.forUser("a");
+    service.forUser("b");
+
+    verify(repository, times(1)).findByUserId("a");
+    verify(repository, times(2)).findByUserId("b");
+    verify(repository, times(1)).findByUserId("c");
+  }
+
+  @Test
+  void doesNotCacheIndexLoadedAcrossACalorieChange() {
+    CalorieRepository repository = mock(CalorieRepository.class);
+    AtomicReference<CalorieDensityService> service = new AtomicReference<>();
+    when(repository.findByUserId("a")).thenAnswer(call -> {
+      service.get().onCalorieChanged(new CalorieChangedEvent("a", List.of("oats__g")));
+      return List.of();
+    }).thenReturn(List.of());
+    service.set(new CalorieDensityService(repository, new AppProperties()));
+
+    service.get().forUser("a");
+    service.get().forUser("a");
+    service.get().forUser("a");
+
+    verify(repository, times(2)).findByUserId("a");
+  }
+
+  @Test
+  void refreshKeepsEntriesStoredUnderDifferentlyCasedKeys() {
+    CalorieRepository repository = mock(CalorieRepository.class);
+    when(repository.findByUserId("a"))
+        .thenReturn(List.of(entry("OATS__g", 100, 380)))
+        .thenReturn(List.of(entry("OATS__g", 100, 380), entry(" oats__g", 200, 700), entry("milk__l", 1, 600)));
+    CalorieDensityService service = new CalorieDensityService(repository, new AppProperties());
+    service.forUser("a");
+
+    service.onCalorieChanged(new CalorieChangedEvent("a", List.of("oats__g")));
+
+    Map<String, CalorieDensity> index = service.forUser("a");
+    assertTrue(index.containsKey("oats__g"));
+    assertEquals(3.8, index.get("oats__g").caloriesFor(1, UnitConverter.G), 1e-9);
+    assertFalse(index.containsKey("milk__l"));
+  }
+
+  private CalorieDocument entry(String key, double amount, double calories) {
+    CalorieDocument entry = new CalorieDocument();
+    entry.setUserId("a");
+    entry.setIngredientKey(key);
+    entry.setIngredientName("Oats");
+    entry.setUnit("g");
+    entry.setAmount(amount);
+    entry.setCalories(calories);
+    return entry;
+  }
+}
@@ -0,0 +1,48 @@
+package com.mealplaner.calorie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mealplaner.util.UnitConverter;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CalorieDensityTest {
+  @Test
+  void nutritionUsesFirstCompatibleEntryInListOrder() {
+    Map<String, CalorieDensity> index = CalorieDensity.index(List.of(
+        entry("Oats__g", "g", 100, 380),
+        entry("oats__g", "kg", 1, 3500),
+        entry("oats__g", "pcs", 1, 10)
+    ));
+    CalorieDensity oats = index.get("oats__g");
+
+    assertEquals(190.0, oats.caloriesFor(50, UnitConverter.G), 1e-9);
+    assertEquals(30.0, oats.caloriesFor(3, UnitConverter.PCS), 1e-9);
+    assertTrue(Double.isNaN(oats.caloriesFor(1, UnitConverter.L)));
+  }
+
+  @Test
+  void dishUsesLargestEntryWithTheSameUnitOnly() {
+    CalorieDensity oats = CalorieDensity.of(List.of(
+        entry("oats__g", "g", 100, 380),
+        entry("oats__g", "g", 200, 700),
+        entry("oats__g", "kg", 1, 3500)
+    ));
+
+    assertEquals(350.0, oats.caloriesForDish(100, UnitConverter.G), 1e-9);
+    assertEquals(700.0, oats.caloriesForDish(0.2, UnitConverter.KG), 1e-9);
+    assertTrue(Double.isNaN(oats.caloriesForDish(1, UnitConverter.code("mg"))));
+  }
+
+  private CalorieDocument entry(String key, String unit, double amount, double calories) {
+    CalorieDocument entry = new CalorieDocument();
+    entry.setIngredientKey(key);
+    entry.setIngredientName("Oats");
+    entry.setUnit(unit);
+    entry.setAmount(amount);
+    entry.setCalories(calories);
+    return entry;
+  }
+}
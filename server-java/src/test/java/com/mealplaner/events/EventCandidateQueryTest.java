@@ -0,0 +1,222 @@
+package com.mealplaner.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.EventEntry;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.inventory.InventoryItemRepository;
+import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.inventory.PetFoodItemDocument;
+import com.mealplaner.inventory.PetFoodItemRepository;
+import com.mealplaner.inventory.PetFoodService;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.util.json.ParameterBindingDocumentCodec;
+
+class EventCandidateQueryTest {
+  private static final String USER = "user-1";
+  private static final EventBuilder.Clock CLOCK = new EventBuilder.Clock(
+      LocalDate.of(2024, 3, 15),
+      LocalDateTime.of(2024, 3, 15, 9, 30)
+  );
+  private static final MappingMongoConverter CONVERTER = converter();
+
+  @Test
+  void candidateQueriesBindToExpectedDocuments() throws NoSuchMethodException {
+    Document expiring = new Document("user_id", USER).append(
+        "expires_at",
+        new Document("$gte", Date.from(CLOCK.expiringFrom())).append("$lt", Date.from(CLOCK.expiringUntil()))
+    );
+    Document belowMin = new Document("user_id", USER)
+        .append("min_qty", new Document("$ne", null))
+        .append("$expr", new Document("$lt", List.of("$quantity", "$min_qty")));
+    for (Class<?> repository : List.of(InventoryItemRepository.class, PetFoodItemRepository.class)) {
+      assertEquals(expiring, bind(
+          repository.getMethod("findExpiringWithin", String.class, Instant.class, Instant.class),
+          USER, CLOCK.expiringFrom(), CLOCK.expiringUntil()
+      ));
+      assertEquals(belowMin, bind(repository.getMethod("findBelowMinQty", String.class), USER));
+    }
+    InventoryItemDocument item = new InventoryItemDocument();
+    item.setUserId(USER);
+    item.setMinQty(1.0);
+    item.setExpiresAt(CLOCK.expiringFrom());
+    PetFoodItemDocument petItem = new PetFoodItemDocument();
+    petItem.setUserId(USER);
+    petItem.setMinQty(1.0);
+    petItem.setExpiresAt(CLOCK.expiringFrom());
+    for (Object stored : List.of(item, petItem)) {
+      Document document = new Document();
+      CONVERTER.write(stored, document);
+      assertTrue(document.keySet().containsAll(List.of("user_id", "expires_at", "min_qty", "quantity")));
+    }
+  }
+
+  @Test
+  void inventoryCandidatesProduceSameEventsAsFullScan() {
+    List<Stock> stocks = stocks(11);
+    List<InventoryItemDocument> items = new ArrayList<>();
+    for (Stock stock : stocks) {
+      InventoryItemDocument item = new InventoryItemDocument();
+      item.setId(String.format("inv-%04d", stock.index()));
+      item.setUserId(USER);
+      item.setName("item " + stock.index());
+      item.setUnit("g");
+      item.setQuantity(stock.quantity());
+      item.setMinQty(stock.minQty());
+      item.setExpiresAt(stock.expiresAt());
+      item.setAddedAt(stock.addedAt());
+      items.add(item);
+    }
+    InventoryItemRepository repository = mock(InventoryItemRepository.class);
+    when(repository.findByUserId(USER)).thenAnswer(call -> new ArrayList<>(items));
+    when(repository.findExpiringWithin(eq(USER), any(), any())).thenAnswer(expiringWithin(stocks, items));
+    when(repository.findBelowMinQty(USER)).thenReturn(belowMinQty(stocks, items));
+    InventoryService service = new InventoryService(repository, mock(ApplicationEventPublisher.class));
+
+    List<InventoryItemDocument> candidates = service.listEventCandidates(USER, CLOCK.expiringFrom(), CLOCK.expiringUntil());
+    List<EventEntry> expected = EventBuilder.inventoryEvents(service.listItems(USER), CLOCK);
+    List<EventEntry> actual = EventBuilder.inventoryEvents(candidates, CLOCK);
+
+    assertTrue(candidates.size() < items.size());
+    assertSameEvents(expected, actual);
+  }
+
+  @Test
+  void petCandidatesProduceSameEventsAsFullScan() {
+    List<Stock> stocks = stocks(23);
+    List<PetFoodItemDocument> items = new ArrayList<>();
+    for (Stock stock : stocks) {
+      PetFoodItemDocument item = new PetFoodItemDocument();
+      item.setId(String.format("pet-%04d", stock.index()));
+      item.setUserId(USER);
+      item.setManufacturer("brand " + stock.index());
+      item.setQuantity(stock.quantity());
+      item.setMinQty(stock.minQty());
+      item.setExpiresAt(stock.expiresAt());
+      item.setAddedAt(stock.addedAt());
+      items.add(item);
+    }
+    PetFoodItemRepository repository = mock(PetFoodItemRepository.class);
+    when(repository.findByUserId(USER)).thenAnswer(call -> new ArrayList<>(items));
+    when(repository.findExpiringWithin(eq(USER), any(), any())).thenAnswer(expiringWithin(stocks, items));
+    when(repository.findBelowMinQty(USER)).thenReturn(belowMinQty(stocks, items));
+    PetFoodService service = new PetFoodService(repository, mock(ApplicationEventPublisher.class));
+
+    List<PetFoodItemDocument> candidates = service.listEventCandidates(USER, CLOCK.expiringFrom(), CLOCK.expiringUntil());
+    List<EventEntry> expected = EventBuilder.petEvents(service.listItems(USER), CLOCK);
+    List<EventEntry> actual = EventBuilder.petEvents(candidates, CLOCK);
+
+    assertTrue(candidates.size() < items.size());
+    assertSameEvents(expected, actual);
+  }
+
+  private record Stock(int index, int quantity, Double minQty, Instant expiresAt, Instant addedAt) {}
+
+  private static List<Stock> stocks(long seed) {
+    List<Stock> stocks = new ArrayList<>();
+    Random random = new Random(seed);
+    for (int index = 0; index < 400; index++) {
+      int quantity = random.nextInt(6);
+      Double minQty = random.nextBoolean() ? (double) random.nextInt(6) : null;
+      Instant expiresAt = randomExpiry(random);
+      Instant addedAt = random.nextInt(5) == 0 ? null : Instant.parse("2024-01-01T00:00:00Z").plusSeconds(random.nextInt(50));
+      stocks.add(new Stock(index, quantity, minQty, expiresAt, addedAt));
+    }
+    return stocks;
+  }
+
+  private static Instant randomExpiry(Random random) {
+    if (random.nextInt(6) == 0) {
+      return null;
+    }
+    Instant edge = random.nextBoolean() ? CLOCK.expiringFrom() : CLOCK.expiringUntil();
+    if (random.nextInt(3) == 0) {
+      return edge.plus(Duration.ofMillis(random.nextInt(3) - 1));
+    }
+    return CLOCK.today().atStartOfDay(ZoneOffset.UTC).toInstant().plus(Duration.ofHours(random.nextInt(24 * 140) - 24 * 40));
+  }
+
+  private static MappingMongoConverter converter() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+
+  private static Document bind(Method method, Object... arguments) {
+    Object[] values = new Object[arguments.length];
+    for (int index = 0; index < arguments.length; index++) {
+      values[index] = CONVERTER.convertToMongoType(arguments[index]);
+    }
+    return new ParameterBindingDocumentCodec().decode(method.getAnnotation(Query.class).value(), values);
+  }
+
+  /** Selects what the pinned {@code findExpiringWithin} document matches: {@code from <= expires_at < until}. */
+  private static <T> Answer<List<T>> expiringWithin(List<Stock> stocks, List<T> items) {
+    return call -> {
+      Instant from = call.getArgument(1);
+      Instant until = call.getArgument(2);
+      List<T> matches = new ArrayList<>();
+      for (Stock stock : stocks) {
+        Instant at = stock.expiresAt();
+        if (at != null && !at.isBefore(from) && at.isBefore(until)) {
+          matches.add(items.get(stock.index()));
+        }
+      }
+      return matches;
+    };
+  }
+
+  /** Selects what the pinned {@code findBelowMinQty} document matches: a set {@code min_qty} above {@code quantity}. */
+  private static <T> List<T> belowMinQty(List<Stock> stocks, List<T> items) {
+    List<T> matches = new ArrayList<>();
+    for (Stock stock : stocks) {
+      if (stock.minQty() != null && stock.quantity() < stock.minQty()) {
+        matches.add(items.get(stock.index()));
+      }
+    }
+    return matches;
+  }
+
+  private static void assertSameEvents(List<EventEntry> expected, List<EventEntry> actual) {
+    assertTrue(!expected.isEmpty());
+    assertEquals(expected.size(), actual.size());
+    for (int index = 0; index < expected.size(); index++) {
+      EventEntry left = expected.get(index);
+      EventEntry right = actual.get(index);
+      assertEquals(left.getId(), right.getId());
+      assertEquals(left.getKind(), right.getKind());
+      assertEquals(left.getPriority(), right.getPriority());
+      assertEquals(left.getTitle(), right.getTitle());
+      assertEquals(left.getDate(), right.getDate());
+      assertEquals(left.getAmount(), right.getAmount());
+      assertEquals(left.getUnit(), right.getUnit());
+    }
+  }
+}
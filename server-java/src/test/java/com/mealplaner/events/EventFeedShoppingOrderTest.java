@@ -0,0 +1,137 @@
+package com.mealplaner.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.EventDelta;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishDocument;
+import com.mealplaner.dish.DishIngredient;
+import com.mealplaner.dish.DishRepository;
+import com.mealplaner.inventory.InventoryItemRepository;
+import com.mealplaner.inventory.InventoryService;
+import com.mealplaner.inventory.PetFoodService;
+import com.mealplaner.migration.MigrationService;
+import com.mealplaner.plan.PlanChangedEvent;
+import com.mealplaner.plan.PlanDocument;
+import com.mealplaner.plan.PlanRepository;
+import com.mealplaner.plan.PlanService;
+import com.mealplaner.purchase.PurchasePriceSummary;
+import com.mealplaner.purchase.PurchaseService;
+import com.mealplaner.shopping.ShoppingAggregateStore;
+import com.mealplaner.shopping.ShoppingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class EventFeedShoppingOrderTest {
+  private static final String USER = "user-1";
+
+  private final Map<String, PlanDocument> plans = new TreeMap<>();
+  private final Map<String, List<EventDocument>> events = new HashMap<>();
+
+  @Test
+  void planChangeReachesFeedAfterShoppingAggregateApplied() throws InterruptedException {
+    try (AnnotationConfigApplicationContext context = context()) {
+      List<EventDelta> deltas = new CopyOnWriteArrayList<>();
+      CountDownLatch refreshed = new CountDownLatch(1);
+      context.addApplicationListener(ApplicationListener.<EventFeedChangedEvent>forPayload(event -> {
+        deltas.addAll(event.deltas());
+        refreshed.countDown();
+      }));
+      context.getBean(EventFeedStore.class).ensureBuilt(USER);
+      assertTrue(events.getOrDefault("shopping", List.of()).isEmpty());
+
+      String today = LocalDate.now(ZoneOffset.UTC).toString();
+      PlanDocument plan = new PlanDocument();
+      plan.setId(USER + ":" + today);
+      plan.setUserId(USER);
+      plan.setDateIso(today);
+      plan.setSlots(new HashMap<>(Map.of("lunch", "dish-1")));
+      plans.put(today, plan);
+      context.publishEvent(new PlanChangedEvent(USER, today, plan.getSlots()));
+      assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+      List<EventDocument> shopping = events.getOrDefault("shopping", List.of());
+      assertEquals(1, shopping.size());
+      assertEquals("Oats", shopping.get(0).getTitle());
+      assertTrue(deltas.stream().anyMatch(delta -> delta.getType().equals("added")
+          && delta.getEventId().equals(shopping.get(0).getEventId())));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private AnnotationConfigApplicationContext context() {
+    PlanRepository planRepository = mock(PlanRepository.class);
+    when(planRepository.findByUserIdAndDateIsoBetweenOrderByDateIsoAsc(eq(USER), any())).thenAnswer(call -> {
+      Range<String> range = call.getArgument(1);
+      return plans.values().stream().filter(plan -> range.contains(plan.getDateIso(), String::compareTo)).toList();
+    });
+    DishRepository dishRepository = mock(DishRepository.class);
+    when(dishRepository.findByUserIdAndIdIn(eq(USER), any())).thenReturn(List.of(dish()));
+    EventRepository eventRepository = mock(EventRepository.class);
+    when(eventRepository.findByUserIdAndSource(eq(USER), anyString()))
+        .thenAnswer(call -> events.getOrDefault(call.getArgument(1), List.of()));
+    when(eventRepository.saveAll(any())).thenAnswer(call -> {
+      List<EventDocument> docs = new ArrayList<>((List<EventDocument>) call.getArgument(0));
+      events.put(docs.get(0).getSource(), docs);
+      return docs;
+    });
+    PurchaseService purchaseService = mock(PurchaseService.class);
+    when(purchaseService.summarizePrices(eq(USER), anyString(), anyString(), anyInt()))
+        .thenReturn(new PurchasePriceSummary(0.0, List.of()));
+
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    context.registerBean(EventFeedStore.class);
+    context.registerBean(EventSourceLoader.class);
+    context.registerBean(EventRepository.class, () -> eventRepository);
+    context.registerBean(InventoryService.class, () -> mock(InventoryService.class));
+    context.registerBean(PetFoodService.class, () -> mock(PetFoodService.class));
+    context.registerBean(PurchaseService.class, () -> purchaseService);
+    context.registerBean(ShoppingAggregateStore.class);
+    context.registerBean(ShoppingService.class);
+    context.registerBean(PlanService.class);
+    context.registerBean(PlanRepository.class, () -> planRepository);
+    context.registerBean(MongoTemplate.class, () -> mock(MongoTemplate.class));
+    context.registerBean(MigrationService.class, () -> mock(MigrationService.class));
+    context.registerBean(DishRepository.class, () -> dishRepository);
+    context.registerBean(InventoryItemRepository.class, () -> mock(InventoryItemRepository.class));
+    context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+    context.registerBean(AppProperties.class);
+    context.refresh();
+    return context;
+  }
+
+  private DishDocument dish() {
+    DishIngredient ingredient = new DishIngredient();
+    ingredient.setName("Oats");
+    ingredient.setUnit("g");
+    ingredient.setQty(200.0);
+    DishDocument dish = new DishDocument();
+    dish.setId("dish-1");
+    dish.setUserId(USER);
+    dish.setName("Porridge");
+    dish.setIngredients(List.of(ingredient));
+    return dish;
+  }
+}
@@ -0,0 +1,163 @@
+package com.mealplaner.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.EventEntry;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.inventory.InventoryChangedEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+class EventFeedStoreTest {
+  private static final String USER = "user-1";
+
+  @Test
+  void rebuildKeepsStoredRowsOfDegradedSourcesAndReportsThem() {
+    EventRepository repository = mock(EventRepository.class);
+    when(repository.findByUserIdAndSource(eq(USER), anyString())).thenReturn(List.of());
+    when(repository.findByUserId(eq(USER), any(Pageable.class))).thenReturn(List.of());
+    EventSourceLoader loader = mock(EventSourceLoader.class);
+    Map<String, List<EventEntry>> loaded = new LinkedHashMap<>();
+    loaded.put(EventSourceLoader.INVENTORY, List.of());
+    loaded.put(EventSourceLoader.PET_FOOD, List.of());
+    loaded.put(EventSourceLoader.PURCHASES, List.of());
+    when(loader.load(eq(USER), any(), anyInt(), eq(EventSourceLoader.SOURCES)))
+        .thenReturn(new EventSourceLoader.Loaded(loaded, List.of(EventSourceLoader.SHOPPING)));
+    EventFeedStore store = new EventFeedStore(
+        repository,
+        loader,
+        mock(ApplicationEventPublisher.class),
+        new AppProperties()
+    );
+
+    EventFeed feed = store.read(USER, 10);
+    store.read(USER, 10);
+
+    assertEquals(List.of(EventSourceLoader.SHOPPING), feed.degradedSources());
+    verify(repository, never()).findByUserIdAndSource(USER, EventSourceLoader.SHOPPING);
+    verify(repository, times(2)).findByUserIdAndSource(USER, EventSourceLoader.INVENTORY);
+    verify(loader, times(2)).load(eq(USER), any(), eq(EventFeedStore.LOOKAHEAD_DAYS), eq(EventSourceLoader.SOURCES));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void replaceKeepsStoredIdsAndDeletesOnlyRemovedEvents() {
+    EventRepository repository = mock(EventRepository.class);
+    when(repository.findByUserIdAndSource(eq(USER), anyString())).thenReturn(List.of());
+    when(repository.findByUserIdAndSource(USER, EventSourceLoader.INVENTORY))
+        .thenReturn(List.of(stored("legacy-a", "inventory-a"), stored("legacy-b", "inventory-b")));
+    when(repository.findByUserId(eq(USER), any(Pageable.class))).thenReturn(List.of());
+    EventSourceLoader loader = mock(EventSourceLoader.class);
+    Map<String, List<EventEntry>> loaded = new LinkedHashMap<>();
+    loaded.put(EventSourceLoader.INVENTORY, List.of(entry("inventory-a"), entry("inventory-c")));
+    loaded.put(EventSourceLoader.PET_FOOD, List.of());
+    loaded.put(EventSourceLoader.SHOPPING, List.of());
+    loaded.put(EventSourceLoader.PURCHASES, List.of());
+    when(loader.load(eq(USER), any(), anyInt(), eq(EventSourceLoader.SOURCES)))
+        .thenReturn(new EventSourceLoader.Loaded(loaded, List.of()));
+    EventFeedStore store = new EventFeedStore(
+        repository,
+        loader,
+        mock(ApplicationEventPublisher.class),
+        new AppProperties()
+    );
+
+    store.read(USER, 10);
+
+    ArgumentCaptor<List<EventDocument>> saved = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(saved.capture());
+    assertEquals(
+        List.of("legacy-a", USER + ":inventory:inventory-c"),
+        saved.getValue().stream().map(EventDocument::getId).toList()
+    );
+    verify(repository).deleteAllById(List.of("legacy-b"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void readWaitsForTheRefreshQueuedByAnEarlierWrite() throws Exception {
+    Map<String, List<EventDocument>> stored = new ConcurrentHashMap<>();
+    EventRepository repository = mock(EventRepository.class);
+    when(repository.findByUserIdAndSource(eq(USER), anyString()))
+        .thenAnswer(call -> stored.getOrDefault(call.getArgument(1), List.of()));
+    when(repository.saveAll(any())).thenAnswer(call -> {
+      List<EventDocument> docs = new ArrayList<>((List<EventDocument>) call.getArgument(0));
+      stored.put(docs.get(0).getSource(), docs);
+      return docs;
+    });
+    when(repository.findByUserId(eq(USER), any(Pageable.class)))
+        .thenAnswer(call -> stored.values().stream().flatMap(List::stream).toList());
+    EventSourceLoader loader = mock(EventSourceLoader.class);
+    Map<String, List<EventEntry>> empty = new LinkedHashMap<>();
+    EventSourceLoader.SOURCES.forEach(source -> empty.put(source, List.of()));
+    when(loader.load(eq(USER), any(), anyInt(), eq(EventSourceLoader.SOURCES)))
+        .thenReturn(new EventSourceLoader.Loaded(empty, List.of()));
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(loader.load(eq(USER), any(), anyInt(), eq(List.of(EventSourceLoader.INVENTORY)))).thenAnswer(call -> {
+      loading.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return new EventSourceLoader.Loaded(Map.of(EventSourceLoader.INVENTORY, List.of(entry("inventory-a"))), List.of());
+    });
+    EventFeedStore store = new EventFeedStore(
+        repository,
+        loader,
+        mock(ApplicationEventPublisher.class),
+        new AppProperties()
+    );
+    assertTrue(store.read(USER, 10).events().isEmpty());
+
+    store.onInventoryChanged(new InventoryChangedEvent(USER, "item-a", null));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+    CompletableFuture<EventFeed> read = CompletableFuture.supplyAsync(() -> store.read(USER, 10));
+    assertThrows(TimeoutException.class, () -> read.get(100, TimeUnit.MILLISECONDS));
+    release.countDown();
+
+    assertEquals(
+        List.of("inventory-a"),
+        read.get(5, TimeUnit.SECONDS).events().stream().map(EventEntry::getId).toList()
+    );
+    store.shutdown();
+  }
+
+  private EventDocument stored(String id, String eventId) {
+    EventDocument doc = new EventDocument();
+    doc.setId(id);
+    doc.setUserId(USER);
+    doc.setEventId(eventId);
+    doc.setSource(EventSourceLoader.INVENTORY);
+    doc.setPriority("high");
+    return doc;
+  }
+
+  private EventEntry entry(String id) {
+    EventEntry entry = new EventEntry();
+    entry.setId(id);
+    entry.setKind("expiring");
+    entry.setPriority("high");
+    entry.setTitle(id);
+    return entry;
+  }
+}
@@ -0,0 +1,115 @@
+package com.mealplaner.plan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.migration.MigrationService;
+import com.mongodb.bulk.BulkWriteError;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+class PlanServiceTest {
+  private static final String USER = "user-1";
+
+  @Test
+  void upsertAllReportsResultsInRequestOrderAndMapsFailedIndexes() {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PlanDocument.class)).thenReturn(bulk);
+    BulkOperationException failure = mock(BulkOperationException.class);
+    when(failure.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 2)));
+    when(bulk.execute()).thenThrow(failure);
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    PlanService service = new PlanService(
+        mock(PlanRepository.class),
+        mongoTemplate,
+        mock(MigrationService.class),
+        publisher
+    );
+
+    List<PlanUpsertResult> results = service.upsertAll(USER, List.of(
+        plan("2024-03-02", "dish-1"),
+        plan("not-a-date", "dish-2"),
+        plan("2024-03-01", "dish-3"),
+        plan("2024-03-02", "dish-4"),
+        plan("2024-03-03", "dish-5")
+    ));
+
+    assertEquals(
+        List.of(
+            PlanUpsertResult.Status.SUPERSEDED,
+            PlanUpsertResult.Status.FAILED,
+            PlanUpsertResult.Status.SAVED,
+            PlanUpsertResult.Status.SAVED,
+            PlanUpsertResult.Status.FAILED
+        ),
+        results.stream().map(PlanUpsertResult::status).toList()
+    );
+    assertEquals(
+        List.of("2024-03-02", "not-a-date", "2024-03-01", "2024-03-02", "2024-03-03"),
+        results.stream().map(PlanUpsertResult::dateIso).toList()
+    );
+    assertEquals(Map.of("lunch", "dish-4"), results.get(3).plan().getSlots());
+    assertEquals("Write failed", results.get(4).error());
+
+    verify(mongoTemplate, times(0)).find(any(Query.class), eq(PlanDocument.class));
+
+    ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(bulk, times(3)).upsert(queries.capture(), updates.capture());
+    assertEquals(
+        new Document("user_id", USER).append("date_iso", "2024-03-02"),
+        queries.getAllValues().get(0).getQueryObject()
+    );
+    assertEquals(
+        new Document("_id", USER + ":2024-03-02"),
+        updates.getAllValues().get(0).getUpdateObject().get("$setOnInsert")
+    );
+
+    ArgumentCaptor<PlansChangedEvent> events = ArgumentCaptor.forClass(PlansChangedEvent.class);
+    verify(publisher).publishEvent(events.capture());
+    assertEquals(List.of("2024-03-02", "2024-03-01"), List.copyOf(events.getValue().slotsByDate().keySet()));
+  }
+
+  @Test
+  void upsertAllSkipsBulkWriteWhenEveryDayIsInvalid() {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    PlanService service = new PlanService(
+        mock(PlanRepository.class),
+        mongoTemplate,
+        mock(MigrationService.class),
+        mock(ApplicationEventPublisher.class)
+    );
+
+    List<PlanUpsertResult> results = service.upsertAll(USER, List.of(plan(null, "dish-1"), plan("", "dish-2")));
+
+    assertEquals(2, results.size());
+    assertFalse(results.get(0).saved());
+    assertFalse(results.get(1).saved());
+    verify(mongoTemplate, times(0)).bulkOps(any(BulkOperations.BulkMode.class), eq(PlanDocument.class));
+  }
+
+  private PlanDocument plan(String dateIso, String dishId) {
+    PlanDocument plan = new PlanDocument();
+    plan.setDateIso(dateIso);
+    plan.setSlots(new HashMap<>(Map.of("lunch", dishId)));
+    return plan;
+  }
+}
@@ -0,0 +1,350 @@
+package com.mealplaner.shopping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mealplaner.api.dto.ShoppingListItem;
+import com.mealplaner.config.AppProperties;
+import com.mealplaner.dish.DishChangedEvent;
+import com.mealplaner.dish.DishDocument;
+import com.mealplaner.dish.DishIngredient;
+import com.mealplaner.dish.DishRepository;
+import com.mealplaner.inventory.InventoryChangedEvent;
+import com.mealplaner.inventory.InventoryItemDocument;
+import com.mealplaner.inventory.InventoryItemRepository;
+import com.mealplaner.migration.MigrationService;
+import com.mealplaner.plan.PlanChangedEvent;
+import com.mealplaner.plan.PlanDocument;
+import com.mealplaner.plan.PlanRepository;
+import com.mealplaner.plan.PlanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class ShoppingAggregateTest {
+  private static final String USER = "user-1";
+  private static final String START = "2024-03-01";
+  private static final String END = "2024-03-31";
+  private static final List<String> NAMES = List.of("Oats", "Milk", "Eggs", "Rice", "Apple");
+  private static final List<String> UNITS = List.of("g", "kg", "pcs", "ml");
+  private static final List<String> SLOTS = List.of("breakfast", "lunch", "dinner");
+
+  private final Map<String, PlanDocument> plans = new TreeMap<>();
+  private final Map<String, DishDocument> dishes = new HashMap<>();
+  private final Map<String, InventoryItemDocument> inventory = new LinkedHashMap<>();
+
+  @Test
+  void incrementalDeltasMatchFullRebuild() {
+    Random random = new Random(5);
+    for (int index = 0; index < 12; index++) {
+      putDish(randomDish("dish-" + index, random));
+    }
+    for (int index = 0; index < 10; index++) {
+      putItem(randomItem("item-" + index, random));
+    }
+    for (int day = 0; day < 40; day++) {
+      putPlan(randomPlan(LocalDate.of(2024, 2, 25).plusDays(day).toString(), random));
+    }
+    ShoppingService service = service();
+    ShoppingAggregate aggregate = load();
+    assertTrue(ShoppingAggregate.sameItems(aggregate.items(), service.rebuild(USER, START, END)));
+
+    for (int step = 0; step < 300; step++) {
+      int action = random.nextInt(6);
+      if (action == 0) {
+        PlanDocument plan = randomPlan(LocalDate.of(2024, 2, 25).plusDays(random.nextInt(40)).toString(), random);
+        putPlan(plan);
+        if (aggregate.covers(plan.getDateIso())) {
+          aggregate.putPlan(plan.getDateIso(), plan.getSlots(), dishesFor(aggregate.unknownDishes(plan.getSlots())));
+        }
+      } else if (action == 1) {
+        String dateIso = LocalDate.of(2024, 2, 25).plusDays(random.nextInt(40)).toString();
+        if (plans.remove(dateIso) != null && aggregate.covers(dateIso)) {
+          aggregate.putPlan(dateIso, null, Map.of());
+        }
+      } else if (action == 2) {
+        DishDocument dish = randomDish("dish-" + random.nextInt(14), random);
+        putDish(dish);
+        if (aggregate.usesDish(dish.getId())) {
+          aggregate.putDish(dish.getId(), dish);
+        }
+      } else if (action == 3) {
+        InventoryItemDocument item = randomItem("item-" + random.nextInt(12), random);
+        putItem(item);
+        aggregate.putInventoryItem(item.getId(), item);
+      } else if (action == 4) {
+        Map<String, Map<String, String>> batch = new HashMap<>();
+        Set<String> unknown = new HashSet<>();
+        int days = 2 + random.nextInt(6);
+        for (int index = 0; index < days; index++) {
+          PlanDocument plan = randomPlan(LocalDate.of(2024, 2, 25).plusDays(random.nextInt(40)).toString(), random);
+          putPlan(plan);
+          if (aggregate.covers(plan.getDateIso())) {
+            batch.put(plan.getDateIso(), plan.getSlots());
+          }
+        }
+        batch.values().forEach(slots -> unknown.addAll(aggregate.unknownDishes(slots)));
+        aggregate.putPlans(batch, dishesFor(unknown));
+      } else {
+        String itemId = "item-" + random.nextInt(12);
+        if (inventory.remove(itemId) != null) {
+          aggregate.putInventoryItem(itemId, null);
+        }
+      }
+      List<ShoppingListItem> rebuilt = service.rebuild(USER, START, END);
+      assertTrue(ShoppingAggregate.sameItems(aggregate.items(), rebuilt), "diverged at step " + step);
+    }
+  }
+
+  @Test
+  void dishChangeReloadsOnlyThatDish() {
+    Random random = new Random(9);
+    for (int index = 0; index < 6; index++) {
+      putDish(randomDish("dish-" + index, random));
+    }
+    for (int day = 0; day < 10; day++) {
+      putPlan(randomPlan(LocalDate.of(2024, 3, 1).plusDays(day).toString(), random));
+    }
+    DishRepository dishRepository = dishRepository();
+    ShoppingAggregateStore store = new ShoppingAggregateStore(
+        planService(),
+        dishRepository,
+        inventoryRepository(),
+        new AppProperties(),
+        mock(ApplicationEventPublisher.class)
+    );
+    store.items(USER, START, END);
+    String changed = plans.values().stream()
+        .flatMap(plan -> plan.getSlots().values().stream())
+        .filter(dishes::containsKey)
+        .findFirst()
+        .orElseThrow();
+    putDish(randomDish(changed, random));
+
+    store.onDishChanged(new DishChangedEvent(USER, changed));
+
+    verify(dishRepository).findByUserIdAndIdIn(USER, Set.of(changed));
+    assertTrue(ShoppingAggregate.sameItems(store.items(USER, START, END), service().rebuild(USER, START, END)));
+  }
+
+  @Test
+  void verificationRequeuesRangesWrittenDuringTheRebuild() {
+    DishDocument dish = new DishDocument();
+    dish.setId("dish-0");
+    dish.setUserId(USER);
+    dish.setName("Porridge");
+    DishIngredient oats = new DishIngredient();
+    oats.setName("Oats");
+    oats.setUnit("g");
+    oats.setQty(200.0);
+    dish.setIngredients(List.of(oats));
+    putDish(dish);
+    PlanDocument plan = new PlanDocument();
+    plan.setId(USER + ":" + START);
+    plan.setUserId(USER);
+    plan.setDateIso(START);
+    plan.setSlots(Map.of("breakfast", "dish-0"));
+    putPlan(plan);
+    InventoryItemDocument item = new InventoryItemDocument();
+    item.setId("item-0");
+    item.setUserId(USER);
+    item.setName("Oats");
+    item.setUnit("g");
+    item.setQuantity(150.0);
+
+    InventoryItemRepository inventoryRepository = inventoryRepository();
+    ShoppingAggregateStore store = new ShoppingAggregateStore(
+        planService(),
+        dishRepository(),
+        inventoryRepository,
+        new AppProperties(),
+        mock(ApplicationEventPublisher.class)
+    );
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ShoppingService service = new ShoppingService(
+        planService(),
+        dishRepository(),
+        inventoryRepository,
+        store,
+        meterRegistry,
+        new AppProperties()
+    );
+    store.items(USER, START, END);
+    store.onPlanChanged(new PlanChangedEvent(USER, START, plan.getSlots()));
+    when(inventoryRepository.findByUserId(USER)).thenAnswer(call -> {
+      List<InventoryItemDocument> read = new ArrayList<>(inventory.values());
+      putItem(item);
+      store.onInventoryChanged(new InventoryChangedEvent(USER, item.getId(), item));
+      return read;
+    }).thenAnswer(call -> new ArrayList<>(inventory.values()));
+
+    service.verifyAggregates();
+    assertEquals(0.0, meterRegistry.counter("shopping.aggregate.drift").count());
+    assertEquals(List.of(new ShoppingAggregateStore.Range(USER, START, END)), store.drainDirty(10));
+
+    store.onInventoryChanged(new InventoryChangedEvent(USER, item.getId(), item));
+    service.verifyAggregates();
+    assertEquals(0.0, meterRegistry.counter("shopping.aggregate.drift").count());
+    assertTrue(store.drainDirty(10).isEmpty());
+  }
+
+  @Test
+  void sameItemsDetectsDrift() {
+    ShoppingListItem item = new ShoppingListItem();
+    item.setName("Oats");
+    item.setUnit("g");
+    item.setRequiredQty(2.0);
+    item.setDishes(List.of("dish-1"));
+    ShoppingListItem drifted = new ShoppingListItem();
+    drifted.setName("Oats");
+    drifted.setUnit("g");
+    drifted.setRequiredQty(3.0);
+    drifted.setDishes(List.of("dish-1"));
+
+    assertFalse(ShoppingAggregate.sameItems(List.of(item), List.of(drifted)));
+  }
+
+  private ShoppingAggregate load() {
+    ShoppingAggregate aggregate = new ShoppingAggregate(LocalDate.parse(START), LocalDate.parse(END));
+    inventory.values().forEach(item -> aggregate.putInventoryItem(item.getId(), item));
+    for (PlanDocument plan : plans.values()) {
+      if (aggregate.covers(plan.getDateIso())) {
+        aggregate.putPlan(plan.getDateIso(), plan.getSlots(), dishesFor(aggregate.unknownDishes(plan.getSlots())));
+      }
+    }
+    return aggregate;
+  }
+
+  private Map<String, DishDocument> dishesFor(Set<String> dishIds) {
+    Map<String, DishDocument> found = new HashMap<>();
+    for (String dishId : dishIds) {
+      if (dishes.containsKey(dishId)) {
+        found.put(dishId, dishes.get(dishId));
+      }
+    }
+    return found;
+  }
+
+  private ShoppingService service() {
+    return new ShoppingService(
+        planService(),
+        dishRepository(),
+        inventoryRepository(),
+        null,
+        new SimpleMeterRegistry(),
+        new AppProperties()
+    );
+  }
+
+  private PlanService planService() {
+    PlanRepository planRepository = mock(PlanRepository.class);
+    when(planRepository.findByUserIdIsNull()).thenReturn(List.of());
+    when(planRepository.findByUserIdOrderByDateIsoAsc(USER)).thenAnswer(call -> new ArrayList<>(plans.values()));
+    when(planRepository.findByUserIdAndDateIsoBetweenOrderByDateIsoAsc(eq(USER), any())).thenAnswer(call -> {
+      Range<String> range = call.getArgument(1);
+      return plans.values().stream().filter(plan -> range.contains(plan.getDateIso(), String::compareTo)).toList();
+    });
+    return new PlanService(
+        planRepository,
+        mock(MongoTemplate.class),
+        mock(MigrationService.class),
+        mock(ApplicationEventPublisher.class)
+    );
+  }
+
+  @SuppressWarnings("unchecked")
+  private DishRepository dishRepository() {
+    DishRepository dishRepository = mock(DishRepository.class);
+    when(dishRepository.findByUserIdAndIdIn(eq(USER), any())).thenAnswer(call -> {
+      Set<String> ids = new HashSet<>();
+      ((Iterable<String>) call.getArgument(1)).forEach(ids::add);
+      return dishes.values().stream().filter(dish -> ids.contains(dish.getId())).toList();
+    });
+    return dishRepository;
+  }
+
+  private InventoryItemRepository inventoryRepository() {
+    InventoryItemRepository inventoryRepository = mock(InventoryItemRepository.class);
+    when(inventoryRepository.findByUserId(USER)).thenAnswer(call -> new ArrayList<>(inventory.values()));
+    return inventoryRepository;
+  }
+
+  private void putPlan(PlanDocument plan) {
+    plans.put(plan.getDateIso(), plan);
+  }
+
+  private void putDish(DishDocument dish) {
+    dishes.put(dish.getId(), dish);
+  }
+
+  private void putItem(InventoryItemDocument item) {
+    inventory.put(item.getId(), item);
+  }
+
+  private PlanDocument randomPlan(String dateIso, Random random) {
+    PlanDocument plan = new PlanDocument();
+    plan.setId(USER + ":" + dateIso);
+    plan.setUserId(USER);
+    plan.setDateIso(dateIso);
+    Map<String, String> slots = new HashMap<>();
+    for (String slot : SLOTS) {
+      if (random.nextInt(4) != 0) {
+        slots.put(slot, "dish-" + random.nextInt(14));
+      }
+    }
+    plan.setSlots(slots);
+    return plan;
+  }
+
+  private DishDocument randomDish(String id, Random random) {
+    DishDocument dish = new DishDocument();
+    dish.setId(id);
+    dish.setUserId(USER);
+    dish.setName(id);
+    List<DishIngredient> ingredients = new ArrayList<>();
+    int count = 1 + random.nextInt(4);
+    for (int index = 0; index < count; index++) {
+      DishIngredient ingredient = new DishIngredient();
+      String name = NAMES.get(random.nextInt(NAMES.size()));
+      String unit = UNITS.get(random.nextInt(UNITS.size()));
+      ingredient.setName(name);
+      ingredient.setUnit(unit);
+      ingredient.setIngredientKey(random.nextBoolean() ? name.toLowerCase() + "__" + unit : null);
+      ingredient.setQty(0.5 * (1 + random.nextInt(8)));
+      ingredients.add(ingredient);
+    }
+    dish.setIngredients(ingredients);
+    return dish;
+  }
+
+  private InventoryItemDocument randomItem(String id, Random random) {
+    InventoryItemDocument item = new InventoryItemDocument();
+    String name = NAMES.get(random.nextInt(NAMES.size()));
+    String unit = UNITS.get(random.nextInt(UNITS.size()));
+    item.setId(id);
+    item.setUserId(USER);
+    item.setName(name);
+    item.setUnit(unit);
+    item.setIngredientKey(random.nextBoolean() ? name.toLowerCase() + "__" + unit : null);
+    item.setQuantity(0.5 * random.nextInt(10));
+    return item;
+  }
+}
@@ -0,0 +1,42 @@
+package com.mealplaner.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TopKTest {
+  @Test
+  void matchesStableSortThenTruncate() {
+    Random random = new Random(7);
+    Comparator<int[]> byValueDesc = Comparator.comparingInt((int[] item) -> item[0]).reversed();
+    for (int round = 0; round < 50; round++) {
+      int limit = 1 + random.nextInt(10);
+      List<int[]> items = new ArrayList<>();
+      int size = random.nextInt(200);
+      for (int index = 0; index < size; index++) {
+        items.add(new int[] {random.nextInt(20), index});
+      }
+      TopK<int[]> top = new TopK<>(limit, byValueDesc);
+      items.forEach(top::offer);
+
+      List<int[]> expected = new ArrayList<>(items);
+      expected.sort(byValueDesc);
+      expected = expected.subList(0, Math.min(limit, expected.size()));
+      List<int[]> actual = top.toList();
+      assertEquals(expected.size(), actual.size());
+      for (int index = 0; index < expected.size(); index++) {
+        assertEquals(expected.get(index)[1], actual.get(index)[1]);
+      }
+    }
+  }
+
+  @Test
+  void rejectsNonPositiveLimit() {
+    assertThrows(IllegalArgumentException.class, () -> new TopK<Integer>(0, Comparator.naturalOrder()));
+  }
+}
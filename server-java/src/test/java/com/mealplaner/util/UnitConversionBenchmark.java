@@ -0,0 +1,131 @@
+package com.mealplaner.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link UnitConverter} with the boxed map lookups it replaced.
+ * Each invocation normalizes and cross-converts a fixed batch of quantities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UnitConversionBenchmark {
+  private static final String[] UNITS = {"g", "kg", "ml", "l", "pcs", "tbsp", "cup", "oz"};
+  private static final int BATCH = 4096;
+
+  private final String[] from = new String[BATCH];
+  private final String[] to = new String[BATCH];
+  private final double[] amounts = new double[BATCH];
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    for (int index = 0; index < BATCH; index++) {
+      from[index] = UNITS[random.nextInt(UNITS.length)];
+      to[index] = UNITS[random.nextInt(UNITS.length)];
+      amounts[index] = 1 + random.nextInt(1000);
+    }
+  }
+
+  @Benchmark
+  public double boxedMaps() {
+    double sum = 0.0;
+    for (int index = 0; index < BATCH; index++) {
+      LegacyQuantity normalized = LegacyQuantity.of(amounts[index], from[index]);
+      if (normalized != null) {
+        sum += normalized.amount;
+      }
+      Double converted = LegacyQuantity.convert(amounts[index], from[index], to[index]);
+      if (converted != null) {
+        sum += converted;
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double compiledTables() {
+    double sum = 0.0;
+    for (int index = 0; index < BATCH; index++) {
+      int fromCode = UnitConverter.code(from[index]);
+      double normalized = UnitConverter.toBase(amounts[index], fromCode);
+      if (!Double.isNaN(normalized)) {
+        sum += normalized;
+      }
+      double converted = UnitConverter.convert(amounts[index], fromCode, UnitConverter.code(to[index]));
+      if (!Double.isNaN(converted)) {
+        sum += converted;
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(UnitConversionBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+
+  private static final class LegacyQuantity {
+    private static final Map<String, Double> MASS = new HashMap<>(UnitConverter.massFactors());
+    private static final Map<String, Double> VOLUME = new HashMap<>(UnitConverter.volumeFactors());
+
+    private final String baseUnit;
+    private final double amount;
+
+    private LegacyQuantity(String baseUnit, double amount) {
+      this.baseUnit = baseUnit;
+      this.amount = amount;
+    }
+
+    static LegacyQuantity of(double amount, String unit) {
+      String normalized = unit == null ? "" : unit.trim().toLowerCase();
+      if (MASS.containsKey(normalized)) {
+        return new LegacyQuantity("kg", amount * MASS.get(normalized));
+      }
+      if (VOLUME.containsKey(normalized)) {
+        return new LegacyQuantity("l", amount * VOLUME.get(normalized));
+      }
+      if ("pcs".equals(normalized)) {
+        return new LegacyQuantity("pcs", amount);
+      }
+      return null;
+    }
+
+    static Double convert(double amount, String fromUnit, String toUnit) {
+      String from = fromUnit == null ? "" : fromUnit.trim().toLowerCase();
+      String to = toUnit == null ? "" : toUnit.trim().toLowerCase();
+      if (from.equals(to)) {
+        return amount;
+      }
+      if (MASS.containsKey(from) && MASS.containsKey(to)) {
+        return amount * MASS.get(from) / MASS.get(to);
+      }
+      if (VOLUME.containsKey(from) && VOLUME.containsKey(to)) {
+        return amount * VOLUME.get(from) / VOLUME.get(to);
+      }
+      return null;
+    }
+  }
+}
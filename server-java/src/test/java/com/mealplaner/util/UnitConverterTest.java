@@ -0,0 +1,54 @@
+package com.mealplaner.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class UnitConverterTest {
+  @Test
+  void resolvesAliasesAndCase() {
+    assertEquals(UnitConverter.KG, UnitConverter.code(" KG "));
+    assertEquals(UnitConverter.KG, UnitConverter.code("кг"));
+    assertEquals(UnitConverter.PCS, UnitConverter.code("шт."));
+    assertEquals(UnitConverter.KG, UnitConverter.code("kG"));
+    assertEquals(UnitConverter.PCS, UnitConverter.code(" Шт. "));
+    assertEquals(UnitConverter.UNKNOWN, UnitConverter.code("unknown"));
+    assertEquals(UnitConverter.UNKNOWN, UnitConverter.code(null));
+  }
+
+  @Test
+  void listsEverySpellingOfAUnit() {
+    assertTrue(UnitConverter.spellings(UnitConverter.KG).containsAll(List.of("kg", "KG", "кг", "КГ", "кг.")));
+    assertTrue(UnitConverter.spellings(UnitConverter.PCS).containsAll(List.of("pcs", "шт", "шт.", "pc")));
+    assertFalse(UnitConverter.spellings(UnitConverter.KG).contains("g"));
+  }
+
+  @Test
+  void convertsWithinDimensionOnly() {
+    int grams = UnitConverter.code("g");
+    int ounces = UnitConverter.code("oz");
+    int millis = UnitConverter.code("ml");
+    assertEquals(0.25, UnitConverter.toBase(250, grams), 1e-12);
+    assertEquals("kg", UnitConverter.baseName(ounces));
+    assertEquals(1000.0, UnitConverter.convert(1, UnitConverter.KG, grams), 1e-9);
+    assertTrue(UnitConverter.compatible(grams, ounces));
+    assertFalse(UnitConverter.compatible(grams, millis));
+    assertTrue(Double.isNaN(UnitConverter.convert(1, grams, millis)));
+    assertTrue(Double.isNaN(UnitConverter.toBase(1, UnitConverter.UNKNOWN)));
+  }
+
+  @Test
+  void publishesFactorsFromTheConversionTable() {
+    assertEquals(List.of("kg", "g", "mg", "lb", "oz"), List.copyOf(UnitConverter.massFactors().keySet()));
+    assertEquals(List.of("l", "ml", "tbsp", "tsp", "cup"), List.copyOf(UnitConverter.volumeFactors().keySet()));
+    for (String unit : Units.MEASUREMENT_UNITS) {
+      Double factor = UnitConverter.massFactors().getOrDefault(unit, UnitConverter.volumeFactors().get(unit));
+      if (factor != null) {
+        assertEquals(factor, UnitConverter.toBase(1, UnitConverter.code(unit)), 0.0);
+      }
+    }
+  }
+}